@@ -0,0 +1,46 @@
+package com.github.orm.elasticsearch.benchmark;
+
+import com.github.orm.elasticsearch.core.annotation.ESDocument;
+import com.github.orm.elasticsearch.core.annotation.ESId;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @ClassName BenchmarkDocument
+ * @Description 基准测试使用的实体，字段组成接近常见业务文档：文本、数值、日期、枚举、集合及嵌套对象
+ * @Author liyongbing
+ * @Date 2026/10/19 11:40
+ * @Version 1.0
+ **/
+@Data
+@ESDocument(indexName = "benchmark_document")
+public class BenchmarkDocument {
+
+    @ESId
+    private String id;
+    private String title;
+    private String content;
+    private List<String> tags;
+    private Integer viewCount;
+    private long likeCount;
+    private double score;
+    private Boolean published;
+    private Date createTime;
+    private Date updateTime;
+    private Status status;
+    private Author author;
+    private List<Author> reviewers;
+
+    public enum Status {
+        DRAFT, PUBLISHED, ARCHIVED
+    }
+
+    @Data
+    public static class Author {
+        private String name;
+        private String email;
+        private int level;
+    }
+}
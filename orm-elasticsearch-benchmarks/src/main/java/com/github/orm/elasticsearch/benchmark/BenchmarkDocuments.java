@@ -0,0 +1,60 @@
+package com.github.orm.elasticsearch.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @ClassName BenchmarkDocuments
+ * @Description 生成确定性的基准测试数据
+ * @Author liyongbing
+ * @Date 2026/10/19 11:42
+ * @Version 1.0
+ **/
+public final class BenchmarkDocuments {
+
+    private static final String PARAGRAPH = "Elasticsearch is a distributed, RESTful search and analytics engine capable of "
+            + "addressing a growing number of use cases. 分布式搜索引擎的文档通常包含较长的正文字段。";
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * @param seed       序号，决定各字段取值
+     * @param paragraphs 正文段落数，控制文档大小
+     */
+    public static BenchmarkDocument create(int seed, int paragraphs) {
+        BenchmarkDocument document = new BenchmarkDocument();
+        document.setId("doc-" + seed);
+        document.setTitle("benchmark document title " + seed);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            content.append(PARAGRAPH).append(' ').append(seed + i).append('\n');
+        }
+        document.setContent(content.toString());
+        document.setTags(Arrays.asList("search", "orm", "tag-" + seed % 10));
+        document.setViewCount(seed * 31);
+        document.setLikeCount(seed * 7L);
+        document.setScore(seed / 3.0);
+        document.setPublished(seed % 2 == 0);
+        document.setCreateTime(new Date(1600000000000L + seed * 1000L));
+        document.setUpdateTime(new Date(1600000000000L + seed * 2000L));
+        document.setStatus(BenchmarkDocument.Status.values()[seed % 3]);
+        document.setAuthor(author(seed));
+        List<BenchmarkDocument.Author> reviewers = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            reviewers.add(author(seed + i));
+        }
+        document.setReviewers(reviewers);
+        return document;
+    }
+
+    private static BenchmarkDocument.Author author(int seed) {
+        BenchmarkDocument.Author author = new BenchmarkDocument.Author();
+        author.setName("author " + seed);
+        author.setEmail("author" + seed + "@example.com");
+        author.setLevel(seed % 5);
+        return author;
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.orm.elasticsearch.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName EntityCodecBenchmark
+ * @Description 预编译实体编解码与原有fastjson路径的对比：
+ * 写入对比 JSON.toJSONString 后按UTF-8转为请求体，读取对比 JSON.parseObject(String, Class)
+ * @Author liyongbing
+ * @Date 2026/10/19 11:45
+ * @Version 1.0
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityCodecBenchmark {
+
+    /**
+     * 正文段落数，1 约 0.65KB，10 约 2KB
+     */
+    @Param({"1", "10"})
+    public int paragraphs;
+
+    private ESEntityCodec<BenchmarkDocument> codec;
+    private BenchmarkDocument document;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        codec = ESEntityCodec.of(BenchmarkDocument.class);
+        document = BenchmarkDocuments.create(1, paragraphs);
+        json = JSON.toJSONString(document);
+    }
+
+    @Benchmark
+    public BytesReference encodeFastjson() {
+        // 与原有 IndexRequest.source(JSON.toJSONString(object), XContentType.JSON) 相同的转换
+        return new BytesArray(JSON.toJSONString(document));
+    }
+
+    @Benchmark
+    public BytesReference encodeCodec() {
+        return codec.toBytes(document);
+    }
+
+    @Benchmark
+    public BenchmarkDocument decodeFastjson() {
+        return JSON.parseObject(json, BenchmarkDocument.class);
+    }
+
+    @Benchmark
+    public BenchmarkDocument decodeCodec() {
+        return codec.decode(json);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.orm.elasticsearch.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName HitDecodeBenchmark
+ * @Description 基于录制的搜索响应(20条命中)，对比命中解码的两条路径：
+ * 原有的 getSourceAsString() + JSON.parseObject，与 ESEntityCodec 直接读取 getSourceRef()。
+ * 响应经 SearchResponse.fromXContent 解析，_source 与客户端实际拿到的一样是分页的 BytesReference，结果按单条命中计
+ * @Author liyongbing
+ * @Date 2026/10/19 14:20
+ * @Version 1.0
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HitDecodeBenchmark {
+
+    private static final String RESPONSE = "/search_response.json";
+    private static final int HITS = 20;
+
+    private ESEntityCodec<BenchmarkDocument> codec;
+    private SearchHit[] hits;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = ESEntityCodec.of(BenchmarkDocument.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = HitDecodeBenchmark.class.getResourceAsStream(RESPONSE)) {
+            Streams.copy(in, out);
+        }
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, out.toByteArray())) {
+            hits = SearchResponse.fromXContent(parser).getHits().getHits();
+        }
+        if (hits.length != HITS) {
+            throw new IllegalStateException("录制的响应应包含 " + HITS + " 条命中，实际为 " + hits.length);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HITS)
+    public void sourceStringFastjson(Blackhole blackhole) {
+        for (SearchHit hit : hits) {
+            blackhole.consume(JSON.parseObject(hit.getSourceAsString(), BenchmarkDocument.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HITS)
+    public void sourceRefCodec(Blackhole blackhole) {
+        for (SearchHit hit : hits) {
+            blackhole.consume(codec.decode(hit.getSourceRef()));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.orm.elasticsearch.core.aggregation;
+
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregation;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ClassName ESAggregations
+ * @Description 查询返回的聚合结果，按名称读取桶及指标
+ * @Author liyongbing
+ * @Date 2026/10/19 00:10
+ * @Version 1.0
+ **/
+public class ESAggregations {
+
+    public static final ESAggregations EMPTY = new ESAggregations(null);
+
+    private final Aggregations aggregations;
+
+    public ESAggregations(Aggregations aggregations) {
+        this.aggregations = aggregations;
+    }
+
+    public boolean isEmpty() {
+        return aggregations == null || aggregations.asList().isEmpty();
+    }
+
+    /**
+     * 原始聚合结果
+     *
+     * @return 不存在时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public <A extends Aggregation> A get(String name) {
+        return aggregations != null ? (A) aggregations.get(name) : null;
+    }
+
+    /**
+     * terms/histogram/composite 等多桶聚合的桶列表
+     *
+     * @return 不存在时为空列表
+     */
+    public List<ESBucket> buckets(String name) {
+        Aggregation aggregation = get(name);
+        if (aggregation == null) {
+            return Collections.emptyList();
+        }
+        if (!(aggregation instanceof MultiBucketsAggregation)) {
+            throw new IllegalArgumentException("聚合 {" + name + "} 不是多桶聚合: " + aggregation.getType());
+        }
+        List<? extends MultiBucketsAggregation.Bucket> buckets = ((MultiBucketsAggregation) aggregation).getBuckets();
+        List<ESBucket> result = new ArrayList<>(buckets.size());
+        for (MultiBucketsAggregation.Bucket bucket : buckets) {
+            result.add(new ESBucket(bucket.getKey(), bucket.getKeyAsString(), bucket.getDocCount(), new ESAggregations(bucket.getAggregations())));
+        }
+        return result;
+    }
+
+    /**
+     * 各桶的文档数，按桶顺序
+     */
+    public Map<String, Long> counts(String name) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ESBucket bucket : buckets(name)) {
+            counts.put(bucket.getKeyAsString(), bucket.getDocCount());
+        }
+        return counts;
+    }
+
+    /**
+     * filter/missing/nested 等单桶聚合
+     *
+     * @return 不存在时为 null
+     */
+    public ESBucket bucket(String name) {
+        Aggregation aggregation = get(name);
+        if (aggregation == null) {
+            return null;
+        }
+        if (!(aggregation instanceof SingleBucketAggregation)) {
+            throw new IllegalArgumentException("聚合 {" + name + "} 不是单桶聚合: " + aggregation.getType());
+        }
+        SingleBucketAggregation single = (SingleBucketAggregation) aggregation;
+        return new ESBucket(name, name, single.getDocCount(), new ESAggregations(single.getAggregations()));
+    }
+
+    /**
+     * sum/avg/min/max/value_count/cardinality 等单值指标
+     *
+     * @return 不存在时为 NaN
+     */
+    public double metric(String name) {
+        Aggregation aggregation = get(name);
+        if (aggregation == null) {
+            return Double.NaN;
+        }
+        if (!(aggregation instanceof NumericMetricsAggregation.SingleValue)) {
+            throw new IllegalArgumentException("聚合 {" + name + "} 不是单值指标: " + aggregation.getType());
+        }
+        return ((NumericMetricsAggregation.SingleValue) aggregation).value();
+    }
+
+    /**
+     * 全部单值指标，名称到值
+     */
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        if (aggregations != null) {
+            for (Aggregation aggregation : aggregations) {
+                if (aggregation instanceof NumericMetricsAggregation.SingleValue) {
+                    metrics.put(aggregation.getName(), ((NumericMetricsAggregation.SingleValue) aggregation).value());
+                }
+            }
+        }
+        return metrics;
+    }
+
+    public Aggregations getAggregations() {
+        return aggregations;
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.orm.elasticsearch.core.aggregation;
+
+import lombok.Getter;
+
+/**
+ * @ClassName ESBucket
+ * @Description 聚合桶，子聚合通过 {@link #getAggregations()} 读取
+ * @Author liyongbing
+ * @Date 2026/10/19 00:05
+ * @Version 1.0
+ **/
+@Getter
+public class ESBucket {
+
+    /**
+     * 桶的键，composite 聚合为各 source 名称到值的Map
+     */
+    private final Object key;
+    private final String keyAsString;
+    private final long docCount;
+    private final ESAggregations aggregations;
+
+    public ESBucket(Object key, String keyAsString, long docCount, ESAggregations aggregations) {
+        this.key = key;
+        this.keyAsString = keyAsString;
+        this.docCount = docCount;
+        this.aggregations = aggregations;
+    }
+
+    /**
+     * 子聚合中的单值指标
+     */
+    public double metric(String name) {
+        return aggregations.metric(name);
+    }
+
+    @Override
+    public String toString() {
+        return "ESBucket{key=" + keyAsString + ", docCount=" + docCount + ", metrics=" + aggregations.metrics() + "}";
+    }
+}
@@ -34,4 +34,10 @@ public @interface ESDocument {
      * Number of replicas for the index {@link #indexName()}. Used for index creation.
      */
     int replicas() default 0;
+
+    /**
+     * Manage the index through a read alias ({@link #indexName()}) and a write alias over versioned concrete indices,
+     * so that migrations and full reloads can be promoted without downtime.
+     */
+    boolean alias() default false;
 }
@@ -0,0 +1,23 @@
+package com.github.orm.elasticsearch.core.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.*;
+
+/**
+ * Field whose value is used as the custom routing key on index, update, delete and get requests.
+ *
+ * @author liyongbing
+ * @date 2026/10/18
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(value = { FIELD, ANNOTATION_TYPE })
+public @interface ESRouting {
+
+    /**
+     * Mark {@code _routing} as required in the mapping, requests without routing are rejected by the cluster.
+     */
+    boolean required() default false;
+}
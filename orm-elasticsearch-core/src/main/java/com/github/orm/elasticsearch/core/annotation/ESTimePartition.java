@@ -0,0 +1,31 @@
+package com.github.orm.elasticsearch.core.annotation;
+
+import com.github.orm.elasticsearch.core.enums.ESPartitionUnit;
+
+import java.lang.annotation.*;
+
+/**
+ * Route each document to a time based index ({@code indexName-yyyy.MM.dd} or {@code indexName-yyyy.MM})
+ * according to a date field. Partitions are created lazily on first write.
+ *
+ * @author liyongbing
+ * @date 2026/10/18
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface ESTimePartition {
+
+    /**
+     * Name of the date field, supports {@link java.util.Date}, epoch millis, {@link java.time.LocalDate},
+     * {@link java.time.LocalDateTime} and date strings.
+     */
+    String field();
+
+    ESPartitionUnit unit() default ESPartitionUnit.DAY;
+
+    /**
+     * Time zone used to cut partitions, system default when empty.
+     */
+    String zone() default "";
+}
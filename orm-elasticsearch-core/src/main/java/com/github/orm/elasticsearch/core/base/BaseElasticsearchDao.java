@@ -1,25 +1,91 @@
 package com.github.orm.elasticsearch.core.base;
 
 import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.aggregation.ESAggregations;
+import com.github.orm.elasticsearch.core.aggregation.ESCompositeIterator;
 import com.github.orm.elasticsearch.core.annotation.ESDocument;
 import com.github.orm.elasticsearch.core.annotation.ESId;
+import com.github.orm.elasticsearch.core.annotation.ESTimePartition;
+import com.github.orm.elasticsearch.core.bulk.ESBulkExecutor;
+import com.github.orm.elasticsearch.core.cache.ESCacheStats;
+import com.github.orm.elasticsearch.core.cache.ESGetCoalescer;
+import com.github.orm.elasticsearch.core.cache.ESNearCache;
+import com.github.orm.elasticsearch.core.bulk.ESBulkItemResult;
+import com.github.orm.elasticsearch.core.bulk.ESBulkProcessor;
+import com.github.orm.elasticsearch.core.bulk.ESBulkResult;
+import com.github.orm.elasticsearch.core.client.ESHedgedReads;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import com.github.orm.elasticsearch.core.codec.ESEntitySnapshot;
+import com.github.orm.elasticsearch.core.codec.ESPropertyCodec;
+import com.github.orm.elasticsearch.core.enums.ESDecodeMode;
+import com.github.orm.elasticsearch.core.enums.ESFieldType;
+import com.github.orm.elasticsearch.core.migration.ESIndexLoader;
+import com.github.orm.elasticsearch.core.migration.ESIndexMigrator;
+import com.github.orm.elasticsearch.core.migration.ESMigrationProgress;
+import com.github.orm.elasticsearch.core.query.ESQuery;
+import com.github.orm.elasticsearch.core.setting.ESBulkRetryPolicy;
+import com.github.orm.elasticsearch.core.setting.ESBulkSetting;
+import com.github.orm.elasticsearch.core.setting.ESByQuerySetting;
+import com.github.orm.elasticsearch.core.setting.ESCacheSetting;
 import com.github.orm.elasticsearch.core.setting.ESClassSetting;
+import com.github.orm.elasticsearch.core.setting.ESCoalesceSetting;
+import com.github.orm.elasticsearch.core.setting.ESMigrationSetting;
 import com.github.orm.elasticsearch.core.setting.SimpleESClassSetting;
+import com.github.orm.elasticsearch.core.task.ESTaskHandle;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
 import org.apache.lucene.search.TotalHits;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.indices.alias.Alias;
 import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.*;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.core.CountRequest;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.reindex.UpdateByQueryRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -31,13 +97,33 @@ import org.springframework.util.StringUtils;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author liyongbing
  * @date 2020/07/23
  */
 @Slf4j
-public abstract class BaseElasticsearchDao<T> implements InitializingBean {
+public abstract class BaseElasticsearchDao<T> implements InitializingBean, DisposableBean {
+
+    private static final TimeValue DEFAULT_SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    private static final int DEFAULT_SCROLL_SIZE = 1000;
+    private static final String WRITE_ALIAS_SUFFIX = "_write";
+    protected static final int DEFAULT_UPDATE_RETRIES = 10;
+    /**
+     * 版本冲突重试的首次等待及最长等待(毫秒)，指数退避加随机抖动
+     */
+    private static final long UPDATE_INITIAL_BACKOFF_MILLIS = 10;
+    private static final long UPDATE_MAX_BACKOFF_MILLIS = 500;
+    /**
+     * 可直接读取 doc values 排序的 @ESId 字段类型
+     */
+    private static final Set<String> SORTABLE_ID_TYPES = new HashSet<>(Arrays.asList(ESFieldType.KEYWORD.typeName,
+            ESFieldType.LONG.typeName, ESFieldType.INTEGER.typeName, ESFieldType.SHORT.typeName, ESFieldType.BYTE.typeName));
 
     protected ElasticsearchUtils elasticsearchUtils;
     protected String env;
@@ -46,6 +132,27 @@ public abstract class BaseElasticsearchDao<T> implements InitializingBean {
      * 索引名称
      */
     protected String indexName;
+    /**
+     * 别名模式，{@link #indexName} 为读别名，写入经由 {@link #writeIndexName}
+     */
+    protected boolean aliasMode;
+    /**
+     * 写入使用的索引名称，别名模式下为写别名
+     */
+    protected String writeIndexName;
+    /**
+     * 时间分区，实体标注 {@link ESTimePartition} 时启用
+     */
+    protected ESTimePartitioner partitioner;
+    /**
+     * 已确认存在的分区索引
+     */
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+    /**
+     * 分区索引共用的settings及mapping，启动时生成一次
+     */
+    private String partitionSettings;
+    private BytesReference partitionMapping;
     /**
      * ID字段
      */
@@ -54,11 +161,44 @@ public abstract class BaseElasticsearchDao<T> implements InitializingBean {
      * T对应的类型Class
      */
     protected Class<T> genericClass;
+    /**
+     * T对应的预编译编解码
+     */
+    protected ESEntityCodec<T> codec;
+    /**
+     * 可作为 search_after 唯一排序字段的 @ESId 属性名，启动时按实际mapping确定，不可用时为 null
+     */
+    private String idSortField;
 
     protected int shards;
 
     protected int replicas;
 
+    /**
+     * 批量写入管道，{@link #bulkSetting()} 返回非空时启用
+     */
+    protected ESBulkProcessor bulkProcessor;
+
+    /**
+     * 按id读取的本地缓存，{@link #cacheSetting()} 返回非空时启用
+     */
+    protected ESNearCache nearCache;
+
+    /**
+     * 按id读取的请求合并，{@link #coalesceSetting()} 返回非空时启用
+     */
+    protected ESGetCoalescer getCoalescer;
+
+    /**
+     * {@link #decodeMode()} 的值，初始化时确定
+     */
+    private ESDecodeMode readMode = ESDecodeMode.FASTJSON;
+
+    /**
+     * 异步接口的解码线程池，避免在HTTP I/O线程上解码
+     */
+    protected Executor decodeExecutor = ForkJoinPool.commonPool();
+
     public ElasticsearchUtils getElasticsearchUtils() {
         return elasticsearchUtils;
     }
@@ -67,16 +207,61 @@ public abstract class BaseElasticsearchDao<T> implements InitializingBean {
         return getElasticsearchUtils().getClient();
     }
 
+    /**
+     * 批量写入使用的客户端，未单独配置时与 {@link #getClient()} 相同
+     */
+    public RestHighLevelClient getBulkClient() {
+        return elasticsearchUtils.getBulkClient();
+    }
+
+    protected RequestOptions searchOptions() {
+        return elasticsearchUtils.getRequestOptions().getSearch();
+    }
+
+    protected RequestOptions bulkOptions() {
+        return elasticsearchUtils.getRequestOptions().getBulk();
+    }
+
+    protected RequestOptions getOptions() {
+        return elasticsearchUtils.getRequestOptions().getGet();
+    }
+
+    protected RequestOptions writeOptions() {
+        return elasticsearchUtils.getRequestOptions().getWrite();
+    }
+
+    protected RequestOptions adminOptions() {
+        return elasticsearchUtils.getRequestOptions().getAdmin();
+    }
+
     public String getIndexName() {
         return indexName;
     }
 
     public String getIndexName(T data) {
-        return indexName;
+        if (partitioner != null) {
+            return ensurePartition(partitioner.partitionOf(data));
+        }
+        return getWriteIndexName();
+    }
+
+    public String getWriteIndexName() {
+        return writeIndexName != null ? writeIndexName : indexName;
+    }
+
+    public boolean isAliasMode() {
+        return aliasMode;
     }
 
     public String getIndexNamePattern() {
-        return indexName;
+        return partitioner != null ? partitioner.getPattern() : indexName;
+    }
+
+    /**
+     * 与 [from, to] 有交集的分区，未启用时间分区时为 {@link #getIndexNamePattern()}；from 晚于 to 时抛出 IllegalArgumentException
+     */
+    public String[] getIndexNamePattern(Date from, Date to) {
+        return partitioner != null ? partitioner.partitions(from, to) : new String[]{getIndexNamePattern()};
     }
 
     public Field getIdField() {
@@ -87,6 +272,30 @@ public abstract class BaseElasticsearchDao<T> implements InitializingBean {
         return genericClass;
     }
 
+    public ESEntityCodec<T> getCodec() {
+        return codec;
+    }
+
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    public void setDecodeExecutor(Executor decodeExecutor) {
+        Assert.notNull(decodeExecutor, "decodeExecutor must not be null!");
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    public ESBulkProcessor getBulkProcessor() {
+        return bulkProcessor;
+    }
+
+    /**
+     * 近端缓存统计，未启用时为 null
+     */
+    public ESCacheStats getCacheStats() {
+        return nearCache != null ? nearCache.stats() : null;
+    }
+
     public BaseElasticsearchDao(ElasticsearchUtils elasticsearchUtils, String env) {
         this.elasticsearchUtils = elasticsearchUtils;
         this.env = env;
@@ -97,10 +306,17 @@ public abstract class BaseElasticsearchDao<T> implements InitializingBean {
     public void afterPropertiesSet() throws Exception {
         Class<T> beanClass = (Class<T>) GenericTypeResolver.resolveTypeArgument(this.getClass(), BaseElasticsearchDao.class);
         this.genericClass = beanClass;
+        this.codec = ESEntityCodec.of(beanClass);
         ESDocument esDocument = AnnotationUtils.findAnnotation(Objects.requireNonNull(beanClass), ESDocument.class);
         this.indexName = Objects.requireNonNull(esDocument).indexName() + "_" + env;
         this.shards = esDocument.shards() > 0 ? esDocument.shards() : 3;
         this.replicas = esDocument.replicas();
+        this.aliasMode = esDocument.alias();
+        ESTimePartition timePartition = AnnotationUtils.findAnnotation(beanClass, ESTimePartition.class);
+        if (timePartition != null) {
+            Assert.state(!aliasMode, "time partitioned index does not support alias mode");
+            this.partitioner = new ESTimePartitioner(indexName, timePartition, codec);
+        }
         Field[] declaredFields = beanClass.getDeclaredFields();
         for (Field declaredField : declaredFields) {
             ESId esId = declaredField.getAnnotation(ESId.class);
@@ -111,228 +327,1674 @@ public abstract class BaseElasticsearchDao<T> implements InitializingBean {
             }
         }
         createIndex();
+        this.idSortField = resolveIdSortField();
+        this.readMode = decodeMode();
+        ESBulkSetting bulkSetting = bulkSetting();
+        if (bulkSetting != null) {
+            this.bulkProcessor = new ESBulkProcessor(getBulkClient(), bulkOptions(), bulkSetting, indexName);
+        }
+        ESCacheSetting cacheSetting = cacheSetting();
+        if (cacheSetting != null) {
+            if (partitioner != null) {
+                log.warn("near cache is not supported on time partitioned index [{}]", indexName);
+            } else {
+                this.nearCache = new ESNearCache(cacheSetting);
+            }
+        }
+        ESCoalesceSetting coalesceSetting = coalesceSetting();
+        if (coalesceSetting != null) {
+            if (partitioner != null) {
+                log.warn("get coalescing is not supported on time partitioned index [{}]", indexName);
+            } else {
+                this.getCoalescer = new ESGetCoalescer(coalesceSetting, this::loadSources, nearCache != null ? nearCache::stamp : null, indexName);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (bulkProcessor != null) {
+            bulkProcessor.close();
+        }
+        if (getCoalescer != null) {
+            getCoalescer.close();
+        }
     }
 
     public void createIndex() {
+        if (partitioner != null) {
+            initPartitionSource();
+            return;
+        }
+        if (aliasMode) {
+            createAliasIndex();
+            return;
+        }
         if (this.getElasticsearchUtils().existIndex(getIndexName())) {
             return;
         }
         this.getElasticsearchUtils().createIndexRequest(getIndexName(), genericClass, classSetting());
     }
 
+    /**
+     * 别名模式：不存在时创建版本化索引并挂载读写别名；已是同名实际索引时继续直接读写，执行 {@link #migrateIndex()} 后切换为别名
+     */
+    private void createAliasIndex() {
+        ESIndexMigrator migrator = new ESIndexMigrator(getElasticsearchUtils());
+        String writeAlias = indexName + WRITE_ALIAS_SUFFIX;
+        if (!this.getElasticsearchUtils().getAliasIndices(indexName).isEmpty()) {
+            migrator.ensureWriteAlias(indexName, writeAlias);
+            this.writeIndexName = writeAlias;
+        } else if (this.getElasticsearchUtils().existIndex(indexName)) {
+            log.warn("index [{}] is a concrete index, call migrateIndex() to switch to alias mode", indexName);
+            this.writeIndexName = indexName;
+        } else {
+            migrator.createVersionedIndex(indexName, genericClass, classSetting(),
+                    new Alias(indexName), new Alias(writeAlias).writeIndex(true));
+            this.writeIndexName = writeAlias;
+        }
+    }
+
     public void refreshIndex() {
-        if (this.getElasticsearchUtils().existIndex(getIndexName())) {
+        invalidateCache();
+        if (partitioner != null) {
+            for (String index : this.getElasticsearchUtils().getIndices(partitioner.getPattern())) {
+                this.getElasticsearchUtils().deleteIndexRequest(index);
+            }
+            partitions.clear();
+            return;
+        }
+        // 迁移后索引名称为别名，需删除其指向的实际索引
+        Set<String> indices = this.getElasticsearchUtils().getAliasIndices(getIndexName());
+        if (!indices.isEmpty()) {
+            indices.forEach(this.getElasticsearchUtils()::deleteIndexRequest);
+        } else if (this.getElasticsearchUtils().existIndex(getIndexName())) {
             this.getElasticsearchUtils().deleteIndexRequest(getIndexName());
         }
+        if (aliasMode) {
+            createAliasIndex();
+            return;
+        }
         this.getElasticsearchUtils().createIndexRequest(getIndexName(), genericClass, classSetting());
     }
 
-    public ESClassSetting classSetting() {
-        return new SimpleESClassSetting();
-    }
-
-
-    public void saveOrUpdate(T genericInstance) {
-        IndexRequest request = ElasticsearchUtils.buildIndexRequest(getIndexName(genericInstance), getIdValue(genericInstance), genericInstance);
+    private void initPartitionSource() {
         try {
-            getClient().index(request, RequestOptions.DEFAULT);
-        } catch (IOException e) {
-            log.error("elasticsearch insert error", e);
+            this.partitionSettings = BytesReference.bytes(classSetting().setDocType(genericClass).setting().getBuilder()).utf8ToString();
+            this.partitionMapping = BytesReference.bytes(new ESClassLoopMapping(genericClass).mapping().getBuilder());
+        } catch (Exception e) {
+            throw new ElasticsearchException("生成索引 {" + indexName + "} 分区配置失败", e);
         }
     }
 
-
-    public void batchSaveOrUpdate(List<T> indexList) {
-        if (CollectionUtils.isEmpty(indexList)) {
-            return;
-        }
-        BulkRequest request = new BulkRequest();
-        for (T index : indexList) {
-            request.add(ElasticsearchUtils.buildIndexRequest(getIndexName(index), getIdValue(index), index));
-        }
-        try {
-            BulkResponse response = getClient().bulk(request, RequestOptions.DEFAULT);
-            if (response.hasFailures()) {
-                throw new RuntimeException(response.buildFailureMessage());
+    /**
+     * 分区不存在时以缓存的settings及mapping创建
+     */
+    protected String ensurePartition(String partition) {
+        if (!partitions.contains(partition)) {
+            if (!this.getElasticsearchUtils().existIndex(partition)) {
+                this.getElasticsearchUtils().createIndexRequest(partition, partitionSettings, partitionMapping);
             }
-        } catch (IOException e) {
-            log.error("elasticsearch batch insert error", e);
+            partitions.add(partition);
         }
+        return partition;
     }
 
-    public void delete(T genericInstance) {
-        if (ObjectUtils.isEmpty(genericInstance)) {
-            return;
-        }
-        elasticsearchUtils.deleteRequest(getIndexName(genericInstance), getIdValue(genericInstance));
+    /**
+     * 按当前映射重建索引并迁移数据，完成后 {@link #getIndexName()} 成为指向新索引的别名。
+     * 复制期间读写不受影响；切换前补齐复制期间写入时原索引短暂加写锁，此时写入抛出异常，详见 {@link ESIndexMigrator}
+     *
+     * @return 新索引名称
+     */
+    public String migrateIndex() {
+        return migrateIndex(new ESMigrationSetting(), null);
     }
 
-    public void delete(List<T> indexList) {
-        if (CollectionUtils.isEmpty(indexList)) {
-            return;
-        }
-        BulkRequest request = new BulkRequest();
-        for (T index : indexList) {
-            request.add(new DeleteRequest(getIndexName(index), getIdValue(index)));
+    /**
+     * @param setting  迁移配置
+     * @param listener 进度回调，可为空
+     * @return 新索引名称
+     */
+    public String migrateIndex(ESMigrationSetting setting, Consumer<ESMigrationProgress> listener) {
+        Assert.state(partitioner == null, "time partitioned index does not support migration");
+        String writeAlias = aliasMode ? indexName + WRITE_ALIAS_SUFFIX : null;
+        String index = new ESIndexMigrator(getElasticsearchUtils())
+                .migrate(getIndexName(), writeAlias, genericClass, classSetting(), setting, listener);
+        if (aliasMode) {
+            this.writeIndexName = writeAlias;
         }
+        invalidateCache();
+        return index;
+    }
+
+    /**
+     * 全量导入到新建的版本化索引，调用 {@link ESIndexLoader#promote()} 后切换读写别名。
+     * <p>
+     * 新索引导入期间关闭刷新且副本数为0，切换前恢复。导入的数据会整体替换原索引，
+     * 因此导入期间原索引加写锁，查询不受影响，写入(包括其他实例)抛出 cluster_block_exception，切换或放弃导入后解除
+     */
+    public ESIndexLoader<T> bulkLoader() {
+        Assert.state(partitioner == null, "time partitioned index does not support bulk load");
+        ESIndexMigrator migrator = new ESIndexMigrator(getElasticsearchUtils());
+        Set<String> sources = migrator.resolveIndices(indexName);
+        String index = migrator.createVersionedIndex(indexName, genericClass, classSetting());
         try {
-            getClient().bulk(request, RequestOptions.DEFAULT);
-        } catch (IOException e) {
-            log.error("elasticsearch batch delete error", e);
+            Settings restore = migrator.prepareForBulkLoad(index);
+            migrator.blockWrites(sources, true);
+            ESBulkSetting setting = bulkSetting() != null ? bulkSetting() : new ESBulkSetting();
+            ESBulkProcessor processor = new ESBulkProcessor(getBulkClient(), bulkOptions(), setting, index);
+            return new ESIndexLoader<>(migrator, getElasticsearchUtils(), codec, processor, index, restore, sources,
+                    indexName, aliasMode ? indexName + WRITE_ALIAS_SUFFIX : null, this::invalidateCache);
+        } catch (RuntimeException e) {
+            migrator.blockWrites(sources, false);
+            this.getElasticsearchUtils().deleteIndexRequest(index);
+            throw e;
         }
     }
 
-
-    public List<T> search(SearchSourceBuilder searchSourceBuilder) {
-        ESPageResult<T> search = search(searchSourceBuilder, null, null);
-        return search != null ? search.getResults() : null;
+    public ESClassSetting classSetting() {
+        return new SimpleESClassSetting();
     }
 
+    /**
+     * 批量写入管道配置，默认不启用
+     *
+     * @return null 表示不启用
+     */
+    public ESBulkSetting bulkSetting() {
+        return null;
+    }
 
-    public ESPageResult<T> search(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
-        // 搜索
-        SearchResponse searchResponse = getSearchResponse(searchSourceBuilder, esPageRequest, esSort);
-        if (searchResponse == null) {
-            return null;
-        }
-        SearchHits searchHits = searchResponse.getHits();
-        SearchHit[] hits = searchHits.getHits();
-        List<T> genericInstanceList = new ArrayList<>();
-        Arrays.stream(hits).forEach(hit -> {
-            String sourceAsString = hit.getSourceAsString();
-            T object = JSON.parseObject(sourceAsString, genericClass);
-            if (getIdValue(object) == null) {
-                setIdValue(object, hit.getId());
-            }
-            genericInstanceList.add(object);
-        });
+    /**
+     * 同步批量写入时被拒绝文档的重试策略
+     */
+    public ESBulkRetryPolicy bulkRetryPolicy() {
+        return new ESBulkRetryPolicy();
+    }
 
-        TotalHits totalHits = searchHits.getTotalHits();
-        long total = totalHits.value;
-        return new ESPageResult<>(
-                total,
-                esPageRequest != null ? esPageRequest.getPageNo() : -1,
-                esPageRequest != null ? esPageRequest.getSize() : -1,
-                genericInstanceList);
+    /**
+     * 近端缓存配置，默认不启用。缓存只在本实例写入时失效，其他实例的写入在TTL内不可见
+     *
+     * @return null 表示不启用
+     */
+    public ESCacheSetting cacheSetting() {
+        return null;
+    }
 
+    /**
+     * 读取时 _source 的解码方式，默认 {@link ESDecodeMode#FASTJSON}。两种方式的耗时与内存分配对比见 {@link ESDecodeMode}，
+     * 投影读取固定使用编解码器
+     */
+    public ESDecodeMode decodeMode() {
+        return ESDecodeMode.FASTJSON;
     }
 
-    public ESPageResult<ESBaseEntity<T>> searchBase(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
-        SearchResponse searchResponse = getSearchResponse(searchSourceBuilder, esPageRequest, esSort);
-        if (searchResponse == null) {
-            return null;
-        }
-        SearchHits searchHits = searchResponse.getHits();
-        SearchHit[] hits = searchHits.getHits();
-        List<ESBaseEntity<T>> genericInstanceList = new ArrayList<>();
-        Arrays.stream(hits).forEach(hit -> {
-            String sourceAsString = hit.getSourceAsString();
-            T object = JSON.parseObject(sourceAsString, genericClass);
-            if (getIdValue(object) == null) {
-                setIdValue(object, hit.getId());
-            }
-            ESBaseEntity<T> entity = new ESBaseEntity<>();
-            entity.setSortValues(hit.getSortValues());
-            entity.setScore(hit.getScore());
-            entity.setIndexId(hit.getId());
-            entity.setHitIndex(hit.getIndex());
-            entity.setData(object);
-            genericInstanceList.add(entity);
-        });
-        TotalHits totalHits = searchHits.getTotalHits();
-        long total = totalHits.value;
-        return new ESPageResult<>(
-                total,
-                esPageRequest != null ? esPageRequest.getPageNo() : -1,
-                esPageRequest != null ? esPageRequest.getSize() : -1,
-                genericInstanceList);
+    /**
+     * 按id读取的请求合并配置，默认不启用。启用后并发读取同一id只发送一次请求，
+     * 设置合并窗口时窗口内的不同id合并为一次mget，调用方无需改动。按时间分区的索引不支持，配置后打印警告并忽略
+     *
+     * @return null 表示不启用
+     */
+    public ESCoalesceSetting coalesceSetting() {
+        return null;
+    }
 
+    /**
+     * deleteByQuery/updateByQuery 的默认配置
+     */
+    public ESByQuerySetting byQuerySetting() {
+        return new ESByQuerySetting();
     }
 
-    private SearchResponse getSearchResponse(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
-        // 搜索
-        Assert.notNull(searchSourceBuilder, "searchSourceBuilder is null");
-        SearchRequest searchRequest = new SearchRequest(getIndexNamePattern());
-        searchRequest.source(searchSourceBuilder);
-        // 分页
-        if (esPageRequest != null) {
-            searchSourceBuilder.from((esPageRequest.getPageNo() - 1) * esPageRequest.getSize());
-            searchSourceBuilder.size(esPageRequest.getSize());
-        }
-        // 排序
-        if (esSort != null) {
-            List<SortBuilder> orders = esSort.getOrders();
-            if (!CollectionUtils.isEmpty(orders)) {
-                orders.forEach(searchSourceBuilder::sort);
-            }
-            String preference = esSort.getPreference();
-            if (StringUtils.hasText(preference)) {
-                searchRequest.preference(preference);
-            }
+    protected ESBulkResult executeBulk(List<DocWriteRequest<?>> requests) {
+        try {
+            return new ESBulkExecutor(getBulkClient(), bulkOptions(), bulkRetryPolicy()).execute(requests);
+        } finally {
+            requests.forEach(this::invalidateCache);
         }
+    }
+
+
+    public void saveOrUpdate(T genericInstance) {
+        IndexRequest request = buildIndexRequest(genericInstance);
         try {
-            return getClient().search(searchRequest, RequestOptions.DEFAULT);
+            getClient().index(request, writeOptions());
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new ElasticsearchException("保存 {" + request.id() + "} 失败", e);
+        } finally {
+            invalidateCache(request);
         }
     }
 
 
-    private String getIdValue(T genericInstance) {
-        if (idField != null) {
-            Object idValue = null;
-            try {
-                idValue = idField.get(genericInstance);
-            } catch (IllegalAccessException ignored) {
-            }
-            if (idValue != null) {
-                return idValue.toString();
-            }
+    /**
+     * 批量保存，被集群拒绝的文档按 {@link #bulkRetryPolicy()} 单独重发
+     *
+     * @param indexList 实体列表
+     * @return 与 indexList 顺序一致的每个文档结果
+     */
+    public ESBulkResult batchSaveOrUpdate(List<T> indexList) {
+        if (CollectionUtils.isEmpty(indexList)) {
+            return ESBulkResult.EMPTY;
         }
-        return null;
+        List<DocWriteRequest<?>> requests = new ArrayList<>(indexList.size());
+        for (T index : indexList) {
+            requests.add(buildIndexRequest(index));
+        }
+        ESBulkResult result = executeBulk(requests);
+        if (result.hasFailures()) {
+            log.error("elasticsearch batch insert error, {}", result.buildFailureMessage());
+        }
+        return result;
     }
 
-    private void setIdValue(T genericInstance, String value) {
-        if (idField != null) {
-            try {
-                idField.set(genericInstance, value);
-            } catch (IllegalAccessException ignored) {
-            }
-        }
+    /**
+     * 局部更新请求及脚本更新请求的 retry_on_conflict，并发修改同一文档时由服务端重试
+     */
+    protected int retryOnConflict() {
+        return 3;
     }
 
-    public T getById(String idValue) {
-        try {
-            GetResponse getResponse = getClient().get(new GetRequest().index(getIndexName()).id(idValue), RequestOptions.DEFAULT);
-            String sourceAsString = getResponse.getSourceAsString();
-            return JSON.parseObject(sourceAsString, genericClass);
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * 记录实体当前状态，修改后通过 {@link #updateChanged(Object, ESEntitySnapshot)} 只写入变化的字段
+     */
+    public ESEntitySnapshot snapshot(T genericInstance) {
+        return codec.snapshot(genericInstance);
+    }
+
+    /**
+     * 只写入指定字段，字段值为空时写为 null
+     *
+     * @param fields 实体属性名
+     */
+    public void updateFields(T genericInstance, String... fields) {
+        executeUpdate(buildUpdateRequest(genericInstance, fields));
+    }
+
+    /**
+     * 只写入相对快照发生变化的字段，没有变化时不发送请求
+     *
+     * @return 是否发送了更新
+     */
+    public boolean updateChanged(T genericInstance, ESEntitySnapshot snapshot) {
+        UpdateRequest request = buildUpdateRequest(genericInstance, snapshot);
+        if (request == null) {
+            return false;
         }
-        return null;
+        executeUpdate(request);
+        return true;
     }
 
-    public List<T> batchGetById(Collection<String> ids) {
-        List<T> result = new ArrayList<>();
-        try {
-            MultiGetRequest multiGetRequest = new MultiGetRequest();
-            for (String id : ids) {
-                multiGetRequest.add(getIndexName(), id);
-            }
-            MultiGetResponse getResponse = getClient().mget(multiGetRequest, RequestOptions.DEFAULT);
-            MultiGetItemResponse[] responses = getResponse.getResponses();
-            for (MultiGetItemResponse respons : responses) {
-                GetResponse response = respons.getResponse();
-                T object = JSON.parseObject(response.getSourceAsString(), genericClass);
+    /**
+     * 脚本更新，可使用 stored script 并通过 params 传参
+     */
+    public void updateByScript(String idValue, String routing, Script script) {
+        executeUpdate(buildScriptUpdateRequest(idValue, routing, script));
+    }
+
+    /**
+     * 数值字段原子累加，字段不存在时按0处理
+     */
+    public void increment(String idValue, String routing, String field, Number delta) {
+        updateByScript(idValue, routing, incrementScript(field, delta));
+    }
+
+    /**
+     * 批量局部更新，请求由 buildUpdateRequest/buildScriptUpdateRequest 构建
+     *
+     * @return 与 requests 顺序一致的每个文档结果
+     */
+    public ESBulkResult batchUpdate(List<UpdateRequest> requests) {
+        if (CollectionUtils.isEmpty(requests)) {
+            return ESBulkResult.EMPTY;
+        }
+        ESBulkResult result = executeBulk(new ArrayList<>(requests));
+        if (result.hasFailures()) {
+            log.error("elasticsearch batch update error, {}", result.buildFailureMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 通过批量写入管道更新，适合高频的计数类更新
+     */
+    public CompletableFuture<ESBulkItemResult> submitUpdate(UpdateRequest request) {
+        Assert.state(bulkProcessor != null, "bulk processor is not enabled, override bulkSetting() first");
+        return bulkProcessor.add(request).whenComplete((result, e) -> invalidateCache(request));
+    }
+
+    /**
+     * 合并写入：文档不存在时以实体新建，存在时把实体的非空字段合并进已有文档，对象字段逐层合并，为空的字段保持原值
+     */
+    public void upsert(T genericInstance) {
+        executeUpdate(buildUpsertRequest(genericInstance));
+    }
+
+    /**
+     * 脚本合并写入
+     *
+     * @see #buildScriptedUpsertRequest(Object, Script)
+     */
+    public void upsert(T insert, Script script) {
+        executeUpdate(buildScriptedUpsertRequest(insert, script));
+    }
+
+    /**
+     * 批量合并写入
+     *
+     * @return 与 indexList 顺序一致的每个文档结果
+     */
+    public ESBulkResult batchUpsert(List<T> indexList) {
+        if (CollectionUtils.isEmpty(indexList)) {
+            return ESBulkResult.EMPTY;
+        }
+        List<UpdateRequest> requests = new ArrayList<>(indexList.size());
+        for (T index : indexList) {
+            requests.add(buildUpsertRequest(index));
+        }
+        return batchUpdate(requests);
+    }
+
+    /**
+     * 通过批量写入管道合并写入
+     */
+    public CompletableFuture<ESBulkItemResult> submitUpsert(T genericInstance) {
+        return submitUpdate(buildUpsertRequest(genericInstance));
+    }
+
+    public UpdateRequest buildUpsertRequest(T genericInstance) {
+        return ElasticsearchUtils.updateDoc(newUpdateRequest(getIndexName(genericInstance), getIdValue(genericInstance), getRoutingValue(genericInstance)),
+                codec.toBytes(genericInstance)).docAsUpsert(true);
+    }
+
+    /**
+     * 脚本合并写入：文档不存在时同样执行脚本，ctx._source 初始为 insert 实体
+     *
+     * @param insert 文档不存在时的初始内容
+     * @param script 合并脚本
+     */
+    public UpdateRequest buildScriptedUpsertRequest(T insert, Script script) {
+        BytesRef bytes = codec.toBytes(insert).toBytesRef();
+        return newUpdateRequest(getIndexName(insert), getIdValue(insert), getRoutingValue(insert))
+                .script(script)
+                .scriptedUpsert(true)
+                .upsert(bytes.bytes, bytes.offset, bytes.length, XContentType.JSON);
+    }
+
+    public UpdateRequest buildUpdateRequest(T genericInstance, String... fields) {
+        Assert.notEmpty(fields, "fields is empty");
+        BytesReference doc = codec.toBytes(genericInstance, Arrays.asList(fields));
+        return ElasticsearchUtils.updateDoc(newUpdateRequest(getIndexName(genericInstance), getIdValue(genericInstance), getRoutingValue(genericInstance)), doc);
+    }
+
+    /**
+     * @return 没有变化时为 null
+     */
+    public UpdateRequest buildUpdateRequest(T genericInstance, ESEntitySnapshot snapshot) {
+        BytesReference doc = codec.diff(snapshot, genericInstance);
+        if (doc == null) {
+            return null;
+        }
+        return ElasticsearchUtils.updateDoc(newUpdateRequest(getIndexName(genericInstance), getIdValue(genericInstance), getRoutingValue(genericInstance)), doc);
+    }
+
+    /**
+     * 时间分区模式下仅凭id无法确定分区，不支持脚本更新
+     */
+    public UpdateRequest buildScriptUpdateRequest(String idValue, String routing, Script script) {
+        Assert.state(partitioner == null, "script update by id is not supported on time partitioned index");
+        return newUpdateRequest(getWriteIndexName(), idValue, routing).script(script);
+    }
+
+    public UpdateRequest buildIncrementRequest(String idValue, String routing, String field, Number delta) {
+        return buildScriptUpdateRequest(idValue, routing, incrementScript(field, delta));
+    }
+
+    private Script incrementScript(String field, Number delta) {
+        Assert.notNull(codec.getProperty(field), "unknown field: " + field);
+        Map<String, Object> params = new HashMap<>(4);
+        params.put("field", field);
+        params.put("delta", delta);
+        return new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG,
+                "def v = ctx._source[params.field]; ctx._source[params.field] = (v == null ? 0 : v) + params.delta", params);
+    }
+
+    private UpdateRequest newUpdateRequest(String index, String idValue, String routing) {
+        Assert.hasText(idValue, "id is empty");
+        return new UpdateRequest(index, idValue).routing(routing).retryOnConflict(retryOnConflict());
+    }
+
+    private void executeUpdate(UpdateRequest request) {
+        try {
+            getClient().update(request, writeOptions());
+        } catch (IOException e) {
+            throw new ElasticsearchException("更新 {" + request.id() + "} 失败", e);
+        } finally {
+            invalidateCache(request);
+        }
+    }
+
+    public BulkByScrollResponse deleteByQuery(QueryBuilder query) {
+        return deleteByQuery(query, byQuerySetting());
+    }
+
+    /**
+     * 按查询删除，等待执行完成，完成后清空近端缓存
+     */
+    public BulkByScrollResponse deleteByQuery(QueryBuilder query, ESByQuerySetting setting) {
+        Assert.notNull(query, "query is null");
+        DeleteByQueryRequest request = configure(new DeleteByQueryRequest(getIndexNamePattern()).setQuery(query), setting)
+                .setBatchSize(setting.getBatchSize());
+        try {
+            return getClient().deleteByQuery(request, bulkOptions());
+        } catch (IOException e) {
+            throw new ElasticsearchException("delete_by_query {" + getIndexNamePattern() + "} 失败", e);
+        } finally {
+            invalidateCache();
+        }
+    }
+
+    public BulkByScrollResponse updateByQuery(QueryBuilder query, Script script) {
+        return updateByQuery(query, script, byQuerySetting());
+    }
+
+    /**
+     * 按查询更新，等待执行完成，完成后清空近端缓存
+     *
+     * @param script 为 null 时只重新索引匹配的文档，可用于mapping新增字段后生效
+     */
+    public BulkByScrollResponse updateByQuery(QueryBuilder query, Script script, ESByQuerySetting setting) {
+        Assert.notNull(query, "query is null");
+        UpdateByQueryRequest request = configure(new UpdateByQueryRequest(getIndexNamePattern()).setQuery(query), setting)
+                .setBatchSize(setting.getBatchSize());
+        if (script != null) {
+            request.setScript(script);
+        }
+        try {
+            return getClient().updateByQuery(request, bulkOptions());
+        } catch (IOException e) {
+            throw new ElasticsearchException("update_by_query {" + getIndexNamePattern() + "} 失败", e);
+        } finally {
+            invalidateCache();
+        }
+    }
+
+    /**
+     * 以后台任务提交按查询删除，立即返回，通过 {@link ESTaskHandle} 查询进度或取消。任务完成前后均会清空近端缓存
+     */
+    public ESTaskHandle submitDeleteByQuery(QueryBuilder query, ESByQuerySetting setting) {
+        return submitByQuery(ESTaskHandle.DELETE_BY_QUERY, query, null, setting);
+    }
+
+    /**
+     * 以后台任务提交按查询更新
+     *
+     * @see #submitDeleteByQuery(QueryBuilder, ESByQuerySetting)
+     */
+    public ESTaskHandle submitUpdateByQuery(QueryBuilder query, Script script, ESByQuerySetting setting) {
+        return submitByQuery(ESTaskHandle.UPDATE_BY_QUERY, query, script, setting);
+    }
+
+    private <R extends AbstractBulkByScrollRequest<R>> R configure(R request, ESByQuerySetting setting) {
+        request.setSlices(setting.getSlices() > 0 ? setting.getSlices() : AbstractBulkByScrollRequest.AUTO_SLICES)
+                .setAbortOnVersionConflict(!setting.isProceedOnConflict())
+                .setRefresh(setting.isRefresh());
+        if (setting.getRequestsPerSecond() > 0) {
+            request.setRequestsPerSecond(setting.getRequestsPerSecond());
+        }
+        return request;
+    }
+
+    /**
+     * 高级客户端在当前版本没有提交 by_query 后台任务的接口，使用低级客户端并设置 wait_for_completion=false
+     */
+    private ESTaskHandle submitByQuery(String action, QueryBuilder query, Script script, ESByQuerySetting setting) {
+        Assert.notNull(query, "query is null");
+        Request request = new Request("POST", "/" + getIndexNamePattern() + "/_" + action);
+        request.addParameter("wait_for_completion", "false");
+        request.addParameter("slices", setting.getSlices() > 0 ? String.valueOf(setting.getSlices()) : AbstractBulkByScrollRequest.AUTO_SLICES_VALUE);
+        request.addParameter("scroll_size", String.valueOf(setting.getBatchSize()));
+        if (setting.getRequestsPerSecond() > 0) {
+            request.addParameter("requests_per_second", String.valueOf(setting.getRequestsPerSecond()));
+        }
+        if (setting.isProceedOnConflict()) {
+            request.addParameter("conflicts", "proceed");
+        }
+        if (setting.isRefresh()) {
+            request.addParameter("refresh", "true");
+        }
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.startObject();
+            builder.field("query", query);
+            if (script != null) {
+                builder.field("script", script);
+            }
+            builder.endObject();
+            BytesRef body = BytesReference.bytes(builder).toBytesRef();
+            request.setEntity(new NByteArrayEntity(body.bytes, body.offset, body.length, ContentType.APPLICATION_JSON));
+            request.setOptions(bulkOptions());
+            invalidateCache();
+            Response response = getClient().getLowLevelClient().performRequest(request);
+            Map<String, Object> map = XContentHelper.convertToMap(XContentType.JSON.xContent(), response.getEntity().getContent(), false);
+            return new ESTaskHandle(getClient(), adminOptions(), (String) map.get("task"), action, this::invalidateCache);
+        } catch (IOException e) {
+            throw new ElasticsearchException("提交 " + action + " 任务 {" + getIndexNamePattern() + "} 失败", e);
+        }
+    }
+
+    /**
+     * 条件写入：文档的 _seq_no/_primary_term 与 entity 中读取时的值一致才写入，否则视为冲突。
+     * entity 未携带 _seq_no 时按新建处理，文档已存在同样视为冲突。写入成功后 entity 更新为新的 _seq_no/_primary_term
+     *
+     * @param entity {@link #getBaseById(String)} 或 {@link #searchBase} 的结果
+     * @return 写入成功为 true，版本冲突为 false
+     * @throws ElasticsearchException 冲突以外的失败
+     */
+    public boolean saveIfMatch(ESBaseEntity<T> entity) {
+        Assert.notNull(entity, "entity is null");
+        Assert.notNull(entity.getData(), "entity data is null");
+        IndexRequest request = buildIndexRequest(entity.getData());
+        if (entity.hasSeqNo()) {
+            request.setIfSeqNo(entity.getSeqNo()).setIfPrimaryTerm(entity.getPrimaryTerm());
+        } else {
+            request.opType(DocWriteRequest.OpType.CREATE);
+        }
+        try {
+            IndexResponse response = getClient().index(request, writeOptions());
+            entity.setSeqNo(response.getSeqNo());
+            entity.setPrimaryTerm(response.getPrimaryTerm());
+            entity.setHitIndex(response.getIndex());
+            return true;
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() == RestStatus.CONFLICT) {
+                log.warn("elasticsearch version conflict, id: {}, seqNo: {}, primaryTerm: {}", request.id(), entity.getSeqNo(), entity.getPrimaryTerm());
+                return false;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new ElasticsearchException("保存 {" + request.id() + "} 失败", e);
+        } finally {
+            invalidateCache(request);
+        }
+    }
+
+    /**
+     * 读取-修改-条件写入，版本冲突时重新读取并重试，默认最多重试 {@link #DEFAULT_UPDATE_RETRIES} 次
+     *
+     * @see #update(String, String, Function, int)
+     */
+    public T update(String idValue, Function<T, T> mutator) {
+        return update(idValue, null, mutator, DEFAULT_UPDATE_RETRIES);
+    }
+
+    /**
+     * 读取-修改-条件写入，版本冲突时退避后重新读取并重试。
+     * 时间分区模式下只能通过非实时的搜索读取且修改可能改变分区，不支持
+     *
+     * @param idValue    文档id
+     * @param routing    路由值，未使用自定义路由时为 null
+     * @param mutator    入参为当前文档，文档不存在时为 null；返回写入的文档，返回 null 表示不写入。重试时会再次调用
+     * @param maxRetries 冲突后的最大重试次数
+     * @return 写入的文档，未写入时为 null
+     * @throws ElasticsearchException 重试次数用尽仍然冲突
+     */
+    public T update(String idValue, String routing, Function<T, T> mutator, int maxRetries) {
+        Assert.hasText(idValue, "id is empty");
+        Assert.state(partitioner == null, "read-modify-write update is not supported on time partitioned index");
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                backoffBeforeRetry(idValue, attempt);
+            }
+            ESBaseEntity<T> current = getBaseById(idValue, routing);
+            ESBaseEntity<T> entity = current != null ? current : new ESBaseEntity<>();
+            T updated = mutator.apply(entity.getData());
+            if (updated == null) {
+                return null;
+            }
+            setIdValue(updated, idValue);
+            entity.setData(updated);
+            if (saveIfMatch(entity)) {
+                return updated;
+            }
+        }
+        throw new ElasticsearchException("更新 {" + idValue + "} 失败，重试 " + maxRetries + " 次后仍然版本冲突");
+    }
+
+    private static void backoffBeforeRetry(String idValue, int attempt) {
+        long delay = Math.min(UPDATE_MAX_BACKOFF_MILLIS, UPDATE_INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("更新 {" + idValue + "} 重试时被中断", e);
+        }
+    }
+
+    /**
+     * 通过批量写入管道保存，文档对应的bulk item返回后future完成
+     *
+     * @param genericInstance 实体
+     * @return 文档最终结果
+     */
+    public CompletableFuture<ESBulkItemResult> submitSaveOrUpdate(T genericInstance) {
+        Assert.state(bulkProcessor != null, "bulk processor is not enabled, override bulkSetting() first");
+        IndexRequest request = buildIndexRequest(genericInstance);
+        return bulkProcessor.add(request).whenComplete((result, e) -> invalidateCache(request));
+    }
+
+    /**
+     * 通过批量写入管道删除
+     *
+     * @param genericInstance 实体
+     * @return 文档最终结果
+     */
+    public CompletableFuture<ESBulkItemResult> submitDelete(T genericInstance) {
+        Assert.state(bulkProcessor != null, "bulk processor is not enabled, override bulkSetting() first");
+        DeleteRequest request = buildDeleteRequest(genericInstance);
+        return bulkProcessor.add(request).whenComplete((result, e) -> invalidateCache(request));
+    }
+
+    public void delete(T genericInstance) {
+        if (ObjectUtils.isEmpty(genericInstance)) {
+            return;
+        }
+        try {
+            elasticsearchUtils.deleteRequest(getIndexName(genericInstance), getIdValue(genericInstance), getRoutingValue(genericInstance));
+        } finally {
+            invalidateCache(getIdValue(genericInstance), getRoutingValue(genericInstance));
+        }
+    }
+
+    public ESBulkResult delete(List<T> indexList) {
+        if (CollectionUtils.isEmpty(indexList)) {
+            return ESBulkResult.EMPTY;
+        }
+        List<DocWriteRequest<?>> requests = new ArrayList<>(indexList.size());
+        for (T index : indexList) {
+            requests.add(buildDeleteRequest(index));
+        }
+        ESBulkResult result = executeBulk(requests);
+        if (result.hasFailures()) {
+            log.error("elasticsearch batch delete error, {}", result.buildFailureMessage());
+        }
+        return result;
+    }
+
+
+    public List<T> search(SearchSourceBuilder searchSourceBuilder) {
+        ESPageResult<T> search = search(searchSourceBuilder, null, null);
+        return search != null ? search.getResults() : null;
+    }
+
+
+    public ESPageResult<T> search(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
+        // 搜索
+        SearchResponse searchResponse = getSearchResponse(searchSourceBuilder, esPageRequest, esSort);
+        if (searchResponse == null) {
+            return null;
+        }
+        return toPageResult(searchResponse, esPageRequest);
+    }
+
+    /**
+     * 结果包含每条文档的 _seq_no/_primary_term，可直接用于 {@link #saveIfMatch(ESBaseEntity)}
+     */
+    public ESPageResult<ESBaseEntity<T>> searchBase(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
+        searchSourceBuilder.seqNoAndPrimaryTerm(true);
+        SearchResponse searchResponse = getSearchResponse(searchSourceBuilder, esPageRequest, esSort);
+        if (searchResponse == null) {
+            return null;
+        }
+        return toBasePageResult(searchResponse, esPageRequest);
+    }
+
+    /**
+     * 投影查询，只返回并解码 projection 包含的字段
+     *
+     * @param projection {@link ESProjection#of(Class)} 或 {@link #projection(String...)}
+     */
+    public <P> ESPageResult<P> search(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort, ESProjection<P> projection) {
+        searchSourceBuilder.fetchSource(projection.toFetchSource());
+        SearchResponse searchResponse = getSearchResponse(searchSourceBuilder, esPageRequest, esSort);
+        return toPageResult(searchResponse, esPageRequest, hit -> decodeHit(hit, projection));
+    }
+
+    /**
+     * 按实体字段mapping构建的查询
+     */
+    public ESQuery<T> query() {
+        return ESQuery.of(genericClass);
+    }
+
+    public ESPageResult<T> search(ESQuery<T> query, ESPageRequest esPageRequest) {
+        return search(query.toSearchSource(), esPageRequest, query.toSort());
+    }
+
+    public List<T> search(ESQuery<T> query) {
+        ESPageResult<T> search = search(query, null);
+        return search != null ? search.getResults() : null;
+    }
+
+    /**
+     * 通过 _count 统计匹配的文档数，不获取文档
+     */
+    public long count(QueryBuilder query) {
+        return count(query, null);
+    }
+
+    public long count(QueryBuilder query, String routing) {
+        CountRequest request = new CountRequest(getIndexNamePattern())
+                .source(new SearchSourceBuilder().query(query != null ? query : QueryBuilders.matchAllQuery()))
+                .routing(routing);
+        if (partitioner != null) {
+            request.indicesOptions(IndicesOptions.lenientExpandOpen());
+        }
+        try {
+            return getClient().count(request, searchOptions()).getCount();
+        } catch (IOException e) {
+            throw new ElasticsearchException("统计 {" + getIndexNamePattern() + "} 文档数失败", e);
+        }
+    }
+
+    public long count(ESQuery<T> query) {
+        return count(query.toQuery());
+    }
+
+    /**
+     * 是否存在匹配的文档，每个分片找到一条即停止，不统计总数也不返回文档
+     */
+    public boolean exists(QueryBuilder query) {
+        // terminate_after 只在收集到第 N+1 条时才标记 terminated_early，单条匹配不会提前结束，需依赖总数判断；
+        // 总数统计到1即停止，各分片最多收集1条
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(query)
+                .size(0)
+                .terminateAfter(1)
+                .trackTotalHitsUpTo(1);
+        TotalHits totalHits = getSearchResponse(searchSourceBuilder, null, null).getHits().getTotalHits();
+        return totalHits != null && totalHits.value > 0;
+    }
+
+    public boolean exists(ESQuery<T> query) {
+        return exists(query.toQuery());
+    }
+
+    /**
+     * 只执行聚合，不返回文档
+     */
+    public ESAggregations aggregate(QueryBuilder query, AggregationBuilder... aggregations) {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().query(query).size(0);
+        for (AggregationBuilder aggregation : aggregations) {
+            searchSourceBuilder.aggregation(aggregation);
+        }
+        return new ESAggregations(getSearchResponse(searchSourceBuilder, null, null).getAggregations());
+    }
+
+    public ESAggregations aggregate(ESQuery<T> query, AggregationBuilder... aggregations) {
+        return aggregate(query.toQuery(), aggregations);
+    }
+
+    /**
+     * 按字段分组逐页遍历全部分组，text 字段需传入 keyword 子字段，可通过 {@link ESQuery#aggField(String)} 获取
+     *
+     * @param pageSize        每页分组数
+     * @param fields          分组字段，同时作为桶 key 中的名称
+     * @param subAggregations 每个分组内的子聚合
+     */
+    public ESCompositeIterator compositeTerms(QueryBuilder query, int pageSize, String[] fields, AggregationBuilder... subAggregations) {
+        Assert.notEmpty(fields, "fields is empty");
+        List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>(fields.length);
+        for (String field : fields) {
+            sources.add(new TermsValuesSourceBuilder(field).field(field));
+        }
+        return composite(query, pageSize, sources, subAggregations);
+    }
+
+    /**
+     * composite 聚合逐页遍历全部分组
+     */
+    public ESCompositeIterator composite(QueryBuilder query, int pageSize, List<CompositeValuesSourceBuilder<?>> sources, AggregationBuilder... subAggregations) {
+        CompositeAggregationBuilder composite = AggregationBuilders.composite("composite", sources).size(pageSize);
+        for (AggregationBuilder subAggregation : subAggregations) {
+            composite.subAggregation(subAggregation);
+        }
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().query(query).size(0).aggregation(composite);
+        return new ESCompositeIterator(getClient(), searchOptions(), buildSearchRequest(searchSourceBuilder, null, null), composite);
+    }
+
+    /**
+     * 创建 msearch，可加入多个DAO的查询后一次发送
+     */
+    public ESMultiSearch multiSearch() {
+        return new ESMultiSearch(getClient(), searchOptions());
+    }
+
+    /**
+     * 只查询与 [from, to] 有交集的时间分区，时间条件仍需包含在查询中
+     */
+    public ESPageResult<T> search(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort, Date from, Date to) {
+        SearchRequest searchRequest = buildSearchRequest(searchSourceBuilder, esPageRequest, esSort, from, to);
+        return toPageResult(getSearchResponse(searchRequest), esPageRequest);
+    }
+
+    public ESPageResult<ESBaseEntity<T>> searchBase(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort, Date from, Date to) {
+        searchSourceBuilder.seqNoAndPrimaryTerm(true);
+        SearchRequest searchRequest = buildSearchRequest(searchSourceBuilder, esPageRequest, esSort, from, to);
+        return toBasePageResult(getSearchResponse(searchRequest), esPageRequest);
+    }
+
+    protected ESPageResult<T> toPageResult(SearchResponse searchResponse, ESPageRequest esPageRequest) {
+        return toPageResult(searchResponse, esPageRequest, this::decodeHit);
+    }
+
+    protected <P> ESPageResult<P> toPageResult(SearchResponse searchResponse, ESPageRequest esPageRequest, Function<SearchHit, P> decoder) {
+        SearchHits searchHits = searchResponse.getHits();
+        SearchHit[] hits = searchHits.getHits();
+        List<P> genericInstanceList = new ArrayList<>();
+        Arrays.stream(hits).forEach(hit -> genericInstanceList.add(decoder.apply(hit)));
+
+        TotalHits totalHits = searchHits.getTotalHits();
+        long total = totalHits != null ? totalHits.value : -1;
+        ESPageResult<P> result = new ESPageResult<>(
+                total,
+                esPageRequest != null ? esPageRequest.getPageNo() : -1,
+                esPageRequest != null ? esPageRequest.getSize() : -1,
+                genericInstanceList);
+        result.setNextCursor(nextCursor(hits, esPageRequest));
+        result.setAggregations(new ESAggregations(searchResponse.getAggregations()));
+        result.setTotalLowerBound(totalHits != null && totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        return result;
+
+    }
+
+    protected ESPageResult<ESBaseEntity<T>> toBasePageResult(SearchResponse searchResponse, ESPageRequest esPageRequest) {
+        SearchHits searchHits = searchResponse.getHits();
+        SearchHit[] hits = searchHits.getHits();
+        List<ESBaseEntity<T>> genericInstanceList = new ArrayList<>();
+        Arrays.stream(hits).forEach(hit -> {
+            T object = decodeHit(hit);
+            ESBaseEntity<T> entity = new ESBaseEntity<>();
+            entity.setSortValues(hit.getSortValues());
+            entity.setScore(hit.getScore());
+            entity.setIndexId(hit.getId());
+            entity.setHitIndex(hit.getIndex());
+            entity.setSeqNo(hit.getSeqNo());
+            entity.setPrimaryTerm(hit.getPrimaryTerm());
+            entity.setData(object);
+            genericInstanceList.add(entity);
+        });
+        TotalHits totalHits = searchHits.getTotalHits();
+        long total = totalHits != null ? totalHits.value : -1;
+        ESPageResult<ESBaseEntity<T>> result = new ESPageResult<>(
+                total,
+                esPageRequest != null ? esPageRequest.getPageNo() : -1,
+                esPageRequest != null ? esPageRequest.getSize() : -1,
+                genericInstanceList);
+        result.setNextCursor(nextCursor(hits, esPageRequest));
+        result.setAggregations(new ESAggregations(searchResponse.getAggregations()));
+        result.setTotalLowerBound(totalHits != null && totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        return result;
+
+    }
+
+    /**
+     * 游标分页且本页已满时，用最后一条数据的排序值生成下一页游标
+     */
+    private String nextCursor(SearchHit[] hits, ESPageRequest esPageRequest) {
+        if (esPageRequest == null || !esPageRequest.isCursor() || hits.length < esPageRequest.getSize()) {
+            return null;
+        }
+        return esPageRequest.nextCursor(hits[hits.length - 1].getSortValues());
+    }
+
+    private SearchResponse getSearchResponse(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
+        return getSearchResponse(buildSearchRequest(searchSourceBuilder, esPageRequest, esSort));
+    }
+
+    /**
+     * 配置了对冲读取时以对冲方式发送
+     */
+    protected SearchResponse doSearch(SearchRequest request) throws IOException {
+        ESHedgedReads hedgedReads = elasticsearchUtils.getHedgedReads();
+        if (hedgedReads != null) {
+            return hedgedReads.executeSync(listener -> getClient().searchAsync(request, searchOptions(), listener));
+        }
+        return getClient().search(request, searchOptions());
+    }
+
+    protected GetResponse doGet(GetRequest request) throws IOException {
+        ESHedgedReads hedgedReads = elasticsearchUtils.getHedgedReads();
+        if (hedgedReads != null) {
+            return hedgedReads.executeSync(listener -> getClient().getAsync(request, getOptions(), listener));
+        }
+        return getClient().get(request, getOptions());
+    }
+
+    protected MultiGetResponse doMultiGet(MultiGetRequest request) throws IOException {
+        ESHedgedReads hedgedReads = elasticsearchUtils.getHedgedReads();
+        if (hedgedReads != null) {
+            return hedgedReads.executeSync(listener -> getClient().mgetAsync(request, getOptions(), listener));
+        }
+        return getClient().mget(request, getOptions());
+    }
+
+    private SearchResponse getSearchResponse(SearchRequest searchRequest) {
+        try {
+            return doSearch(searchRequest);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected SearchRequest buildSearchRequest(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
+        // 搜索
+        Assert.notNull(searchSourceBuilder, "searchSourceBuilder is null");
+        SearchRequest searchRequest = new SearchRequest(getIndexNamePattern());
+        searchRequest.source(searchSourceBuilder);
+        // 分页
+        if (esPageRequest != null && !esPageRequest.isCursor()) {
+            searchSourceBuilder.from((esPageRequest.getPageNo() - 1) * esPageRequest.getSize());
+            searchSourceBuilder.size(esPageRequest.getSize());
+        }
+        // 总数统计精度
+        if (esPageRequest != null && esPageRequest.getTrackTotalHits() != null) {
+            int trackTotalHits = esPageRequest.getTrackTotalHits();
+            if (trackTotalHits == 0) {
+                searchSourceBuilder.trackTotalHits(false);
+            } else {
+                searchSourceBuilder.trackTotalHitsUpTo(trackTotalHits);
+            }
+        }
+        // 排序
+        if (esSort != null) {
+            List<SortBuilder> orders = esSort.getOrders();
+            if (!CollectionUtils.isEmpty(orders)) {
+                orders.forEach(searchSourceBuilder::sort);
+            }
+            String preference = esSort.getPreference();
+            if (StringUtils.hasText(preference)) {
+                searchRequest.preference(preference);
+            }
+            if (!ObjectUtils.isEmpty(esSort.getRouting())) {
+                searchRequest.routing(esSort.getRouting());
+            }
+        }
+        // 游标分页
+        if (esPageRequest != null && esPageRequest.isCursor()) {
+            searchSourceBuilder.size(esPageRequest.getSize());
+            addTiebreakerSort(searchSourceBuilder);
+            if (esPageRequest.getSearchAfter() != null) {
+                searchSourceBuilder.searchAfter(esPageRequest.getSearchAfter());
+            }
+        }
+        return searchRequest;
+    }
+
+    /**
+     * 限定查询的时间分区，不存在的分区忽略
+     */
+    protected SearchRequest buildSearchRequest(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort, Date from, Date to) {
+        String[] indices = getIndexNamePattern(from, to);
+        // 空的索引列表等同于查询集群内全部索引
+        Assert.notEmpty(indices, "no index matches the time range");
+        return buildSearchRequest(searchSourceBuilder, esPageRequest, esSort)
+                .indices(indices)
+                .indicesOptions(IndicesOptions.lenientExpandOpen());
+    }
+
+    /**
+     * search_after 翻页的唯一排序字段，保证排序值相同的数据不会被跳过或重复。
+     * 默认使用 @ESId 字段，直接读取其 doc values；以下情况退回 _id，_id 排序需要在堆上加载 fielddata：
+     * 实体没有 @ESId 字段、该字段不写入 _source，或现有索引中该字段不是 keyword/整数类型(如旧版本创建的索引中动态映射为 text)
+     */
+    protected String cursorTiebreaker() {
+        return idSortField != null ? idSortField : "_id";
+    }
+
+    /**
+     * 所有匹配的索引都把 @ESId 属性映射为 keyword/整数类型时返回其属性名
+     */
+    private String resolveIdSortField() {
+        ESPropertyCodec idProperty = codec.getIdProperty();
+        if (idProperty == null || !idProperty.canEncode()) {
+            return null;
+        }
+        String field = idProperty.getName();
+        Map<String, String> types = getElasticsearchUtils().getFieldTypes(getIndexNamePattern(), field);
+        if (types.isEmpty() || !SORTABLE_ID_TYPES.containsAll(types.values())) {
+            log.info("index [{}] field [{}] mapped as {}, cursor paging uses _id as tiebreaker", indexName, field, types);
+            return null;
+        }
+        return field;
+    }
+
+    private void addTiebreakerSort(SearchSourceBuilder searchSourceBuilder) {
+        String tiebreaker = cursorTiebreaker();
+        List<SortBuilder<?>> sorts = searchSourceBuilder.sorts();
+        if (sorts != null) {
+            for (SortBuilder<?> sort : sorts) {
+                if (sort instanceof FieldSortBuilder && tiebreaker.equals(((FieldSortBuilder) sort).getFieldName())) {
+                    return;
+                }
+            }
+        }
+        searchSourceBuilder.sort(SortBuilders.fieldSort(tiebreaker).order(SortOrder.ASC));
+    }
+
+
+    private String getIdValue(T genericInstance) {
+        return codec.getId(genericInstance);
+    }
+
+    private static String cacheKey(String id, String routing) {
+        return routing == null ? id : routing + '\u0000' + id;
+    }
+
+    /**
+     * 同时让合并读取不再复用写入前发出的请求，否则之后的读取可能拿到并回填写入前的数据
+     */
+    protected void invalidateCache(String id, String routing) {
+        if (id == null) {
+            return;
+        }
+        if (nearCache != null) {
+            nearCache.invalidate(cacheKey(id, routing));
+        }
+        if (getCoalescer != null) {
+            getCoalescer.invalidate(id);
+        }
+    }
+
+    protected void invalidateCache(DocWriteRequest<?> request) {
+        invalidateCache(request.id(), request.routing());
+    }
+
+    /**
+     * 清空近端缓存，索引重建或整体切换后调用
+     */
+    public void invalidateCache() {
+        if (nearCache != null) {
+            nearCache.invalidateAll();
+        }
+        if (getCoalescer != null) {
+            getCoalescer.invalidateAll();
+        }
+    }
+
+    /**
+     * {@link com.github.orm.elasticsearch.core.annotation.ESRouting} 字段值，未标注时为 null
+     */
+    protected String getRoutingValue(T genericInstance) {
+        return codec.getRouting(genericInstance);
+    }
+
+    private void setIdValue(T genericInstance, String value) {
+        codec.setId(genericInstance, value);
+    }
+
+    /**
+     * 按 {@link #decodeMode()} 解码 _source
+     */
+    protected T decodeSource(BytesReference source) {
+        if (readMode == ESDecodeMode.CODEC) {
+            return codec.decode(source);
+        }
+        return source == null || source.length() == 0 ? null : JSON.parseObject(source.utf8ToString(), genericClass);
+    }
+
+    protected T decodeHit(SearchHit hit) {
+        T object = decodeSource(hit.getSourceRef());
+        if (object != null && getIdValue(object) == null) {
+            setIdValue(object, hit.getId());
+        }
+        return object;
+    }
+
+    protected <P> P decodeHit(SearchHit hit, ESProjection<P> projection) {
+        ESEntityCodec<P> projectionCodec = projection.getCodec();
+        P object = projectionCodec.decode(hit.getSourceRef());
+        if (object != null && projectionCodec.getIdProperty() != null && projectionCodec.getId(object) == null) {
+            projectionCodec.setId(object, hit.getId());
+        }
+        return object;
+    }
+
+    /**
+     * 以实体字段列表投影，解码为实体，未包含的字段为空
+     */
+    public ESProjection<T> projection(String... fields) {
+        return ESProjection.of(codec, fields);
+    }
+
+    protected IndexRequest buildIndexRequest(T genericInstance) {
+        return ElasticsearchUtils.buildIndexRequest(getIndexName(genericInstance), getIdValue(genericInstance), genericInstance, codec)
+                .routing(getRoutingValue(genericInstance));
+    }
+
+    protected DeleteRequest buildDeleteRequest(T genericInstance) {
+        return new DeleteRequest(getIndexName(genericInstance), getIdValue(genericInstance)).routing(getRoutingValue(genericInstance));
+    }
+
+    /**
+     * 以scroll方式遍历查询的全部结果，每批条数取 searchSourceBuilder.size()，未设置时为1000
+     * <p>
+     * 使用完毕必须关闭，以释放服务端scroll上下文
+     */
+    public ESScrollIterator<T> scroll(SearchSourceBuilder searchSourceBuilder) {
+        return scroll(searchSourceBuilder, DEFAULT_SCROLL_KEEP_ALIVE);
+    }
+
+    public ESScrollIterator<T> scroll(SearchSourceBuilder searchSourceBuilder, TimeValue keepAlive) {
+        Assert.notNull(searchSourceBuilder, "searchSourceBuilder is null");
+        if (searchSourceBuilder.size() < 0) {
+            searchSourceBuilder.size(DEFAULT_SCROLL_SIZE);
+        }
+        if (CollectionUtils.isEmpty(searchSourceBuilder.sorts())) {
+            // 无排序要求时按 _doc 遍历，开销最小
+            searchSourceBuilder.sort(SortBuilders.fieldSort("_doc"));
+        }
+        SearchRequest searchRequest = new SearchRequest(getIndexNamePattern()).source(searchSourceBuilder);
+        return new ESScrollIterator<>(getClient(), searchOptions(), searchRequest, keepAlive, this::decodeHit);
+    }
+
+    /**
+     * 流式遍历，关闭流时清理scroll上下文，建议配合 try-with-resources 使用
+     */
+    public Stream<T> stream(SearchSourceBuilder searchSourceBuilder) {
+        ESScrollIterator<T> iterator = scroll(searchSourceBuilder);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 切分为 slices 个互不重叠的sliced scroll，可由多个线程分别消费
+     */
+    public List<ESScrollIterator<T>> scrollSlices(SearchSourceBuilder searchSourceBuilder, int slices) {
+        Assert.isTrue(slices > 0, "slices must be greater than zero!");
+        if (slices == 1) {
+            return Collections.singletonList(scroll(searchSourceBuilder));
+        }
+        List<ESScrollIterator<T>> iterators = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            iterators.add(scroll(searchSourceBuilder.copyWithNewSlice(new SliceBuilder(i, slices))));
+        }
+        return iterators;
+    }
+
+    /**
+     * 以 slices 个线程并行遍历全部结果，全部消费完成或任一slice失败后返回
+     *
+     * @param consumer 需保证线程安全
+     */
+    public void parallelForEach(SearchSourceBuilder searchSourceBuilder, int slices, Consumer<T> consumer) {
+        List<ESScrollIterator<T>> iterators = scrollSlices(searchSourceBuilder, slices);
+        ExecutorService executor = Executors.newFixedThreadPool(slices);
+        try {
+            List<Future<?>> futures = new ArrayList<>(slices);
+            for (ESScrollIterator<T> iterator : iterators) {
+                futures.add(executor.submit(() -> {
+                    try (ESScrollIterator<T> it = iterator) {
+                        it.forEachRemaining(consumer);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("parallel scroll interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ElasticsearchException("parallel scroll error", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            iterators.forEach(ESScrollIterator::close);
+        }
+    }
+
+    public T getById(String idValue) {
+        return getById(idValue, (String) null);
+    }
+
+    /**
+     * 按路由值读取，只访问路由对应的分片。
+     * 经请求合并读取失败时抛出 {@link ElasticsearchException}，以便与文档不存在区分
+     *
+     * @return 文档不存在时为 null
+     */
+    public T getById(String idValue, String routing) {
+        if (partitioner != null) {
+            List<T> list = searchByIds(Collections.singletonList(idValue), routing);
+            return list.isEmpty() ? null : list.get(0);
+        }
+        String key = null;
+        if (nearCache != null) {
+            key = cacheKey(idValue, routing);
+            BytesReference cached = nearCache.get(key);
+            if (cached != null) {
+                return decodeSource(cached);
+            }
+        }
+        if (getCoalescer != null && routing == null) {
+            try {
+                // 版本戳取自共享请求创建时，加入已发出的请求不会用更新的版本戳回填旧数据
+                ESGetCoalescer.Fetch fetch = getCoalescer.get(idValue).get();
+                if (key != null && fetch.getSource() != null) {
+                    nearCache.put(key, fetch.getSource(), fetch.getStamp());
+                }
+                return decodeSource(fetch.getSource());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ElasticsearchException("查询 {" + idValue + "} 被中断", e);
+            } catch (ExecutionException e) {
+                throw new ElasticsearchException("查询 {" + idValue + "} 失败", e.getCause());
+            }
+        }
+        long stamp = key != null ? nearCache.stamp(key) : 0;
+        try {
+            GetResponse getResponse = doGet(buildGetRequest(idValue, routing));
+            if (key != null && getResponse.isExists()) {
+                nearCache.put(key, getResponse.getSourceAsBytesRef(), stamp);
+            }
+            return decodeSource(getResponse.getSourceAsBytesRef());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public ESBaseEntity<T> getBaseById(String idValue) {
+        return getBaseById(idValue, null);
+    }
+
+    /**
+     * 读取文档及其 _seq_no/_primary_term，不经过近端缓存及请求合并
+     *
+     * @return 文档不存在时为 null
+     */
+    public ESBaseEntity<T> getBaseById(String idValue, String routing) {
+        if (partitioner != null) {
+            SearchRequest request = buildIdsSearchRequest(Collections.singletonList(idValue), routing);
+            request.source().seqNoAndPrimaryTerm(true);
+            List<ESBaseEntity<T>> list = toBasePageResult(getSearchResponse(request), null).getResults();
+            return list.isEmpty() ? null : list.get(0);
+        }
+        GetResponse getResponse;
+        try {
+            getResponse = doGet(buildGetRequest(idValue, routing));
+        } catch (IOException e) {
+            throw new ElasticsearchException("读取 {" + idValue + "} 失败", e);
+        }
+        if (!getResponse.isExists()) {
+            return null;
+        }
+        ESBaseEntity<T> entity = new ESBaseEntity<>();
+        entity.setIndexId(getResponse.getId());
+        entity.setHitIndex(getResponse.getIndex());
+        entity.setSeqNo(getResponse.getSeqNo());
+        entity.setPrimaryTerm(getResponse.getPrimaryTerm());
+        entity.setData(decodeSource(getResponse.getSourceAsBytesRef()));
+        return entity;
+    }
+
+    /**
+     * 投影读取，不经过近端缓存及请求合并
+     */
+    public <P> P getById(String idValue, ESProjection<P> projection) {
+        if (partitioner != null) {
+            List<P> list = searchByIds(Collections.singletonList(idValue), null, projection);
+            return list.isEmpty() ? null : list.get(0);
+        }
+        try {
+            GetRequest request = buildGetRequest(idValue).fetchSourceContext(projection.toFetchSource());
+            GetResponse getResponse = doGet(request);
+            P object = projection.getCodec().decode(getResponse.getSourceAsBytesRef());
+            if (object != null && projection.getCodec().getIdProperty() != null) {
+                projection.getCodec().setId(object, getResponse.getId());
+            }
+            return object;
+        } catch (IOException e) {
+            log.error("elasticsearch get error, id: {}", idValue, e);
+        }
+        return null;
+    }
+
+    public <P> List<P> batchGetById(Collection<String> ids, ESProjection<P> projection) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        if (partitioner != null) {
+            return searchByIds(ids, null, projection);
+        }
+        List<P> result = new ArrayList<>();
+        MultiGetRequest request = new MultiGetRequest();
+        for (String id : ids) {
+            request.add(new MultiGetRequest.Item(getIndexName(), id).fetchSourceContext(projection.toFetchSource()));
+        }
+        try {
+            for (MultiGetItemResponse item : doMultiGet(request).getResponses()) {
+                if (item.isFailed()) {
+                    log.error("elasticsearch multi get error, id: {}, {}", item.getId(), item.getFailure().getMessage());
+                    continue;
+                }
+                P object = projection.getCodec().decode(item.getResponse().getSourceAsBytesRef());
                 if (object != null) {
+                    if (projection.getCodec().getIdProperty() != null) {
+                        projection.getCodec().setId(object, item.getId());
+                    }
                     result.add(object);
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("elasticsearch multi get error", e);
+        }
+        return result;
+    }
+
+    /**
+     * 时间分区模式下直接读取 time 所在分区
+     */
+    public T getById(String idValue, Date time) {
+        if (partitioner == null) {
+            return getById(idValue);
+        }
+        try {
+            GetRequest request = new GetRequest(partitioner.partitionOf(time), idValue);
+            return decodeSource(doGet(request).getSourceAsBytesRef());
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new ElasticsearchException("查询 {" + idValue + "} 失败", e);
+        }
+    }
+
+    public List<T> batchGetById(Collection<String> ids) {
+        return batchGetById(ids, (String) null);
+    }
+
+    /**
+     * @param routing 全部id共用的路由值
+     */
+    public List<T> batchGetById(Collection<String> ids, String routing) {
+        if (partitioner != null) {
+            return searchByIds(ids, routing);
+        }
+        return new ArrayList<>(batchGetByIdMap(ids, routing).values());
+    }
+
+    public Map<String, T> batchGetByIdMap(Collection<String> ids) {
+        return batchGetByIdMap(ids, null);
+    }
+
+    /**
+     * 按id批量读取，启用近端缓存时只向集群请求未命中的id
+     *
+     * @return 按 ids 顺序排列的 id -> 实体，不存在的id不包含在内
+     */
+    public Map<String, T> batchGetByIdMap(Collection<String> ids, String routing) {
+        Map<String, T> result = new LinkedHashMap<>();
+        if (CollectionUtils.isEmpty(ids)) {
+            return result;
+        }
+        if (partitioner != null) {
+            for (T object : searchByIds(ids, routing)) {
+                result.put(getIdValue(object), object);
+            }
+            return result;
+        }
+        Map<String, BytesReference> sources = new LinkedHashMap<>();
+        Map<String, Long> stamps = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            BytesReference cached = null;
+            if (nearCache != null) {
+                String key = cacheKey(id, routing);
+                cached = nearCache.get(key);
+                if (cached == null) {
+                    stamps.put(id, nearCache.stamp(key));
+                }
+            }
+            sources.put(id, cached);
+            if (cached == null) {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            try {
+                MultiGetResponse getResponse = doMultiGet(buildMultiGetRequest(misses, routing));
+                for (MultiGetItemResponse item : getResponse.getResponses()) {
+                    if (item.isFailed()) {
+                        log.error("elasticsearch multi get error, id: {}, {}", item.getId(), item.getFailure().getMessage());
+                        continue;
+                    }
+                    if (item.getResponse().isExists()) {
+                        BytesReference source = item.getResponse().getSourceAsBytesRef();
+                        sources.put(item.getId(), source);
+                        if (nearCache != null) {
+                            nearCache.put(cacheKey(item.getId(), routing), source, stamps.get(item.getId()));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("elasticsearch multi get error", e);
+            }
+        }
+        sources.forEach((id, source) -> {
+            T object = source != null ? decodeSource(source) : null;
+            if (object != null) {
+                result.put(id, object);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 时间分区模式下文档所在分区未知，以 ids 查询代替 get/mget
+     */
+    private List<T> searchByIds(Collection<String> ids, String routing) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        return toPageResult(getSearchResponse(buildIdsSearchRequest(ids, routing)), null).getResults();
+    }
+
+    private <P> List<P> searchByIds(Collection<String> ids, String routing, ESProjection<P> projection) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        SearchRequest request = buildIdsSearchRequest(ids, routing);
+        request.source().fetchSource(projection.toFetchSource());
+        return toPageResult(getSearchResponse(request), null, hit -> decodeHit(hit, projection)).getResults();
+    }
+
+    private SearchRequest buildIdsSearchRequest(Collection<String> ids, String routing) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.idsQuery().addIds(ids.toArray(new String[0])))
+                .size(ids.size());
+        return new SearchRequest(getIndexNamePattern()).source(source).routing(routing);
+    }
+
+    protected GetRequest buildGetRequest(String idValue) {
+        return buildGetRequest(idValue, null);
+    }
+
+    protected GetRequest buildGetRequest(String idValue, String routing) {
+        return new GetRequest().index(getIndexName()).id(idValue).routing(routing);
+    }
+
+    protected MultiGetRequest buildMultiGetRequest(Collection<String> ids) {
+        return buildMultiGetRequest(ids, null);
+    }
+
+    protected MultiGetRequest buildMultiGetRequest(Collection<String> ids, String routing) {
+        MultiGetRequest multiGetRequest = new MultiGetRequest();
+        for (String id : ids) {
+            multiGetRequest.add(new MultiGetRequest.Item(getIndexName(), id).routing(routing));
+        }
+        return multiGetRequest;
+    }
+
+    /**
+     * 合并读取的批量加载，在I/O线程上只取出 _source 字节，不解码
+     */
+    private CompletableFuture<Map<String, BytesReference>> loadSources(List<String> ids) {
+        MultiGetRequest request = buildMultiGetRequest(ids);
+        return this.<MultiGetResponse>listen(listener -> getClient().mgetAsync(request, getOptions(), listener))
+                .thenApply(response -> {
+                    Map<String, BytesReference> sources = new HashMap<>();
+                    for (MultiGetItemResponse item : response.getResponses()) {
+                        if (item.isFailed()) {
+                            log.error("elasticsearch multi get error, id: {}, {}", item.getId(), item.getFailure().getMessage());
+                        } else if (item.getResponse().isExists()) {
+                            sources.put(item.getId(), item.getResponse().getSourceAsBytesRef());
+                        }
+                    }
+                    return sources;
+                });
+    }
+
+    protected List<T> decodeMultiGet(MultiGetResponse getResponse) {
+        List<T> result = new ArrayList<>();
+        for (MultiGetItemResponse respons : getResponse.getResponses()) {
+            if (respons.isFailed()) {
+                log.error("elasticsearch multi get error, id: {}, {}", respons.getId(), respons.getFailure().getMessage());
+                continue;
+            }
+            T object = decodeSource(respons.getResponse().getSourceAsBytesRef());
+            if (object != null) {
+                result.add(object);
+            }
         }
         return result;
     }
 
+    public CompletableFuture<IndexResponse> saveOrUpdateAsync(T genericInstance) {
+        IndexRequest request = buildIndexRequest(genericInstance);
+        return this.<IndexResponse>listen(listener -> getClient().indexAsync(request, writeOptions(), listener))
+                .whenComplete((response, e) -> invalidateCache(request))
+                .thenApplyAsync(Function.identity(), decodeExecutor);
+    }
+
+    public CompletableFuture<ESPageResult<T>> searchAsync(SearchSourceBuilder searchSourceBuilder, ESPageRequest esPageRequest, ESSort esSort) {
+        SearchRequest request = buildSearchRequest(searchSourceBuilder, esPageRequest, esSort);
+        return this.<SearchResponse>listen(listener -> getClient().searchAsync(request, searchOptions(), listener))
+                .thenApplyAsync(response -> toPageResult(response, esPageRequest), decodeExecutor);
+    }
+
+    public CompletableFuture<T> getByIdAsync(String idValue) {
+        return getByIdAsync(idValue, null);
+    }
+
+    /**
+     * 与 {@link #getById(String, String)} 一致，先查近端缓存，未命中时读取并回填
+     */
+    public CompletableFuture<T> getByIdAsync(String idValue, String routing) {
+        if (partitioner != null) {
+            SearchRequest request = buildIdsSearchRequest(Collections.singletonList(idValue), routing);
+            return this.<SearchResponse>listen(listener -> getClient().searchAsync(request, searchOptions(), listener))
+                    .thenApplyAsync(response -> {
+                        List<T> list = toPageResult(response, null).getResults();
+                        return list.isEmpty() ? null : list.get(0);
+                    }, decodeExecutor);
+        }
+        String key = nearCache != null ? cacheKey(idValue, routing) : null;
+        if (key != null) {
+            BytesReference cached = nearCache.get(key);
+            if (cached != null) {
+                return CompletableFuture.supplyAsync(() -> decodeSource(cached), decodeExecutor);
+            }
+        }
+        if (getCoalescer != null && routing == null) {
+            return getCoalescer.get(idValue).thenApplyAsync(fetch -> {
+                if (key != null && fetch.getSource() != null) {
+                    nearCache.put(key, fetch.getSource(), fetch.getStamp());
+                }
+                return decodeSource(fetch.getSource());
+            }, decodeExecutor);
+        }
+        long stamp = key != null ? nearCache.stamp(key) : 0;
+        GetRequest request = buildGetRequest(idValue, routing);
+        return this.<GetResponse>listen(listener -> getClient().getAsync(request, getOptions(), listener))
+                .thenApplyAsync(response -> {
+                    if (key != null && response.isExists()) {
+                        nearCache.put(key, response.getSourceAsBytesRef(), stamp);
+                    }
+                    return decodeSource(response.getSourceAsBytesRef());
+                }, decodeExecutor);
+    }
+
+    public CompletableFuture<List<T>> batchGetByIdAsync(Collection<String> ids) {
+        if (partitioner != null) {
+            if (CollectionUtils.isEmpty(ids)) {
+                return CompletableFuture.completedFuture(new ArrayList<>());
+            }
+            SearchRequest request = buildIdsSearchRequest(ids, null);
+            return this.<SearchResponse>listen(listener -> getClient().searchAsync(request, searchOptions(), listener))
+                    .thenApplyAsync(response -> toPageResult(response, null).getResults(), decodeExecutor);
+        }
+        if (nearCache == null) {
+            MultiGetRequest request = buildMultiGetRequest(ids);
+            return this.<MultiGetResponse>listen(listener -> getClient().mgetAsync(request, getOptions(), listener))
+                    .thenApplyAsync(this::decodeMultiGet, decodeExecutor);
+        }
+        // 与 batchGetByIdMap 一致，只读取缓存未命中的id，结果按 ids 顺序
+        Map<String, BytesReference> sources = new LinkedHashMap<>();
+        Map<String, Long> stamps = new HashMap<>();
+        for (String id : ids) {
+            String key = cacheKey(id, null);
+            BytesReference cached = nearCache.get(key);
+            if (cached == null) {
+                stamps.put(id, nearCache.stamp(key));
+            }
+            sources.put(id, cached);
+        }
+        CompletableFuture<MultiGetResponse> misses = stamps.isEmpty() ? CompletableFuture.completedFuture(null)
+                : this.<MultiGetResponse>listen(listener -> getClient().mgetAsync(buildMultiGetRequest(stamps.keySet()), getOptions(), listener));
+        return misses.thenApplyAsync(response -> {
+            if (response != null) {
+                for (MultiGetItemResponse item : response.getResponses()) {
+                    if (item.isFailed()) {
+                        log.error("elasticsearch multi get error, id: {}, {}", item.getId(), item.getFailure().getMessage());
+                    } else if (item.getResponse().isExists()) {
+                        BytesReference source = item.getResponse().getSourceAsBytesRef();
+                        sources.put(item.getId(), source);
+                        nearCache.put(cacheKey(item.getId(), null), source, stamps.get(item.getId()));
+                    }
+                }
+            }
+            List<T> result = new ArrayList<>();
+            for (BytesReference source : sources.values()) {
+                T object = source != null ? decodeSource(source) : null;
+                if (object != null) {
+                    result.add(object);
+                }
+            }
+            return result;
+        }, decodeExecutor);
+    }
+
+    public CompletableFuture<DeleteResponse> deleteAsync(T genericInstance) {
+        DeleteRequest request = buildDeleteRequest(genericInstance);
+        return this.<DeleteResponse>listen(listener -> getClient().deleteAsync(request, writeOptions(), listener))
+                .whenComplete((response, e) -> invalidateCache(request))
+                .thenApplyAsync(Function.identity(), decodeExecutor);
+    }
+
+    /**
+     * 把客户端的 listener 回调转为 CompletableFuture，回调在HTTP I/O线程上完成，后续处理需切换到 {@link #decodeExecutor}
+     */
+    protected <R> CompletableFuture<R> listen(Consumer<ActionListener<R>> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            call.accept(ActionListener.wrap(future::complete, future::completeExceptionally));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
 
 }
@@ -1,6 +1,7 @@
 package com.github.orm.elasticsearch.core.base;
 
 import lombok.Data;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 
 /**
  * @ClassName ESBaseEntity
@@ -16,4 +17,13 @@ public class ESBaseEntity<T> {
     private String indexId;
     private String hitIndex;
     private T data;
+    /**
+     * 读取时文档的 _seq_no/_primary_term，用于 {@link BaseElasticsearchDao#saveIfMatch(ESBaseEntity)} 条件写入
+     */
+    private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+    private long primaryTerm = SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
+
+    public boolean hasSeqNo() {
+        return seqNo != SequenceNumbers.UNASSIGNED_SEQ_NO && primaryTerm != SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
+    }
 }
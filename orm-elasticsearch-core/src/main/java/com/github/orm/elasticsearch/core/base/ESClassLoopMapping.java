@@ -1,5 +1,5 @@
 package com.github.orm.elasticsearch.core.base;
-import com.github.orm.elasticsearch.core.annotation.ESId;
+import com.github.orm.elasticsearch.core.annotation.ESRouting;
 import com.github.orm.elasticsearch.core.enums.ESFieldType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -55,6 +55,11 @@ public class ESClassLoopMapping {
     private void startObject(Node node) throws IOException {
         if (0 == node.getNodeType()) {
             builder.startObject();
+            if (routingRequired(node.getClazz())) {
+                builder.startObject("_routing");
+                builder.field("required", true);
+                builder.endObject();
+            }
         } else {
             builder.startObject(node.getName());
             builder.field("type", node.getData().getFieldType().typeName);
@@ -63,10 +68,7 @@ public class ESClassLoopMapping {
         Class last = node.getClazz();
         Field[] fields = last.getDeclaredFields();
         for (Field field : fields) {
-            ESId esId = field.getAnnotation(ESId.class);
-            if (esId != null) {
-                continue;
-            }
+            // @ESId 字段同样写入mapping(String 为 keyword)，可作为 search_after 的排序字段直接读取 doc values
             ReflectionUtils.ESFieldData data = ReflectionUtils.getESFieldData(field);
             if (data.getFieldType() == null) {
                 continue;
@@ -79,6 +81,18 @@ public class ESClassLoopMapping {
         }
     }
 
+    private boolean routingRequired(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null && !c.equals(Object.class); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                ESRouting routing = field.getAnnotation(ESRouting.class);
+                if (routing != null) {
+                    return routing.required();
+                }
+            }
+        }
+        return false;
+    }
+
     private void endObject() throws IOException {
         builder.endObject();
         builder.endObject();
@@ -0,0 +1,128 @@
+package com.github.orm.elasticsearch.core.base;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @ClassName ESMultiSearch
+ * @Description 把多个DAO的查询合并为一次 msearch 请求，各查询按所属DAO解码为各自的 {@link ESPageResult}，
+ * 单个查询失败不影响其他查询
+ * @Author liyongbing
+ * @Date 2026/10/18 22:15
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESMultiSearch {
+
+    private final RestHighLevelClient client;
+    private final RequestOptions options;
+    private final List<Entry<?>> entries = new ArrayList<>();
+    private int maxConcurrentSearchRequests;
+
+    public ESMultiSearch(RestHighLevelClient client) {
+        this(client, RequestOptions.DEFAULT);
+    }
+
+    public ESMultiSearch(RestHighLevelClient client, RequestOptions options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    /**
+     * 服务端同时执行的子查询数，默认由集群决定
+     */
+    public ESMultiSearch setMaxConcurrentSearchRequests(int maxConcurrentSearchRequests) {
+        this.maxConcurrentSearchRequests = maxConcurrentSearchRequests;
+        return this;
+    }
+
+    public <T> ESMultiSearchItem<T> add(BaseElasticsearchDao<T> dao, SearchSourceBuilder searchSourceBuilder,
+                                        ESPageRequest esPageRequest, ESSort esSort) {
+        SearchRequest request = dao.buildSearchRequest(searchSourceBuilder, esPageRequest, esSort);
+        return add(request, response -> dao.toPageResult(response, esPageRequest));
+    }
+
+    public <P> ESMultiSearchItem<P> add(BaseElasticsearchDao<?> dao, SearchSourceBuilder searchSourceBuilder,
+                                        ESPageRequest esPageRequest, ESSort esSort, ESProjection<P> projection) {
+        searchSourceBuilder.fetchSource(projection.toFetchSource());
+        SearchRequest request = dao.buildSearchRequest(searchSourceBuilder, esPageRequest, esSort);
+        return add(request, response -> dao.toPageResult(response, esPageRequest, hit -> dao.decodeHit(hit, projection)));
+    }
+
+    public <T> ESMultiSearchItem<ESBaseEntity<T>> addBase(BaseElasticsearchDao<T> dao, SearchSourceBuilder searchSourceBuilder,
+                                                          ESPageRequest esPageRequest, ESSort esSort) {
+        searchSourceBuilder.seqNoAndPrimaryTerm(true);
+        SearchRequest request = dao.buildSearchRequest(searchSourceBuilder, esPageRequest, esSort);
+        return add(request, response -> dao.toBasePageResult(response, esPageRequest));
+    }
+
+    private <T> ESMultiSearchItem<T> add(SearchRequest request, Function<SearchResponse, ESPageResult<T>> decoder) {
+        ESMultiSearchItem<T> item = new ESMultiSearchItem<>();
+        entries.add(new Entry<>(request, decoder, item));
+        return item;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 发送一次 msearch 并解码全部结果，请求整体失败时抛出异常，单个查询失败记录在对应的 {@link ESMultiSearchItem} 中
+     */
+    public void execute() {
+        Assert.state(!entries.isEmpty(), "no search added");
+        MultiSearchRequest request = new MultiSearchRequest();
+        if (maxConcurrentSearchRequests > 0) {
+            request.maxConcurrentSearchRequests(maxConcurrentSearchRequests);
+        }
+        entries.forEach(entry -> request.add(entry.request));
+        MultiSearchResponse response;
+        try {
+            response = client.msearch(request, options);
+        } catch (IOException e) {
+            throw new ElasticsearchException("msearch 查询失败", e);
+        }
+        MultiSearchResponse.Item[] responses = response.getResponses();
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).accept(responses[i]);
+        }
+    }
+
+    private static class Entry<T> {
+        private final SearchRequest request;
+        private final Function<SearchResponse, ESPageResult<T>> decoder;
+        private final ESMultiSearchItem<T> item;
+
+        private Entry(SearchRequest request, Function<SearchResponse, ESPageResult<T>> decoder, ESMultiSearchItem<T> item) {
+            this.request = request;
+            this.decoder = decoder;
+            this.item = item;
+        }
+
+        private void accept(MultiSearchResponse.Item response) {
+            if (response.isFailure()) {
+                log.error("elasticsearch multi search item error, indices: {}", String.join(",", request.indices()), response.getFailure());
+                item.fail(response.getFailure());
+                return;
+            }
+            try {
+                item.complete(decoder.apply(response.getResponse()));
+            } catch (RuntimeException e) {
+                item.fail(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.orm.elasticsearch.core.base;
+
+import org.elasticsearch.ElasticsearchException;
+
+/**
+ * @ClassName ESMultiSearchItem
+ * @Description msearch 中单个查询的结果，各查询独立成功或失败
+ * @Author liyongbing
+ * @Date 2026/10/18 22:10
+ * @Version 1.0
+ **/
+public class ESMultiSearchItem<T> {
+
+    private ESPageResult<T> result;
+    private Exception failure;
+    private boolean done;
+
+    void complete(ESPageResult<T> result) {
+        this.result = result;
+        this.done = true;
+    }
+
+    void fail(Exception failure) {
+        this.failure = failure;
+        this.done = true;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * @throws IllegalStateException  msearch 尚未执行
+     * @throws ElasticsearchException 该查询失败，cause 为服务端返回的错误或解码时的异常
+     */
+    public ESPageResult<T> getResult() {
+        if (!done) {
+            throw new IllegalStateException("multi search is not executed yet");
+        }
+        if (failure != null) {
+            throw new ElasticsearchException("查询失败", failure);
+        }
+        return result;
+    }
+
+    /**
+     * 失败时返回 null
+     */
+    public ESPageResult<T> getResultOrNull() {
+        return failure == null ? result : null;
+    }
+}
@@ -1,8 +1,20 @@
 package com.github.orm.elasticsearch.core.base;
 
 
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.*;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
 /**
  * 分页
+ * <p>
+ * 普通分页使用 from/size，深度分页使用 {@link #cursor(String, int)} 游标模式，由DAO通过 search_after 翻页，
+ * 每页耗时与页码无关，也不受 index.max_result_window 限制
  *
  * @author liyongbing
  * @date 2020/07/23
@@ -11,12 +23,28 @@ public class ESPageRequest {
 
     private final int pageNo;
     private final int size;
+    /**
+     * 游标模式
+     */
+    private final boolean cursor;
+    /**
+     * 上一页最后一条数据的排序值，游标模式首页为 null
+     */
+    private final Object[] searchAfter;
+    /**
+     * 总数统计精度：null 为集群默认(精确到10000)，0 不统计，{@link Integer#MAX_VALUE} 精确统计，其他值表示精确到该值
+     */
+    private final Integer trackTotalHits;
 
     public ESPageRequest(Long pageNo, Long size) {
         this(pageNo.intValue(),size.intValue());
     }
 
     public ESPageRequest(int pageNo, int size) {
+        this(pageNo, size, false, null, null);
+    }
+
+    private ESPageRequest(int pageNo, int size, boolean cursor, Object[] searchAfter, Integer trackTotalHits) {
 
         if (pageNo < 1) {
             throw new IllegalArgumentException("Page index must not be less than zero!");
@@ -28,6 +56,86 @@ public class ESPageRequest {
 
         this.pageNo = pageNo;
         this.size = size;
+        this.cursor = cursor;
+        this.searchAfter = searchAfter;
+        this.trackTotalHits = trackTotalHits;
+    }
+
+    /**
+     * 游标分页首页
+     *
+     * @param size 每页条数
+     */
+    public static ESPageRequest cursor(int size) {
+        return cursor(null, size);
+    }
+
+    /**
+     * 游标分页
+     *
+     * @param token 上一页结果中的 {@link ESPageResult#getNextCursor()}，为空时表示首页
+     * @param size  每页条数
+     */
+    public static ESPageRequest cursor(String token, int size) {
+        if (!StringUtils.hasText(token)) {
+            return new ESPageRequest(1, size, true, null, null);
+        }
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, Base64.getUrlDecoder().decode(token))) {
+            parser.nextToken();
+            List<Object> values = parser.list();
+            int pageNo = ((Number) values.get(0)).intValue();
+            return new ESPageRequest(pageNo, size, true, values.subList(1, values.size()).toArray(), null);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Illegal cursor token: " + token, e);
+        }
+    }
+
+    /**
+     * 总数最多精确统计到 upTo，超过时 {@link ESPageResult#getTotal()} 为下限值
+     *
+     * @param upTo 0 表示不统计总数，结果中 total 为 -1
+     */
+    public ESPageRequest trackTotalHitsUpTo(int upTo) {
+        if (upTo < 0) {
+            throw new IllegalArgumentException("trackTotalHits must not be less than zero!");
+        }
+        return new ESPageRequest(pageNo, size, cursor, searchAfter, upTo);
+    }
+
+    /**
+     * 精确统计总数，匹配文档很多时开销较大
+     */
+    public ESPageRequest exactTotal() {
+        return trackTotalHitsUpTo(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 不统计总数，适合只需要数据的翻页(如游标分页)，可提前结束匹配
+     */
+    public ESPageRequest withoutTotal() {
+        return trackTotalHitsUpTo(0);
+    }
+
+    /**
+     * 根据本页最后一条数据的排序值生成下一页游标
+     *
+     * @param sortValues 最后一条数据的 sort 值
+     * @return 不透明的游标字符串
+     */
+    public String nextCursor(Object[] sortValues) {
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.startArray();
+            builder.value(pageNo + 1);
+            for (Object value : sortValues) {
+                builder.value(value);
+            }
+            builder.endArray();
+            byte[] bytes = BytesReference.toBytes(BytesReference.bytes(builder));
+            return new String(Base64.getUrlEncoder().withoutPadding().encode(bytes), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public int getPageNo() {
@@ -37,5 +145,16 @@ public class ESPageRequest {
     public int getSize() {
         return size;
     }
-}
 
+    public boolean isCursor() {
+        return cursor;
+    }
+
+    public Object[] getSearchAfter() {
+        return searchAfter;
+    }
+
+    public Integer getTrackTotalHits() {
+        return trackTotalHits;
+    }
+}
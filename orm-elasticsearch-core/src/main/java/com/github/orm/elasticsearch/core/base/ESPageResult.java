@@ -1,5 +1,6 @@
 package com.github.orm.elasticsearch.core.base;
 
+import com.github.orm.elasticsearch.core.aggregation.ESAggregations;
 import lombok.Data;
 
 import java.util.List;
@@ -16,6 +17,18 @@ public class ESPageResult<T> {
     private final int pageNo;
     private final int pageSize;
     private List<T> results;
+    /**
+     * 游标分页时下一页的游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+    /**
+     * total 为下限值，实际匹配数大于等于 total；未统计总数时 total 为 -1
+     */
+    private boolean totalLowerBound;
+    /**
+     * 查询中的聚合结果，没有聚合时为 {@link ESAggregations#EMPTY}
+     */
+    private ESAggregations aggregations = ESAggregations.EMPTY;
 
     public ESPageResult(long total, int pageNo, int pageSize, List<T> results) {
         this.total = total;
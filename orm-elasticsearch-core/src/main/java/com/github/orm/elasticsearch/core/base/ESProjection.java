@@ -0,0 +1,73 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import com.github.orm.elasticsearch.core.codec.ESPropertyCodec;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+
+/**
+ * @ClassName ESProjection
+ * @Description 字段投影：转换为 _source 的 includes/excludes，只传输并解码需要的字段。
+ * 以DTO类投影时取DTO的属性名作为 includes，按DTO解码；以字段列表投影时解码为实体，未包含的字段为空
+ * @Author liyongbing
+ * @Date 2026/10/18 21:50
+ * @Version 1.0
+ **/
+public class ESProjection<P> {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final ESEntityCodec<P> codec;
+    private final String[] includes;
+    private final String[] excludes;
+
+    private ESProjection(ESEntityCodec<P> codec, String[] includes, String[] excludes) {
+        this.codec = codec;
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * 按DTO类投影，DTO属性名需与实体属性名一致，嵌套属性整体返回
+     */
+    public static <P> ESProjection<P> of(Class<P> type) {
+        ESEntityCodec<P> codec = ESEntityCodec.of(type);
+        String[] includes = codec.getProperties().stream().map(ESPropertyCodec::getName).toArray(String[]::new);
+        return new ESProjection<>(codec, includes, EMPTY);
+    }
+
+    /**
+     * 按字段列表投影，支持 a.b 及通配符
+     */
+    public static <P> ESProjection<P> of(ESEntityCodec<P> codec, String... fields) {
+        Assert.notEmpty(fields, "fields must not be empty!");
+        return new ESProjection<>(codec, fields.clone(), EMPTY);
+    }
+
+    /**
+     * 追加排除字段
+     */
+    public ESProjection<P> exclude(String... fields) {
+        String[] merged = Arrays.copyOf(excludes, excludes.length + fields.length);
+        System.arraycopy(fields, 0, merged, excludes.length, fields.length);
+        return new ESProjection<>(codec, includes, merged);
+    }
+
+    public ESEntityCodec<P> getCodec() {
+        return codec;
+    }
+
+    public String[] getIncludes() {
+        return includes.clone();
+    }
+
+    public String[] getExcludes() {
+        return excludes.clone();
+    }
+
+    public FetchSourceContext toFetchSource() {
+        return new FetchSourceContext(true, includes, excludes);
+    }
+}
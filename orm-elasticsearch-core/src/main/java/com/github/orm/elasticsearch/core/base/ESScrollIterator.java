@@ -0,0 +1,177 @@
+package com.github.orm.elasticsearch.core.base;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * @ClassName ESScrollIterator
+ * @Description 基于scroll遍历整个查询结果，消费当前批次时预取下一批次，内存中最多保留两批数据，关闭时一次性清理收到过的全部scroll id
+ * @Author liyongbing
+ * @Date 2026/10/18 18:20
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESScrollIterator<T> implements Iterator<T>, Closeable {
+
+    private final RestHighLevelClient client;
+    private final RequestOptions options;
+    private final SearchRequest request;
+    private final TimeValue keepAlive;
+    private final Function<SearchHit, T> decoder;
+
+    private SearchHit[] hits;
+    private int position;
+    private String scrollId;
+    /**
+     * 收到过的scroll id，服务端可能在翻页时返回新的id，关闭时统一清理且每个只清理一次
+     */
+    private final Set<String> scrollIds = new LinkedHashSet<>();
+    private CompletableFuture<SearchResponse> prefetch;
+    private boolean started;
+    private boolean exhausted;
+    private boolean closed;
+
+    public ESScrollIterator(RestHighLevelClient client, RequestOptions options, SearchRequest request,
+                            TimeValue keepAlive, Function<SearchHit, T> decoder) {
+        this.client = client;
+        this.options = options;
+        this.request = request.scroll(keepAlive);
+        this.keepAlive = keepAlive;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hits != null && position < hits.length) {
+            return true;
+        }
+        if (exhausted || closed) {
+            return false;
+        }
+        SearchResponse response = started ? awaitPrefetch() : firstPage();
+        accept(response);
+        if (hits.length == 0) {
+            exhausted = true;
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchHit hit = hits[position];
+        // 释放已消费的数据，保证内存中只有当前及预取批次
+        hits[position++] = null;
+        return decoder.apply(hit);
+    }
+
+    private SearchResponse firstPage() {
+        started = true;
+        try {
+            return client.search(request, options);
+        } catch (IOException e) {
+            throw new ElasticsearchException("scroll 查询失败", e);
+        }
+    }
+
+    private SearchResponse awaitPrefetch() {
+        try {
+            return prefetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new ElasticsearchException("scroll 查询被中断", e);
+        } catch (ExecutionException e) {
+            close();
+            throw new ElasticsearchException("scroll 查询失败", e.getCause());
+        } finally {
+            prefetch = null;
+        }
+    }
+
+    private void accept(SearchResponse response) {
+        this.scrollId = response.getScrollId();
+        if (scrollId != null) {
+            scrollIds.add(scrollId);
+        }
+        this.hits = response.getHits().getHits();
+        this.position = 0;
+        if (hits.length > 0 && scrollId != null) {
+            prefetch = scrollAsync(scrollId);
+        }
+    }
+
+    private CompletableFuture<SearchResponse> scrollAsync(String id) {
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        SearchScrollRequest scrollRequest = new SearchScrollRequest(id).scroll(keepAlive);
+        client.scrollAsync(scrollRequest, options, ActionListener.wrap(future::complete, future::completeExceptionally));
+        return future;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hits = null;
+        if (prefetch != null) {
+            // 预取中的请求返回后再清理，避免遗留新的scroll上下文
+            prefetch.whenComplete((response, e) -> {
+                if (response != null && response.getScrollId() != null) {
+                    scrollIds.add(response.getScrollId());
+                }
+                clearScroll();
+            });
+            prefetch = null;
+        } else {
+            clearScroll();
+        }
+    }
+
+    private void clearScroll() {
+        if (scrollIds.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(scrollIds);
+        scrollIds.clear();
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.setScrollIds(ids);
+        client.clearScrollAsync(clearScrollRequest, options, new ActionListener<ClearScrollResponse>() {
+            @Override
+            public void onResponse(ClearScrollResponse response) {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                log.warn("elasticsearch clear scroll error", e);
+            }
+        });
+    }
+}
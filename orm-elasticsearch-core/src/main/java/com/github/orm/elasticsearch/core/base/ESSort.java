@@ -32,6 +32,11 @@ public class ESSort {
     //Any string that does not start with _. If the cluster state and selected shards do not change, searches using the same <custom-string> value are routed to the same shards in the same order.
     @Getter
     private String preference;
+    /**
+     * 自定义路由，只查询路由值对应的分片
+     */
+    @Getter
+    private String[] routing;
 
     public ESSort() {
         orders = new ArrayList<>();
@@ -47,6 +52,11 @@ public class ESSort {
         return this;
     }
 
+    public ESSort setRouting(String... routing) {
+        this.routing = routing;
+        return this;
+    }
+
     /**
      * 追加排序字段
      *
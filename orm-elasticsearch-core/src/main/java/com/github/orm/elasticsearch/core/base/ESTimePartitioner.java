@@ -0,0 +1,115 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.alibaba.fastjson.util.TypeUtils;
+import com.github.orm.elasticsearch.core.annotation.ESTimePartition;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import com.github.orm.elasticsearch.core.codec.ESPropertyCodec;
+import com.github.orm.elasticsearch.core.enums.ESPartitionUnit;
+import org.elasticsearch.ElasticsearchException;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @ClassName ESTimePartitioner
+ * @Description 按 {@link ESTimePartition} 计算文档所属分区及时间范围覆盖的分区
+ * @Author liyongbing
+ * @Date 2026/10/18 20:15
+ * @Version 1.0
+ **/
+public class ESTimePartitioner {
+
+    /**
+     * 范围覆盖的分区数超过该值时改用通配符，避免请求行过长
+     */
+    private static final int MAX_EXPLICIT_PARTITIONS = 400;
+
+    private final String indexName;
+    private final ESPartitionUnit unit;
+    private final ZoneId zone;
+    private final DateTimeFormatter formatter;
+    private final ESPropertyCodec property;
+
+    public ESTimePartitioner(String indexName, ESTimePartition partition, ESEntityCodec<?> codec) {
+        this.indexName = indexName;
+        this.unit = partition.unit();
+        this.zone = StringUtils.hasText(partition.zone()) ? ZoneId.of(partition.zone()) : ZoneId.systemDefault();
+        this.formatter = DateTimeFormatter.ofPattern(unit.pattern);
+        this.property = codec.getProperty(partition.field());
+        Assert.notNull(property, "time partition field [" + partition.field() + "] not found in " + codec.getType().getName());
+    }
+
+    /**
+     * 匹配全部分区的通配符
+     */
+    public String getPattern() {
+        return indexName + "-*";
+    }
+
+    /**
+     * 文档所属分区
+     */
+    public String partitionOf(Object instance) {
+        LocalDate date = toLocalDate(property.get(instance));
+        if (date == null) {
+            throw new ElasticsearchException("分区字段 {" + property.getName() + "} 为空，无法确定索引");
+        }
+        return partitionOf(date);
+    }
+
+    public String partitionOf(Date time) {
+        return partitionOf(time.toInstant().atZone(zone).toLocalDate());
+    }
+
+    private String partitionOf(LocalDate date) {
+        return indexName + "-" + formatter.format(unit.floor(date));
+    }
+
+    /**
+     * 与 [from, to] 有交集的分区，任一端为空时返回全部分区的通配符，结果不会为空数组
+     *
+     * @throws IllegalArgumentException from 晚于 to。空的索引列表会被当作查询全部索引
+     */
+    public String[] partitions(Date from, Date to) {
+        if (from == null || to == null) {
+            return new String[]{getPattern()};
+        }
+        Assert.isTrue(!from.after(to), "time range [" + from + ", " + to + "] is inverted");
+        LocalDate start = unit.floor(from.toInstant().atZone(zone).toLocalDate());
+        LocalDate end = to.toInstant().atZone(zone).toLocalDate();
+        List<String> partitions = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = unit.next(date)) {
+            if (partitions.size() >= MAX_EXPLICIT_PARTITIONS) {
+                return new String[]{getPattern()};
+            }
+            partitions.add(partitionOf(date));
+        }
+        return partitions.toArray(new String[0]);
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof Date) {
+            return ((Date) value).toInstant().atZone(zone).toLocalDate();
+        } else if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue()).atZone(zone).toLocalDate();
+        } else if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).atZone(zone).toLocalDate();
+        } else if (value instanceof TemporalAccessor) {
+            return ZonedDateTime.from((TemporalAccessor) value).withZoneSameInstant(zone).toLocalDate();
+        }
+        Date date = TypeUtils.castToDate(value);
+        return date != null ? date.toInstant().atZone(zone).toLocalDate() : null;
+    }
+}
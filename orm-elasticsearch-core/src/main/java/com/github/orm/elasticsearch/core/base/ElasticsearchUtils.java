@@ -1,11 +1,23 @@
 package com.github.orm.elasticsearch.core.base;
 
 import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.client.ESHedgedReads;
+import com.github.orm.elasticsearch.core.client.ESLatencyTracker;
+import com.github.orm.elasticsearch.core.client.ESRequestOptions;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import com.github.orm.elasticsearch.core.codec.ESSourceBuffer;
 import com.github.orm.elasticsearch.core.setting.ESClassSetting;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.HttpAsyncResponseConsumerFactory;
@@ -13,18 +25,44 @@ import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.CreateIndexResponse;
+import org.elasticsearch.client.indices.GetFieldMappingsRequest;
+import org.elasticsearch.client.indices.GetFieldMappingsResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.sniff.Sniffer;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author liyongbing
  * @date 2020/07/23
  */
 @Slf4j
-public class ElasticsearchUtils {
+public class ElasticsearchUtils implements Closeable {
     private RestHighLevelClient client;
+    /**
+     * 批量写入使用的客户端，未设置时与 client 相同
+     */
+    private RestHighLevelClient bulkClient;
+    private ESRequestOptions requestOptions = ESRequestOptions.DEFAULT;
+    private final List<Sniffer> sniffers = new CopyOnWriteArrayList<>();
+    private ESLatencyTracker latencyTracker;
+    /**
+     * 不为 null 时DAO的查询及读取使用对冲请求
+     */
+    private ESHedgedReads hedgedReads;
 
     public static final RequestOptions COMMON_OPTIONS;
 
@@ -42,18 +80,103 @@ public class ElasticsearchUtils {
         this.client = client;
     }
 
+    public RestHighLevelClient getBulkClient() {
+        return bulkClient != null ? bulkClient : client;
+    }
+
+    public void setBulkClient(RestHighLevelClient bulkClient) {
+        this.bulkClient = bulkClient;
+    }
+
+    public ESRequestOptions getRequestOptions() {
+        return requestOptions;
+    }
+
+    public void setRequestOptions(ESRequestOptions requestOptions) {
+        this.requestOptions = requestOptions;
+    }
+
+    /**
+     * 随 {@link #close()} 关闭的节点嗅探器
+     */
+    public void addSniffer(Sniffer sniffer) {
+        sniffers.add(sniffer);
+    }
+
+    public ESLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    public void setLatencyTracker(ESLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    public ESHedgedReads getHedgedReads() {
+        return hedgedReads;
+    }
+
+    public void setHedgedReads(ESHedgedReads hedgedReads) {
+        this.hedgedReads = hedgedReads;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 嗅探器须先于客户端关闭
+        sniffers.forEach(Sniffer::close);
+        sniffers.clear();
+        if (hedgedReads != null) {
+            hedgedReads.close();
+        }
+        if (bulkClient != null && bulkClient != client) {
+            bulkClient.close();
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+
     public boolean existIndex(String indexName) {
         boolean exists = false;
         try {
             GetIndexRequest request = new GetIndexRequest(indexName);
-            exists = client.indices().exists(request, RequestOptions.DEFAULT);
+            exists = client.indices().exists(request, requestOptions.getAdmin());
         } catch (Exception e) {
             throw new ElasticsearchException("判断索引 {" + indexName + "} 是否存在失败", e);
         }
         return exists;
     }
 
+    /**
+     * 字段在匹配索引中的mapping类型，key为索引名，未映射该字段的索引对应的值为 null
+     *
+     * @param indexPattern 索引名或通配符
+     * @param field        顶层字段名
+     */
+    public Map<String, String> getFieldTypes(String indexPattern, String field) {
+        try {
+            GetFieldMappingsRequest request = new GetFieldMappingsRequest().indices(indexPattern).fields(field)
+                    .indicesOptions(IndicesOptions.lenientExpandOpen());
+            GetFieldMappingsResponse response = client.indices().getFieldMapping(request, requestOptions.getAdmin());
+            Map<String, String> types = new HashMap<>();
+            response.mappings().forEach((index, fields) -> {
+                GetFieldMappingsResponse.FieldMappingMetaData data = fields.get(field);
+                Object mapping = data != null ? data.sourceAsMap().get(field) : null;
+                types.put(index, mapping instanceof Map ? (String) ((Map<?, ?>) mapping).get("type") : null);
+            });
+            return types;
+        } catch (IOException e) {
+            throw new ElasticsearchException("获取索引 {" + indexPattern + "} 字段 {" + field + "} 的mapping失败", e);
+        }
+    }
+
     public void createIndexRequest(String indexName, Class clazz, ESClassSetting setting) {
+        createIndexRequest(indexName, clazz, setting, new Alias[0]);
+    }
+
+    /**
+     * 创建索引并同时挂载别名
+     */
+    public void createIndexRequest(String indexName, Class clazz, ESClassSetting setting, Alias... aliases) {
         if (existIndex(indexName)) {
             log.info("index exist:[{}]", indexName);
             return;
@@ -62,7 +185,10 @@ public class ElasticsearchUtils {
             CreateIndexRequest request = new CreateIndexRequest(indexName);
             request.settings(setting.setDocType(clazz).setting().getBuilder());
             request.mapping(new ESClassLoopMapping(clazz).mapping().getBuilder());
-            CreateIndexResponse createIndexResponse = client.indices().create(request, RequestOptions.DEFAULT);
+            if (aliases.length > 0) {
+                request.aliases(Arrays.asList(aliases));
+            }
+            CreateIndexResponse createIndexResponse = client.indices().create(request, requestOptions.getAdmin());
             log.info(" acknowledged : {}", createIndexResponse.isAcknowledged());
             log.info(" shardsAcknowledged :{}", createIndexResponse.isShardsAcknowledged());
         } catch (Exception e) {
@@ -71,32 +197,126 @@ public class ElasticsearchUtils {
     }
 
 
+    /**
+     * 以预先生成的settings及mapping创建索引，并发创建时已存在视为成功
+     */
+    public void createIndexRequest(String indexName, String settings, BytesReference mapping) {
+        try {
+            CreateIndexRequest request = new CreateIndexRequest(indexName);
+            request.settings(settings, XContentType.JSON);
+            request.mapping(mapping, XContentType.JSON);
+            client.indices().create(request, requestOptions.getAdmin());
+            log.info("index created:[{}]", indexName);
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() != RestStatus.BAD_REQUEST || !String.valueOf(e.getMessage()).contains("resource_already_exists_exception")) {
+                throw new ElasticsearchException("创建索引 {" + indexName + "} 失败", e);
+            }
+        } catch (IOException e) {
+            throw new ElasticsearchException("创建索引 {" + indexName + "} 失败", e);
+        }
+    }
+
+    /**
+     * 获取匹配通配符的全部实际索引
+     */
+    public String[] getIndices(String pattern) {
+        try {
+            GetIndexRequest request = new GetIndexRequest(pattern).indicesOptions(IndicesOptions.lenientExpandOpen());
+            return client.indices().get(request, requestOptions.getAdmin()).getIndices();
+        } catch (IOException e) {
+            throw new ElasticsearchException("获取索引 {" + pattern + "} 失败", e);
+        }
+    }
+
+    /**
+     * 获取别名指向的全部实际索引，别名不存在时返回空集合
+     */
+    public Set<String> getAliasIndices(String alias) {
+        try {
+            GetAliasesResponse response = client.indices().getAlias(new GetAliasesRequest(alias), requestOptions.getAdmin());
+            return new TreeSet<>(response.getAliases().keySet());
+        } catch (IOException e) {
+            throw new ElasticsearchException("获取别名 {" + alias + "} 失败", e);
+        }
+    }
+
+    public String getIndexSetting(String index, String name) {
+        try {
+            GetSettingsRequest request = new GetSettingsRequest().indices(index).names(name);
+            return client.indices().getSettings(request, requestOptions.getAdmin()).getSetting(index, name);
+        } catch (IOException e) {
+            throw new ElasticsearchException("获取索引 {" + index + "} 配置 {" + name + "} 失败", e);
+        }
+    }
+
+    public void putIndexSettings(String index, Settings settings) {
+        try {
+            client.indices().putSettings(new UpdateSettingsRequest(index).settings(settings), requestOptions.getAdmin());
+        } catch (IOException e) {
+            throw new ElasticsearchException("更新索引 {" + index + "} 配置失败", e);
+        }
+    }
+
     public void deleteIndexRequest(String index) {
         DeleteIndexRequest deleteIndexRequest = new DeleteIndexRequest(index);
         try {
-            client.indices().delete(deleteIndexRequest, RequestOptions.DEFAULT);
+            client.indices().delete(deleteIndexRequest, requestOptions.getAdmin());
         } catch (IOException e) {
             throw new ElasticsearchException("删除索引 {" + index + "} 失败");
         }
     }
 
     public static IndexRequest buildIndexRequest(String index, String id, Object object) {
-        return new IndexRequest(index).id(id).source(JSON.toJSONString(object), XContentType.JSON);
+        return new IndexRequest(index).id(id).source(toSource(object), XContentType.JSON);
+    }
+
+    /**
+     * 使用预编译编解码构建，避免fastjson反射及中间String
+     */
+    public static <T> IndexRequest buildIndexRequest(String index, String id, T object, ESEntityCodec<T> codec) {
+        return new IndexRequest(index).id(id).source(codec.toBytes(object), XContentType.JSON);
+    }
+
+    /**
+     * fastjson 直接写入线程内复用的UTF-8缓冲，不生成中间String
+     */
+    public static BytesReference toSource(Object object) {
+        ESSourceBuffer buffer = ESSourceBuffer.acquire();
+        try {
+            JSON.writeJSONString(buffer, object);
+            return buffer.toBytesArray();
+        } catch (IOException e) {
+            throw new ElasticsearchException("序列化数据 {" + object + "} 失败", e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 以 _source 字节设置 doc，BytesArray 不会再拷贝
+     */
+    public static UpdateRequest updateDoc(UpdateRequest request, BytesReference source) {
+        BytesRef bytes = source.toBytesRef();
+        return request.doc(bytes.bytes, bytes.offset, bytes.length, XContentType.JSON);
     }
 
     public void updateRequest(String index, String id, Object object) {
         try {
-            UpdateRequest updateRequest = new UpdateRequest(index, id).doc(JSON.toJSONString(object), XContentType.JSON);
-            client.update(updateRequest, COMMON_OPTIONS);
+            UpdateRequest updateRequest = updateDoc(new UpdateRequest(index, id), toSource(object));
+            client.update(updateRequest, requestOptions.getWrite());
         } catch (IOException e) {
             throw new ElasticsearchException("更新索引 {" + index + "} 数据 {" + object + "} 失败");
         }
     }
 
     public void deleteRequest(String index, String id) {
+        deleteRequest(index, id, null);
+    }
+
+    public void deleteRequest(String index, String id, String routing) {
         try {
-            DeleteRequest deleteRequest = new DeleteRequest(index, id);
-            client.delete(deleteRequest, COMMON_OPTIONS);
+            DeleteRequest deleteRequest = new DeleteRequest(index, id).routing(routing);
+            client.delete(deleteRequest, requestOptions.getWrite());
         } catch (IOException e) {
             throw new ElasticsearchException("删除索引 {" + index + "} 数据id {" + id + "} 失败");
         }
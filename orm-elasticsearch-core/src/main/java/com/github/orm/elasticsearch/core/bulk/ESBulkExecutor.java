@@ -0,0 +1,95 @@
+package com.github.orm.elasticsearch.core.bulk;
+
+import com.github.orm.elasticsearch.core.setting.ESBulkRetryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @ClassName ESBulkExecutor
+ * @Description 同步bulk执行，只重发被拒绝的文档
+ * @Author liyongbing
+ * @Date 2026/10/18 14:30
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESBulkExecutor {
+
+    private final RestHighLevelClient client;
+    private final RequestOptions options;
+    private final ESBulkRetryPolicy retryPolicy;
+
+    public ESBulkExecutor(RestHighLevelClient client, RequestOptions options, ESBulkRetryPolicy retryPolicy) {
+        this.client = client;
+        this.options = options;
+        this.retryPolicy = retryPolicy != null ? retryPolicy : ESBulkRetryPolicy.noRetry();
+    }
+
+    public ESBulkResult execute(List<? extends DocWriteRequest<?>> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return ESBulkResult.EMPTY;
+        }
+        ESBulkItemResult[] results = new ESBulkItemResult[requests.size()];
+        // 待发送文档在原始列表中的位置
+        List<Integer> pending = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            pending.add(i);
+        }
+        int attempt = 0;
+        while (!pending.isEmpty()) {
+            attempt++;
+            if (attempt > 1 && !sleep(retryPolicy.backoffMillis(attempt - 1))) {
+                break;
+            }
+            boolean lastAttempt = attempt > retryPolicy.getMaxRetries();
+            BulkRequest bulkRequest = new BulkRequest();
+            pending.forEach(position -> bulkRequest.add(requests.get(position)));
+            List<Integer> retry = new ArrayList<>();
+            try {
+                BulkResponse response = client.bulk(bulkRequest, options);
+                for (BulkItemResponse item : response.getItems()) {
+                    int position = pending.get(item.getItemId());
+                    if (item.isFailed() && !lastAttempt && retryPolicy.isRetryable(item.status())) {
+                        retry.add(position);
+                    } else {
+                        results[position] = ESBulkItemResult.of(position, item, attempt);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("elasticsearch bulk error, actions: {}, attempt: {}", pending.size(), attempt, e);
+                // 只有确定未被执行的失败才整体重发，见 ESBulkRetryPolicy#isRetryable(Exception)
+                if (!lastAttempt && retryPolicy.isRetryable(e)) {
+                    retry.addAll(pending);
+                } else {
+                    for (Integer position : pending) {
+                        results[position] = ESBulkItemResult.failed(position, requests.get(position), e, attempt);
+                    }
+                }
+            }
+            pending = retry;
+        }
+        // 重试等待被中断，剩余文档视为失败
+        for (Integer position : pending) {
+            results[position] = ESBulkItemResult.failed(position, requests.get(position), new InterruptedException("bulk retry interrupted"), attempt - 1);
+        }
+        return new ESBulkResult(Arrays.asList(results), attempt - 1);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
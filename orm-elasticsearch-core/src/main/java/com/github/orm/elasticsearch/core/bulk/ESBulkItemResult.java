@@ -0,0 +1,63 @@
+package com.github.orm.elasticsearch.core.bulk;
+
+import lombok.Data;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * @ClassName ESBulkItemResult
+ * @Description bulk单个文档的最终结果
+ * @Author liyongbing
+ * @Date 2026/10/18 14:12
+ * @Version 1.0
+ **/
+@Data
+public class ESBulkItemResult {
+    /**
+     * 在原始请求列表中的位置
+     */
+    private int position;
+    private String index;
+    private String id;
+    private DocWriteRequest.OpType opType;
+    private RestStatus status;
+    private boolean failed;
+    private String failureMessage;
+    /**
+     * 发送次数，包含首次发送
+     */
+    private int attempts;
+    private long version;
+
+    public static ESBulkItemResult of(int position, BulkItemResponse response, int attempts) {
+        ESBulkItemResult result = new ESBulkItemResult();
+        result.setPosition(position);
+        result.setIndex(response.getIndex());
+        result.setId(response.getId());
+        result.setOpType(response.getOpType());
+        result.setAttempts(attempts);
+        result.setStatus(response.status());
+        if (response.isFailed()) {
+            result.setFailed(true);
+            result.setFailureMessage(response.getFailureMessage());
+        } else {
+            result.setVersion(response.getVersion());
+        }
+        return result;
+    }
+
+    public static ESBulkItemResult failed(int position, DocWriteRequest<?> request, Exception e, int attempts) {
+        ESBulkItemResult result = new ESBulkItemResult();
+        result.setPosition(position);
+        result.setIndex(request.index());
+        result.setId(request.id());
+        result.setOpType(request.opType());
+        result.setAttempts(attempts);
+        result.setStatus(ExceptionsHelper.status(e));
+        result.setFailed(true);
+        result.setFailureMessage(e.toString());
+        return result;
+    }
+}
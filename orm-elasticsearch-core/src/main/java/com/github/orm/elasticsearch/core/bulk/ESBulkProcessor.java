@@ -0,0 +1,318 @@
+package com.github.orm.elasticsearch.core.bulk;
+
+import com.github.orm.elasticsearch.core.setting.ESBulkRetryPolicy;
+import com.github.orm.elasticsearch.core.setting.ESBulkSetting;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @ClassName ESBulkProcessor
+ * @Description 异步批量写入管道，按文档数、字节数、时间间隔刷新，限制在途bulk数并对调用方施加背压，
+ * 被拒绝的文档按 {@link ESBulkRetryPolicy} 单独重发
+ * @Author liyongbing
+ * @Date 2026/10/18 10:20
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESBulkProcessor implements Closeable {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final RestHighLevelClient client;
+    private final RequestOptions options;
+    private final ESBulkSetting setting;
+    private final ESBulkRetryPolicy retryPolicy;
+    /**
+     * 缓冲中及在途的文档数许可
+     */
+    private final Semaphore capacity;
+    /**
+     * 在途bulk请求数许可
+     */
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> flushTask;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Batch current = new Batch();
+    private volatile boolean closed;
+
+    public ESBulkProcessor(RestHighLevelClient client, RequestOptions options, ESBulkSetting setting, String name) {
+        Assert.notNull(client, "client must not be null!");
+        Assert.notNull(setting, "setting must not be null!");
+        Assert.isTrue(setting.getConcurrentRequests() > 0, "concurrentRequests must be greater than zero!");
+        Assert.isTrue(setting.getQueueCapacity() > 0, "queueCapacity must be greater than zero!");
+        this.client = client;
+        this.options = options;
+        this.setting = setting;
+        this.retryPolicy = setting.getRetryPolicy() != null ? setting.getRetryPolicy() : ESBulkRetryPolicy.noRetry();
+        this.capacity = new Semaphore(setting.getQueueCapacity());
+        this.inFlight = new Semaphore(setting.getConcurrentRequests());
+        String threadName = "es-bulk-" + name + "-" + SEQUENCE.incrementAndGet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (setting.getFlushIntervalMillis() > 0) {
+            this.flushTask = scheduler.scheduleWithFixedDelay(this::flush, setting.getFlushIntervalMillis(), setting.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 加入一个写请求，返回的future在该文档对应的bulk item返回时完成
+     *
+     * @param request index/update/delete 请求
+     * @return 文档最终结果，重试用尽或永久失败时 {@link ESBulkItemResult#isFailed()} 为true
+     * @throws RejectedExecutionException 管道已关闭或缓冲已满
+     */
+    public CompletableFuture<ESBulkItemResult> add(DocWriteRequest<?> request) {
+        Assert.notNull(request, "request must not be null!");
+        ensureOpen();
+        acquireCapacity();
+        CompletableFuture<ESBulkItemResult> future = new CompletableFuture<>();
+        Batch ready = null;
+        lock.lock();
+        try {
+            // 关闭标记在锁内设置，此处检查通过即保证关闭前的最后一次 flush 会带上该请求
+            if (closed) {
+                capacity.release();
+                throw new RejectedExecutionException("bulk processor is closed");
+            }
+            future.whenComplete((r, e) -> capacity.release());
+            current.add(request, future, 0);
+            if (current.isFull()) {
+                ready = current;
+                current = new Batch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ready != null) {
+            execute(ready);
+        }
+        return future;
+    }
+
+    /**
+     * 立即发送缓冲中的请求
+     */
+    public void flush() {
+        Batch ready = null;
+        lock.lock();
+        try {
+            if (current.size() > 0) {
+                ready = current;
+                current = new Batch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ready != null) {
+            execute(ready);
+        }
+    }
+
+    /**
+     * 关闭管道，发送剩余请求并等待在途及待重试的请求完成
+     *
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     * @return 是否在超时前全部完成
+     */
+    public boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            if (closed) {
+                return true;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flush();
+        int permits = setting.getQueueCapacity();
+        try {
+            if (capacity.tryAcquire(permits, timeout, unit)) {
+                capacity.release(permits);
+                return true;
+            }
+            return false;
+        } finally {
+            scheduler.shutdown();
+            rejectRemaining();
+        }
+    }
+
+    /**
+     * 关闭后仍留在缓冲中的请求不会再被发送，直接以拒绝失败
+     */
+    private void rejectRemaining() {
+        Batch remaining;
+        lock.lock();
+        try {
+            remaining = current;
+            current = new Batch();
+        } finally {
+            lock.unlock();
+        }
+        if (remaining.size() > 0) {
+            remaining.fail(new RejectedExecutionException("bulk processor is closed"));
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!awaitClose(setting.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("elasticsearch bulk processor closed with requests still in flight");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new RejectedExecutionException("bulk processor is closed");
+        }
+    }
+
+    private void acquireCapacity() {
+        if (!setting.isBlockWhenFull()) {
+            if (!capacity.tryAcquire()) {
+                throw new RejectedExecutionException("bulk processor queue is full, capacity: " + setting.getQueueCapacity());
+            }
+            return;
+        }
+        try {
+            if (!capacity.tryAcquire(setting.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("bulk processor queue is still full after " + setting.getBlockTimeoutMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("interrupted while waiting for bulk processor capacity", e);
+        }
+    }
+
+    private void execute(Batch batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.fail(e);
+            return;
+        }
+        try {
+            client.bulkAsync(batch.request, options, new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    inFlight.release();
+                    Batch retry = batch.complete(response);
+                    if (retry != null) {
+                        scheduleRetry(retry);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    inFlight.release();
+                    log.error("elasticsearch bulk error, actions: {}", batch.size(), e);
+                    if (retryPolicy.isRetryable(e) && batch.attempts < retryPolicy.getMaxRetries()) {
+                        scheduleRetry(batch.retryAll());
+                    } else {
+                        batch.fail(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            batch.fail(e);
+        }
+    }
+
+    private void scheduleRetry(Batch retry) {
+        long delay = retryPolicy.backoffMillis(retry.attempts);
+        try {
+            scheduler.schedule(() -> execute(retry), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            retry.fail(e);
+        }
+    }
+
+    private class Batch {
+        private final BulkRequest request = new BulkRequest();
+        private final List<DocWriteRequest<?>> requests = new ArrayList<>();
+        private final List<CompletableFuture<ESBulkItemResult>> futures = new ArrayList<>();
+        /**
+         * 本批次已重试次数
+         */
+        private int attempts;
+
+        void add(DocWriteRequest<?> docWriteRequest, CompletableFuture<ESBulkItemResult> future, int attempts) {
+            request.add(docWriteRequest);
+            requests.add(docWriteRequest);
+            futures.add(future);
+            this.attempts = attempts;
+        }
+
+        int size() {
+            return futures.size();
+        }
+
+        boolean isFull() {
+            return request.numberOfActions() >= setting.getBulkActions()
+                    || request.estimatedSizeInBytes() >= setting.getBulkSizeInBytes();
+        }
+
+        /**
+         * 完成成功及永久失败的文档，返回需要重发的批次
+         */
+        Batch complete(BulkResponse response) {
+            Batch retry = null;
+            for (BulkItemResponse item : response.getItems()) {
+                int position = item.getItemId();
+                if (item.isFailed() && attempts < retryPolicy.getMaxRetries() && retryPolicy.isRetryable(item.status())) {
+                    if (retry == null) {
+                        retry = new Batch();
+                    }
+                    retry.add(requests.get(position), futures.get(position), attempts + 1);
+                } else {
+                    futures.get(position).complete(ESBulkItemResult.of(position, item, attempts + 1));
+                }
+            }
+            return retry;
+        }
+
+        Batch retryAll() {
+            Batch retry = new Batch();
+            for (int i = 0; i < requests.size(); i++) {
+                retry.add(requests.get(i), futures.get(i), attempts + 1);
+            }
+            return retry;
+        }
+
+        void fail(Exception e) {
+            for (int i = 0; i < requests.size(); i++) {
+                futures.get(i).complete(ESBulkItemResult.failed(i, requests.get(i), e, attempts + 1));
+            }
+        }
+    }
+}
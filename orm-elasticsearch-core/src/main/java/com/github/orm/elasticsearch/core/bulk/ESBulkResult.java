@@ -0,0 +1,57 @@
+package com.github.orm.elasticsearch.core.bulk;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @ClassName ESBulkResult
+ * @Description bulk执行结果，按原始请求顺序给出每个文档的状态
+ * @Author liyongbing
+ * @Date 2026/10/18 14:16
+ * @Version 1.0
+ **/
+public class ESBulkResult {
+
+    public static final ESBulkResult EMPTY = new ESBulkResult(Collections.emptyList(), 0);
+
+    @Getter
+    private final List<ESBulkItemResult> items;
+    /**
+     * 重发的bulk请求次数
+     */
+    @Getter
+    private final int retries;
+
+    public ESBulkResult(List<ESBulkItemResult> items, int retries) {
+        this.items = items;
+        this.retries = retries;
+    }
+
+    public boolean hasFailures() {
+        return items.stream().anyMatch(ESBulkItemResult::isFailed);
+    }
+
+    public List<ESBulkItemResult> getFailures() {
+        return items.stream().filter(ESBulkItemResult::isFailed).collect(Collectors.toList());
+    }
+
+    public long getSuccessCount() {
+        return items.stream().filter(item -> !item.isFailed()).count();
+    }
+
+    public String buildFailureMessage() {
+        StringBuilder sb = new StringBuilder("failure in bulk execution:");
+        for (ESBulkItemResult item : items) {
+            if (item.isFailed()) {
+                sb.append("\n[").append(item.getPosition()).append("]: index [").append(item.getIndex())
+                        .append("], id [").append(item.getId()).append("], status [").append(item.getStatus())
+                        .append("], attempts [").append(item.getAttempts()).append("], message [")
+                        .append(item.getFailureMessage()).append("]");
+            }
+        }
+        return sb.toString();
+    }
+}
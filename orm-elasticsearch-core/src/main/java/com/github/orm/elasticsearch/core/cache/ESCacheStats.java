@@ -0,0 +1,34 @@
+package com.github.orm.elasticsearch.core.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * @ClassName ESCacheStats
+ * @Description 近端缓存统计快照
+ * @Author liyongbing
+ * @Date 2026/10/18 20:45
+ * @Version 1.0
+ **/
+@Data
+@AllArgsConstructor
+public class ESCacheStats {
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * 因容量或过期被淘汰的条数
+     */
+    private long evictionCount;
+
+    private long size;
+
+    private long weightBytes;
+
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0D : (double) hitCount / requests;
+    }
+}
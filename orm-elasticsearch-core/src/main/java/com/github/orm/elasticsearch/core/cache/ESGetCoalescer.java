@@ -0,0 +1,225 @@
+package com.github.orm.elasticsearch.core.cache;
+
+import com.github.orm.elasticsearch.core.setting.ESCoalesceSetting;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * @ClassName ESGetCoalescer
+ * @Description 合并按id读取的请求：相同id的并发读取共用一次请求(single-flight)；
+ * 配置合并窗口时，窗口内的不同id合并为一次mget。各调用方拿到的是同一份 _source 字节，需各自解码。
+ * 写入后须调用 {@link #invalidate(String)}，之后的读取不再复用写入前已发出的请求
+ * @Author liyongbing
+ * @Date 2026/10/18 21:25
+ * @Version 1.0
+ **/
+public class ESGetCoalescer implements Closeable {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final ESCoalesceSetting setting;
+    /**
+     * 批量读取，返回 id -> _source，不存在的id不包含在内
+     */
+    private final Function<List<String>, CompletableFuture<Map<String, BytesReference>>> loader;
+    /**
+     * 创建共享请求时记录的近端缓存版本戳，随结果返回给所有等待的调用方
+     */
+    private final ToLongFunction<String> stamper;
+    private final ConcurrentHashMap<String, CompletableFuture<Fetch>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<Fetch>> pending = new LinkedHashMap<>();
+    private Map<String, Long> pendingStamps = new HashMap<>();
+
+    public ESGetCoalescer(ESCoalesceSetting setting, Function<List<String>, CompletableFuture<Map<String, BytesReference>>> loader, String name) {
+        this(setting, loader, null, name);
+    }
+
+    /**
+     * @param stamper 近端缓存的 {@link ESNearCache#stamp(String)}，未启用近端缓存时为 null
+     */
+    public ESGetCoalescer(ESCoalesceSetting setting, Function<List<String>, CompletableFuture<Map<String, BytesReference>>> loader,
+                          ToLongFunction<String> stamper, String name) {
+        Assert.notNull(setting, "setting must not be null!");
+        Assert.isTrue(setting.getMaxBatchSize() > 0, "maxBatchSize must be greater than zero!");
+        this.setting = setting;
+        this.loader = loader;
+        this.stamper = stamper;
+        if (setting.getBatchWindowMillis() > 0) {
+            String threadName = "es-get-" + name + "-" + SEQUENCE.incrementAndGet();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * @return id 对应的 _source 及创建请求时的版本戳，文档不存在时 source 为 null
+     */
+    public CompletableFuture<Fetch> get(String id) {
+        CompletableFuture<Fetch> future = inFlight.get(id);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Fetch> created = new CompletableFuture<>();
+        future = inFlight.putIfAbsent(id, created);
+        if (future != null) {
+            return future;
+        }
+        created.whenComplete((fetch, e) -> inFlight.remove(id, created));
+        long stamp = stamper != null ? stamper.applyAsLong(id) : 0;
+        if (scheduler == null) {
+            load(singleton(id, created), Collections.singletonMap(id, stamp));
+        } else {
+            enqueue(id, created, stamp);
+        }
+        return created;
+    }
+
+    /**
+     * 文档写入后调用，之后的读取不再复用已发出的请求。尚未发出的请求在写入之后才读取，继续复用
+     */
+    public void invalidate(String id) {
+        CompletableFuture<Fetch> future = inFlight.get(id);
+        if (future != null && !isPending(id, future)) {
+            inFlight.remove(id, future);
+        }
+    }
+
+    public void invalidateAll() {
+        inFlight.forEach((id, future) -> {
+            if (!isPending(id, future)) {
+                inFlight.remove(id, future);
+            }
+        });
+    }
+
+    private boolean isPending(String id, CompletableFuture<Fetch> future) {
+        if (scheduler == null) {
+            return false;
+        }
+        synchronized (lock) {
+            return pending.get(id) == future;
+        }
+    }
+
+    private static Map<String, CompletableFuture<Fetch>> singleton(String id, CompletableFuture<Fetch> future) {
+        Map<String, CompletableFuture<Fetch>> batch = new LinkedHashMap<>(2);
+        batch.put(id, future);
+        return batch;
+    }
+
+    private void enqueue(String id, CompletableFuture<Fetch> future, long stamp) {
+        Map<String, CompletableFuture<Fetch>> ready = null;
+        Map<String, Long> readyStamps = null;
+        synchronized (lock) {
+            CompletableFuture<Fetch> queued = pending.putIfAbsent(id, future);
+            if (queued != null) {
+                // 失效时该id的请求尚未发出，已离开 inFlight，跟随未发出的请求完成
+                queued.whenComplete((fetch, e) -> complete(future, fetch, e));
+                return;
+            }
+            pendingStamps.put(id, stamp);
+            if (pending.size() >= setting.getMaxBatchSize()) {
+                ready = pending;
+                readyStamps = pendingStamps;
+                pending = new LinkedHashMap<>();
+                pendingStamps = new HashMap<>();
+            } else if (pending.size() == 1) {
+                // 窗口内第一个请求负责触发发送
+                scheduler.schedule(this::flush, setting.getBatchWindowMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            load(ready, readyStamps);
+        }
+    }
+
+    private void flush() {
+        Map<String, CompletableFuture<Fetch>> ready;
+        Map<String, Long> readyStamps;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready = pending;
+            readyStamps = pendingStamps;
+            pending = new LinkedHashMap<>();
+            pendingStamps = new HashMap<>();
+        }
+        load(ready, readyStamps);
+    }
+
+    private static void complete(CompletableFuture<Fetch> future, Fetch fetch, Throwable e) {
+        if (e != null) {
+            future.completeExceptionally(e);
+        } else {
+            future.complete(fetch);
+        }
+    }
+
+    private void load(Map<String, CompletableFuture<Fetch>> batch, Map<String, Long> stamps) {
+        CompletableFuture<Map<String, BytesReference>> result;
+        try {
+            result = loader.apply(new ArrayList<>(batch.keySet()));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        result.whenComplete((sources, e) -> batch.forEach((id, future) ->
+                complete(future, e != null ? null : new Fetch(sources.get(id), stamps.get(id)), e)));
+    }
+
+    /**
+     * 一次共享读取的结果
+     */
+    public static final class Fetch {
+        private final BytesReference source;
+        private final long stamp;
+
+        private Fetch(BytesReference source, long stamp) {
+            this.source = source;
+            this.stamp = stamp;
+        }
+
+        /**
+         * @return 文档不存在时为 null
+         */
+        public BytesReference getSource() {
+            return source;
+        }
+
+        /**
+         * 发起请求前取得的近端缓存版本戳，回填时使用
+         */
+        public long getStamp() {
+            return stamp;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            flush();
+        }
+    }
+}
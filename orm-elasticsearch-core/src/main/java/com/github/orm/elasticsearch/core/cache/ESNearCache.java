@@ -0,0 +1,182 @@
+package com.github.orm.elasticsearch.core.cache;
+
+import com.github.orm.elasticsearch.core.setting.ESCacheSetting;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName ESNearCache
+ * @Description 按id缓存文档 _source 字节的本地缓存：分段LRU，按字节数及条数淘汰，写入后TTL过期。
+ * 缓存字节而非实体，每次命中解码出新对象，调用方修改实体不会污染缓存。
+ * 读取前先取 {@link #stamp(String)}，期间若有失效则放弃回填，避免并发写入后回填旧数据
+ * @Author liyongbing
+ * @Date 2026/10/18 20:50
+ * @Version 1.0
+ **/
+public class ESNearCache {
+
+    /**
+     * 每条缓存除 _source 外的估算开销
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ESNearCache(ESCacheSetting setting) {
+        int count = Math.max(1, setting.getSegments());
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, setting.getMaxWeightBytes() / count), Math.max(1, setting.getMaxEntries() / count));
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(setting.getTtlMillis());
+    }
+
+    /**
+     * @return 未命中或已过期时为 null
+     */
+    public BytesReference get(String key) {
+        BytesReference source = segment(key).get(key, System.nanoTime());
+        if (source != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return source;
+    }
+
+    /**
+     * 回填前的版本戳，从集群读取前获取
+     */
+    public long stamp(String key) {
+        return segment(key).stamp();
+    }
+
+    /**
+     * 回填，stamp 之后该分段有过失效时忽略
+     */
+    public void put(String key, BytesReference source, long stamp) {
+        if (source == null || source.length() == 0) {
+            return;
+        }
+        // BytesReference.toBytes 对整段 BytesArray 直接返回底层数组，这里必须深拷贝
+        segment(key).put(key, new BytesArray(source.toBytesRef(), true), stamp, System.nanoTime());
+    }
+
+    public void invalidate(String key) {
+        segment(key).invalidate(key);
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public ESCacheStats stats() {
+        long size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+                weight += segment.weight;
+            }
+        }
+        return new ESCacheStats(hits.sum(), misses.sum(), evictions.sum(), size, weight);
+    }
+
+    private Segment segment(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private static final class Entry {
+        private final BytesReference source;
+        private final long expireAt;
+        private final long weight;
+
+        private Entry(BytesReference source, long expireAt, long weight) {
+            this.source = source;
+            this.expireAt = expireAt;
+            this.weight = weight;
+        }
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxWeight;
+        private final int maxEntries;
+        private long weight;
+        private long generation;
+
+        private Segment(long maxWeight, int maxEntries) {
+            this.maxWeight = maxWeight;
+            this.maxEntries = maxEntries;
+        }
+
+        private synchronized BytesReference get(String key, long now) {
+            Entry entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt - now < 0) {
+                map.remove(key);
+                weight -= entry.weight;
+                evictions.increment();
+                return null;
+            }
+            return entry.source;
+        }
+
+        private synchronized long stamp() {
+            return generation;
+        }
+
+        private synchronized void put(String key, BytesReference source, long stamp, long now) {
+            if (stamp != generation) {
+                return;
+            }
+            long entryWeight = ENTRY_OVERHEAD + 2L * key.length() + source.length();
+            if (entryWeight > maxWeight) {
+                return;
+            }
+            Entry old = map.put(key, new Entry(source, now + ttlNanos, entryWeight));
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += entryWeight;
+            // 按访问顺序从最久未使用的开始淘汰
+            Iterator<Entry> iterator = map.values().iterator();
+            while ((weight > maxWeight || map.size() > maxEntries) && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                weight -= eldest.weight;
+                evictions.increment();
+            }
+        }
+
+        private synchronized void invalidate(String key) {
+            generation++;
+            Entry entry = map.remove(key);
+            if (entry != null) {
+                weight -= entry.weight;
+            }
+        }
+
+        private synchronized void clear() {
+            generation++;
+            map.clear();
+            weight = 0;
+        }
+    }
+}
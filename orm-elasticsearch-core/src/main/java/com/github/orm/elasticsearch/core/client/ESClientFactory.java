@@ -0,0 +1,159 @@
+package com.github.orm.elasticsearch.core.client;
+
+import com.github.orm.elasticsearch.core.base.ElasticsearchUtils;
+import com.github.orm.elasticsearch.core.setting.ESClientSetting;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.elasticsearch.client.HttpAsyncResponseConsumerFactory;
+import org.elasticsearch.client.NodeSelector;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * @ClassName ESClientFactory
+ * @Description 按 {@link ESClientSetting} 创建客户端及各类请求参数，可选节点嗅探、按耗时选择节点及对冲读取。
+ * 当前版本的客户端不支持请求体压缩，compression 只对响应生效
+ * @Author liyongbing
+ * @Date 2026/10/19 00:55
+ * @Version 1.0
+ **/
+public final class ESClientFactory {
+
+    private ESClientFactory() {
+    }
+
+    /**
+     * 创建客户端、可选的批量写入客户端、节点嗅探、按耗时选择节点、对冲读取及请求参数，
+     * 嗅探器等资源随 {@link ElasticsearchUtils#close()} 关闭
+     */
+    public static ElasticsearchUtils create(ESClientSetting setting) {
+        ElasticsearchUtils elasticsearchUtils = new ElasticsearchUtils();
+        ESLatencyTracker tracker = setting.isLatencyAware() || setting.isHedgedReads()
+                ? new ESLatencyTracker(setting.getEwmaAlpha(), setting.getFailurePenaltyMillis(), setting.getProbeIntervalMillis()) : null;
+        elasticsearchUtils.setClient(build(elasticsearchUtils, setting, tracker, setting.getMaxConnTotal(),
+                setting.getMaxConnPerRoute(), setting.getSocketTimeoutMillis()));
+        if (setting.getBulkMaxConnTotal() > 0) {
+            elasticsearchUtils.setBulkClient(build(elasticsearchUtils, setting, tracker, setting.getBulkMaxConnTotal(),
+                    setting.getBulkMaxConnPerRoute(), setting.getBulkSocketTimeoutMillis()));
+        }
+        elasticsearchUtils.setLatencyTracker(tracker);
+        if (setting.isHedgedReads()) {
+            elasticsearchUtils.setHedgedReads(new ESHedgedReads(tracker, setting.getHedgeDelayMillis(), setting.getHedgeMinDelayMillis()));
+        }
+        elasticsearchUtils.setRequestOptions(requestOptions(setting));
+        return elasticsearchUtils;
+    }
+
+    /**
+     * 只按连接池及超时配置创建客户端，不包含嗅探及节点选择
+     */
+    public static RestHighLevelClient createClient(ESClientSetting setting) {
+        return new RestHighLevelClient(builder(setting, null, setting.getMaxConnTotal(), setting.getMaxConnPerRoute(), setting.getSocketTimeoutMillis()));
+    }
+
+    private static RestHighLevelClient build(ElasticsearchUtils elasticsearchUtils, ESClientSetting setting, ESLatencyTracker tracker,
+                                             int maxConnTotal, int maxConnPerRoute, int socketTimeoutMillis) {
+        RestClientBuilder builder = builder(setting, tracker, maxConnTotal, maxConnPerRoute, socketTimeoutMillis);
+        SniffOnFailureListener sniffOnFailure = setting.isSniff() ? new SniffOnFailureListener() : null;
+        RestClient.FailureListener failureListener = tracker != null ? tracker.failureListener(sniffOnFailure) : sniffOnFailure;
+        if (failureListener != null) {
+            builder.setFailureListener(failureListener);
+        }
+        RestHighLevelClient client = new RestHighLevelClient(builder);
+        if (sniffOnFailure != null) {
+            RestClient lowLevelClient = client.getLowLevelClient();
+            ElasticsearchNodesSniffer.Scheme scheme = setting.getHosts().get(0).startsWith("https")
+                    ? ElasticsearchNodesSniffer.Scheme.HTTPS : ElasticsearchNodesSniffer.Scheme.HTTP;
+            Sniffer sniffer = Sniffer.builder(lowLevelClient)
+                    .setSniffIntervalMillis(setting.getSniffIntervalMillis())
+                    .setSniffAfterFailureDelayMillis(setting.getSniffAfterFailureDelayMillis())
+                    .setNodesSniffer(new ElasticsearchNodesSniffer(lowLevelClient, ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT, scheme))
+                    .build();
+            sniffOnFailure.setSniffer(sniffer);
+            elasticsearchUtils.addSniffer(sniffer);
+        }
+        return client;
+    }
+
+    /**
+     * @param tracker 不为 null 时记录各节点耗时，配置 latencyAware 时据此选择节点
+     */
+    public static RestClientBuilder builder(ESClientSetting setting, ESLatencyTracker tracker, int maxConnTotal, int maxConnPerRoute, int socketTimeoutMillis) {
+        Assert.isTrue(!CollectionUtils.isEmpty(setting.getHosts()), "hosts is empty");
+        HttpHost[] hosts = setting.getHosts().stream().map(HttpHost::create).toArray(HttpHost[]::new);
+        RestClientBuilder builder = RestClient.builder(hosts);
+        if (StringUtils.hasText(setting.getPathPrefix())) {
+            builder.setPathPrefix(setting.getPathPrefix());
+        }
+        if (tracker != null && setting.isLatencyAware()) {
+            builder.setNodeSelector(new ESLatencyNodeSelector(tracker, setting.getSlowNodeFactor(), setting.getSlowNodeMinMillis()));
+        } else if (setting.isSniff()) {
+            builder.setNodeSelector(NodeSelector.SKIP_DEDICATED_MASTERS);
+        }
+        builder.setRequestConfigCallback(config -> config
+                .setConnectTimeout(setting.getConnectTimeoutMillis())
+                .setSocketTimeout(socketTimeoutMillis)
+                .setConnectionRequestTimeout(setting.getConnectionRequestTimeoutMillis()));
+        builder.setHttpClientConfigCallback(httpClient -> {
+            httpClient.setMaxConnTotal(maxConnTotal)
+                    .setMaxConnPerRoute(maxConnPerRoute)
+                    .setKeepAliveStrategy((response, context) -> setting.getKeepAliveMillis());
+            IOReactorConfig.Builder ioReactor = IOReactorConfig.custom().setSoKeepAlive(true);
+            if (setting.getIoThreadCount() > 0) {
+                ioReactor.setIoThreadCount(setting.getIoThreadCount());
+            }
+            httpClient.setDefaultIOReactorConfig(ioReactor.build());
+            if (tracker != null) {
+                httpClient.addInterceptorLast(tracker.requestInterceptor());
+                httpClient.addInterceptorFirst(tracker.responseInterceptor());
+            }
+            if (StringUtils.hasText(setting.getUsername())) {
+                CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(setting.getUsername(), setting.getPassword()));
+                httpClient.setDefaultCredentialsProvider(credentialsProvider);
+            }
+            return httpClient;
+        });
+        return builder;
+    }
+
+    public static ESRequestOptions requestOptions(ESClientSetting setting) {
+        return new ESRequestOptions(
+                options(setting, setting.getSearchBufferLimitBytes()),
+                options(setting, setting.getBulkBufferLimitBytes()),
+                options(setting, setting.getGetBufferLimitBytes()),
+                options(setting.getWriteBufferLimitBytes(), false),
+                options(setting, setting.getAdminBufferLimitBytes()));
+    }
+
+    private static RequestOptions options(ESClientSetting setting, int bufferLimit) {
+        return options(bufferLimit, setting.isCompression());
+    }
+
+    /**
+     * @param compression 单文档写入的响应只有几百字节，压缩只增加两端的CPU开销，不启用
+     */
+    private static RequestOptions options(int bufferLimit, boolean compression) {
+        RequestOptions.Builder builder = RequestOptions.DEFAULT.toBuilder();
+        if (compression) {
+            builder.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            builder.setHttpAsyncResponseConsumerFactory(new ESGzipResponseConsumerFactory(bufferLimit));
+        } else {
+            builder.setHttpAsyncResponseConsumerFactory(new HttpAsyncResponseConsumerFactory.HeapBufferedResponseConsumerFactory(bufferLimit));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.orm.elasticsearch.core.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.elasticsearch.client.HeapBufferedAsyncResponseConsumer;
+import org.elasticsearch.client.HttpAsyncResponseConsumerFactory;
+
+/**
+ * @ClassName ESGzipResponseConsumerFactory
+ * @Description 堆内缓冲响应，gzip压缩的响应在读取时解压。当前版本的低级客户端不会自动解压响应，
+ * 请求头带 Accept-Encoding: gzip 时必须配合使用。缓冲上限按压缩后的大小计算
+ * @Author liyongbing
+ * @Date 2026/10/19 00:50
+ * @Version 1.0
+ **/
+public class ESGzipResponseConsumerFactory implements HttpAsyncResponseConsumerFactory {
+
+    private final int bufferLimit;
+
+    public ESGzipResponseConsumerFactory(int bufferLimit) {
+        this.bufferLimit = bufferLimit;
+    }
+
+    @Override
+    public HttpAsyncResponseConsumer<HttpResponse> createHttpAsyncResponseConsumer() {
+        return new HeapBufferedAsyncResponseConsumer(bufferLimit) {
+            @Override
+            protected HttpResponse buildResult(HttpContext context) throws Exception {
+                HttpResponse response = super.buildResult(context);
+                HttpEntity entity = response.getEntity();
+                Header encoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+                if (entity != null && encoding != null && "gzip".equalsIgnoreCase(encoding.getValue())) {
+                    response.setEntity(new GzipDecompressingEntity(entity));
+                    response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+                    response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+                }
+                return response;
+            }
+        };
+    }
+}
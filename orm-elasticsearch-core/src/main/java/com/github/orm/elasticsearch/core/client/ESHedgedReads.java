@@ -0,0 +1,152 @@
+package com.github.orm.elasticsearch.core.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName ESHedgedReads
+ * @Description 对冲读取：请求在延迟内未返回时再发送一次相同请求，取先成功的结果。
+ * 客户端轮询节点，配合 {@link ESLatencyNodeSelector} 时第二次请求通常落在其他较快的节点上。
+ * 当前版本的客户端无法取消已发送的请求，落后的请求会继续执行完毕，只用于幂等的读取
+ * @Author liyongbing
+ * @Date 2026/10/19 01:30
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESHedgedReads implements Closeable {
+
+    private final ScheduledExecutorService scheduler;
+    private final ESLatencyTracker tracker;
+    private final long delayMillis;
+    private final long minDelayMillis;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * @param tracker        自适应延迟使用，为 null 时只能使用固定延迟
+     * @param delayMillis    固定延迟，小于等于0时取最快节点EWMA耗时的2倍
+     * @param minDelayMillis 自适应延迟的下限
+     */
+    public ESHedgedReads(ESLatencyTracker tracker, long delayMillis, long minDelayMillis) {
+        this.tracker = tracker;
+        this.delayMillis = delayMillis;
+        this.minDelayMillis = minDelayMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-hedged-reads");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long hedgeDelayMillis() {
+        if (delayMillis > 0) {
+            return delayMillis;
+        }
+        double best = tracker != null ? tracker.bestLatencyMillis() : Double.NaN;
+        return Double.isNaN(best) ? Math.max(minDelayMillis, 100) : Math.max(minDelayMillis, (long) (best * 2));
+    }
+
+    public <R> CompletableFuture<R> execute(Consumer<ActionListener<R>> call) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        send(call, listener(result, pending, false));
+        if (result.isDone()) {
+            return result;
+        }
+        ScheduledFuture<?> hedge;
+        try {
+            hedge = scheduler.schedule(() -> {
+                if (!result.isDone()) {
+                    hedges.increment();
+                    pending.incrementAndGet();
+                    send(call, listener(result, pending, true));
+                }
+            }, hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭时不再对冲，只等待原请求
+            return result;
+        }
+        result.whenComplete((r, e) -> hedge.cancel(false));
+        return result;
+    }
+
+    /**
+     * 发送时同步抛出的异常(如客户端已关闭)按请求失败处理，否则 pending 不会归零，future 永远不会完成
+     */
+    private static <R> void send(Consumer<ActionListener<R>> call, ActionListener<R> listener) {
+        try {
+            call.accept(listener);
+        } catch (RuntimeException e) {
+            listener.onFailure(e);
+        }
+    }
+
+    /**
+     * 同步执行，失败时抛出最后一次请求的异常
+     */
+    public <R> R executeSync(Consumer<ActionListener<R>> call) throws IOException {
+        try {
+            return execute(call).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("请求被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ElasticsearchException(cause);
+        }
+    }
+
+    private <R> ActionListener<R> listener(CompletableFuture<R> result, AtomicInteger pending, boolean hedged) {
+        return new ActionListener<R>() {
+            @Override
+            public void onResponse(R response) {
+                if (result.complete(response) && hedged) {
+                    hedgeWins.increment();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                } else {
+                    log.debug("elasticsearch hedged read attempt failed, waiting for the other one", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 已发送的对冲请求数
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.orm.elasticsearch.core.client;
+
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @ClassName ESLatencyNodeSelector
+ * @Description 跳过专用master节点，并按 {@link ESLatencyTracker} 回避慢节点及刚失败的节点，其余节点仍由客户端轮询。
+ * 全部节点都需回避时不做过滤
+ * @Author liyongbing
+ * @Date 2026/10/19 01:20
+ * @Version 1.0
+ **/
+public class ESLatencyNodeSelector implements NodeSelector {
+
+    private final ESLatencyTracker tracker;
+    private final double slowFactor;
+    private final long slowMinMillis;
+
+    public ESLatencyNodeSelector(ESLatencyTracker tracker, double slowFactor, long slowMinMillis) {
+        this.tracker = tracker;
+        this.slowFactor = slowFactor;
+        this.slowMinMillis = slowMinMillis;
+    }
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        NodeSelector.SKIP_DEDICATED_MASTERS.select(nodes);
+        double best = tracker.bestLatencyMillis();
+        double threshold = Double.isNaN(best) ? Double.MAX_VALUE : Math.max(best * slowFactor, slowMinMillis);
+        long now = System.nanoTime();
+        List<Node> avoided = new ArrayList<>();
+        int total = 0;
+        for (Node node : nodes) {
+            total++;
+            if (tracker.shouldAvoid(node.getHost(), threshold, now)) {
+                avoided.add(node);
+            }
+        }
+        if (avoided.isEmpty() || avoided.size() == total) {
+            return;
+        }
+        for (Iterator<Node> iterator = nodes.iterator(); iterator.hasNext(); ) {
+            if (avoided.contains(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LATENCY_AWARE_SKIP_DEDICATED_MASTERS";
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.orm.elasticsearch.core.client;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.protocol.HttpCoreContext;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.RestClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName ESLatencyTracker
+ * @Description 按节点统计响应耗时的EWMA：耗时变长时立即取新值，变短时按系数平滑回落，慢节点能被尽快发现。
+ * 通过客户端的请求/响应拦截器记录首字节耗时，通过 {@link #failureListener()} 记录节点失败
+ * @Author liyongbing
+ * @Date 2026/10/19 01:10
+ * @Version 1.0
+ **/
+public class ESLatencyTracker {
+
+    private static final String START_ATTRIBUTE = ESLatencyTracker.class.getName() + ".start";
+
+    private final double alpha;
+    private final long failurePenaltyNanos;
+    private final long probeIntervalNanos;
+    private final ConcurrentHashMap<HttpHost, Stat> stats = new ConcurrentHashMap<>();
+
+    public ESLatencyTracker(double alpha, long failurePenaltyMillis, long probeIntervalMillis) {
+        this.alpha = alpha;
+        this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenaltyMillis);
+        this.probeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis);
+    }
+
+    public void record(HttpHost host, long nanos) {
+        Stat stat = stats.computeIfAbsent(host, key -> new Stat());
+        synchronized (stat) {
+            if (stat.ewma < 0 || nanos > stat.ewma) {
+                stat.ewma = nanos;
+            } else {
+                stat.ewma = alpha * nanos + (1 - alpha) * stat.ewma;
+            }
+            stat.failedUntil = 0;
+        }
+    }
+
+    public void fail(HttpHost host) {
+        Stat stat = stats.computeIfAbsent(host, key -> new Stat());
+        synchronized (stat) {
+            stat.failedUntil = System.nanoTime() + failurePenaltyNanos;
+        }
+    }
+
+    /**
+     * @return 没有记录时为 NaN
+     */
+    public double latencyMillis(HttpHost host) {
+        Stat stat = stats.get(host);
+        return stat == null || stat.ewma < 0 ? Double.NaN : stat.ewma / 1_000_000D;
+    }
+
+    /**
+     * 未处于失败回避期的节点中最小的EWMA耗时
+     *
+     * @return 没有记录时为 NaN
+     */
+    public double bestLatencyMillis() {
+        long now = System.nanoTime();
+        double best = Double.NaN;
+        for (Stat stat : stats.values()) {
+            if (stat.ewma >= 0 && stat.failedUntil - now <= 0 && (Double.isNaN(best) || stat.ewma < best)) {
+                best = stat.ewma;
+            }
+        }
+        return Double.isNaN(best) ? best : best / 1_000_000D;
+    }
+
+    /**
+     * 各节点的EWMA耗时(毫秒)
+     */
+    public Map<HttpHost, Double> snapshot() {
+        Map<HttpHost, Double> snapshot = new HashMap<>();
+        stats.forEach((host, stat) -> snapshot.put(host, stat.ewma < 0 ? Double.NaN : stat.ewma / 1_000_000D));
+        return snapshot;
+    }
+
+    /**
+     * 节点处于失败回避期或耗时超过阈值时回避，每个探测间隔放行一次
+     */
+    boolean shouldAvoid(HttpHost host, double thresholdMillis, long now) {
+        Stat stat = stats.get(host);
+        if (stat == null) {
+            return false;
+        }
+        synchronized (stat) {
+            boolean avoid = stat.failedUntil - now > 0 || (stat.ewma >= 0 && stat.ewma / 1_000_000D > thresholdMillis);
+            if (avoid && now - stat.lastProbe > probeIntervalNanos) {
+                stat.lastProbe = now;
+                return false;
+            }
+            return avoid;
+        }
+    }
+
+    public HttpRequestInterceptor requestInterceptor() {
+        return (request, context) -> context.setAttribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    public HttpResponseInterceptor responseInterceptor() {
+        return (response, context) -> {
+            Object start = context.getAttribute(START_ATTRIBUTE);
+            Object host = context.getAttribute(HttpCoreContext.HTTP_TARGET_HOST);
+            if (start instanceof Long && host instanceof HttpHost) {
+                record((HttpHost) host, System.nanoTime() - (Long) start);
+            }
+        };
+    }
+
+    /**
+     * 节点失败监听，可与嗅探的失败监听组合
+     */
+    public RestClient.FailureListener failureListener(RestClient.FailureListener delegate) {
+        return new RestClient.FailureListener() {
+            @Override
+            public void onFailure(Node node) {
+                fail(node.getHost());
+                if (delegate != null) {
+                    delegate.onFailure(node);
+                }
+            }
+        };
+    }
+
+    private static final class Stat {
+        private double ewma = -1;
+        private long failedUntil;
+        private long lastProbe = System.nanoTime();
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.orm.elasticsearch.core.client;
+
+import lombok.Getter;
+import org.elasticsearch.client.RequestOptions;
+
+/**
+ * @ClassName ESRequestOptions
+ * @Description 按操作类型区分的请求参数：查询、批量写入、单文档读取、单文档写入、索引管理
+ * @Author liyongbing
+ * @Date 2026/10/19 00:45
+ * @Version 1.0
+ **/
+@Getter
+public class ESRequestOptions {
+
+    /**
+     * 全部使用 {@link RequestOptions#DEFAULT}
+     */
+    public static final ESRequestOptions DEFAULT = new ESRequestOptions(RequestOptions.DEFAULT, RequestOptions.DEFAULT,
+            RequestOptions.DEFAULT, RequestOptions.DEFAULT, RequestOptions.DEFAULT);
+
+    /**
+     * search/scroll/msearch/count/聚合
+     */
+    private final RequestOptions search;
+    /**
+     * bulk/by_query
+     */
+    private final RequestOptions bulk;
+    /**
+     * 单文档及 mget 的读取
+     */
+    private final RequestOptions get;
+    /**
+     * 单文档的 index/update/delete，响应只有写入结果
+     */
+    private final RequestOptions write;
+    /**
+     * 索引、别名、settings、任务管理
+     */
+    private final RequestOptions admin;
+
+    public ESRequestOptions(RequestOptions search, RequestOptions bulk, RequestOptions get, RequestOptions write, RequestOptions admin) {
+        this.search = search;
+        this.bulk = bulk;
+        this.get = get;
+        this.write = write;
+        this.admin = admin;
+    }
+}
@@ -0,0 +1,229 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName ESAccessors
+ * @Description 启动时生成属性访问器：优先用 LambdaMetafactory 绑定 getter/setter/构造器，
+ * 不满足条件(非public、跨类加载器)时退化为 MethodHandle，调用期均不再走反射
+ * @Author liyongbing
+ * @Date 2026/10/18 15:40
+ * @Version 1.0
+ **/
+final class ESAccessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private ESAccessors() {
+    }
+
+    static <T> Supplier<T> constructor(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            if (canGenerate(type, constructor.getModifiers())) {
+                MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                        MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                        handle, MethodType.methodType(type));
+                @SuppressWarnings("unchecked")
+                Supplier<T> supplier = (Supplier<T>) site.getTarget().invokeExact();
+                return supplier;
+            }
+            constructor.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    @SuppressWarnings("unchecked")
+                    T instance = (T) handle.invokeExact();
+                    return instance;
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法生成 " + type.getName() + " 的构造器", e);
+        }
+    }
+
+    static Function<Object, Object> getter(Field field) {
+        Method method = findGetter(field);
+        return method != null ? getter(method) : fieldGetter(field);
+    }
+
+    static BiConsumer<Object, Object> setter(Field field) {
+        Method method = findSetter(field);
+        return method != null ? setter(method) : fieldSetter(field);
+    }
+
+    /**
+     * 无参实例方法，如 getXxx/isXxx
+     */
+    static Function<Object, Object> getter(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+        try {
+            if (canGenerate(owner, method)) {
+                MethodHandle handle = LOOKUP.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                        MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+                        handle, MethodType.methodType(box(method.getReturnType()), owner));
+                @SuppressWarnings("unchecked")
+                Function<Object, Object> function = (Function<Object, Object>) site.getTarget().invokeExact();
+                return function;
+            }
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+            return instance -> {
+                try {
+                    return handle.invokeExact(instance);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法生成 " + method + " 的getter", e);
+        }
+    }
+
+    /**
+     * 单参数实例方法，返回值被忽略以兼容链式setter
+     */
+    static BiConsumer<Object, Object> setter(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+        Class<?> valueType = method.getParameterTypes()[0];
+        try {
+            if (canGenerate(owner, method)) {
+                MethodHandle handle = LOOKUP.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class),
+                        handle, MethodType.methodType(void.class, owner, box(valueType)));
+                @SuppressWarnings("unchecked")
+                BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+                return consumer;
+            }
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (instance, value) -> {
+                try {
+                    handle.invokeExact(instance, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法生成 " + method + " 的setter", e);
+        }
+    }
+
+    static Function<Object, Object> fieldGetter(Field field) {
+        try {
+            field.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            return instance -> {
+                try {
+                    return handle.invokeExact(instance);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法生成 " + field + " 的getter", e);
+        }
+    }
+
+    /**
+     * @return final 字段为 null
+     */
+    static BiConsumer<Object, Object> fieldSetter(Field field) {
+        if (Modifier.isFinal(field.getModifiers())) {
+            return null;
+        }
+        try {
+            field.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (instance, value) -> {
+                try {
+                    handle.invokeExact(instance, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法生成 " + field + " 的setter", e);
+        }
+    }
+
+    private static boolean canGenerate(Class<?> type, Method method) {
+        return canGenerate(method.getDeclaringClass(), method.getModifiers()) && canGenerate(type, method.getModifiers());
+    }
+
+    /**
+     * 生成的lambda类定义在本类的类加载器中，需要能看到实体类且实体类及方法均为public
+     */
+    private static boolean canGenerate(Class<?> type, int memberModifiers) {
+        if (!Modifier.isPublic(type.getModifiers()) || !Modifier.isPublic(memberModifiers)) {
+            return false;
+        }
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(type.getName(), false, ESAccessors.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Method findGetter(Field field) {
+        String suffix = capitalize(field.getName());
+        Class<?> owner = field.getDeclaringClass();
+        String[] names = (field.getType() == boolean.class)
+                ? new String[]{"is" + suffix, "get" + suffix}
+                : new String[]{"get" + suffix};
+        for (String name : names) {
+            try {
+                Method method = owner.getMethod(name);
+                if (method.getReturnType() == field.getType() && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private static Method findSetter(Field field) {
+        try {
+            Method method = field.getDeclaringClass().getMethod("set" + capitalize(field.getName()), field.getType());
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    static Class<?> box(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,408 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.FieldInfo;
+import com.alibaba.fastjson.util.JavaBeanInfo;
+import com.alibaba.fastjson.util.TypeUtils;
+import com.github.orm.elasticsearch.core.annotation.ESId;
+import com.github.orm.elasticsearch.core.annotation.ESRouting;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.*;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName ESEntityCodec
+ * @Description 实体编解码，启动时生成属性访问器，编解码期间不再使用反射。
+ * 属性按fastjson的JavaBean规则解析(getter/setter/public字段，遵循 @JSONField、@JSONType)，输出与 JSON.toJSONString 一致，
+ * 也能读取此前由fastjson写入的文档
+ * @Author liyongbing
+ * @Date 2026/10/18 16:15
+ * @Version 1.0
+ **/
+public class ESEntityCodec<T> {
+
+    private static final ConcurrentHashMap<Class<?>, ESEntityCodec<?>> CACHE = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final Supplier<T> constructor;
+    /**
+     * 参与编码的属性，按名称排序
+     */
+    private final ESPropertyCodec[] properties;
+    /**
+     * 参与编码的属性，按json属性名及字段名索引
+     */
+    private final Map<String, ESPropertyCodec> propertyMap;
+    /**
+     * 参与解码的属性，按json属性名及 alternateNames 索引
+     */
+    private final Map<String, ESPropertyCodec> decodeMap;
+    /**
+     * 解码时的宽松匹配，忽略大小写及 '_'、'-'，与fastjson的smartMatch一致
+     */
+    private final Map<String, ESPropertyCodec> smartDecodeMap;
+    private final ESPropertyCodec idProperty;
+    private final ESPropertyCodec routingProperty;
+
+    @SuppressWarnings("unchecked")
+    public static <T> ESEntityCodec<T> of(Class<T> type) {
+        ESEntityCodec<?> codec = CACHE.get(type);
+        if (codec == null) {
+            codec = new ESEntityCodec<>(type);
+            ESEntityCodec<?> exist = CACHE.putIfAbsent(type, codec);
+            if (exist != null) {
+                codec = exist;
+            }
+        }
+        return (ESEntityCodec<T>) codec;
+    }
+
+    private ESEntityCodec(Class<T> type) {
+        this.type = type;
+        this.constructor = ESAccessors.constructor(type);
+        // 与 JSON.toJSONString/parseObject 使用相同的属性解析，保证与fastjson写入的文档互通
+        Map<String, FieldInfo> setters = new LinkedHashMap<>();
+        for (FieldInfo info : JavaBeanInfo.build(type, type, ParserConfig.getGlobalInstance().propertyNamingStrategy).fields) {
+            setters.put(info.name, info);
+        }
+        List<ESPropertyCodec> list = new ArrayList<>();
+        List<ESPropertyCodec> decodeOnly = new ArrayList<>();
+        for (FieldInfo info : TypeUtils.computeGetters(type, null)) {
+            // fastjson 默认 SkipTransientField
+            if (info.fieldTransient) {
+                continue;
+            }
+            list.add(ESPropertyCodec.of(type, info, setters.remove(info.name)));
+        }
+        for (FieldInfo info : setters.values()) {
+            decodeOnly.add(ESPropertyCodec.of(type, null, info));
+        }
+        this.properties = list.toArray(new ESPropertyCodec[0]);
+        Map<String, ESPropertyCodec> map = new HashMap<>();
+        for (ESPropertyCodec property : properties) {
+            map.put(property.getName(), property);
+        }
+        for (ESPropertyCodec property : properties) {
+            if (property.getField() != null) {
+                map.putIfAbsent(property.getField().getName(), property);
+            }
+        }
+        this.propertyMap = map;
+        Map<String, ESPropertyCodec> decode = new HashMap<>();
+        Map<String, ESPropertyCodec> smart = new HashMap<>();
+        List<ESPropertyCodec> all = new ArrayList<>(list);
+        all.addAll(decodeOnly);
+        for (ESPropertyCodec property : all) {
+            if (!property.canDecode()) {
+                continue;
+            }
+            decode.put(property.getName(), property);
+            for (String alternateName : property.getAlternateNames()) {
+                decode.putIfAbsent(alternateName, property);
+            }
+            smart.putIfAbsent(smartKey(property.getName()), property);
+        }
+        this.decodeMap = decode;
+        this.smartDecodeMap = smart;
+        this.idProperty = annotated(ESId.class);
+        this.routingProperty = annotated(ESRouting.class);
+    }
+
+    /**
+     * 标注了指定注解的字段对应的属性，字段不在json属性中时直接按字段访问
+     */
+    private ESPropertyCodec annotated(Class<? extends Annotation> annotation) {
+        for (Class<?> clazz = type; clazz != null && !clazz.equals(Object.class); clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getAnnotation(annotation) == null) {
+                    continue;
+                }
+                for (ESPropertyCodec property : properties) {
+                    if (field.equals(property.getField())) {
+                        return property;
+                    }
+                }
+                return ESPropertyCodec.of(field);
+            }
+        }
+        return null;
+    }
+
+    private static String smartKey(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_' && c != '-') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按json属性名查找解码属性，找不到时按fastjson的规则宽松匹配
+     */
+    private ESPropertyCodec decodeProperty(String name) {
+        ESPropertyCodec property = decodeMap.get(name);
+        if (property != null) {
+            return property;
+        }
+        String key = smartKey(name);
+        property = smartDecodeMap.get(key);
+        if (property == null && key.startsWith("is")) {
+            property = smartDecodeMap.get(key.substring(2));
+            if (property != null && property.getType() != boolean.class && property.getType() != Boolean.class) {
+                property = null;
+            }
+        }
+        return property;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @param name json属性名，也可以是实体字段名
+     * @return 参与编码的属性，不存在时为 null
+     */
+    public ESPropertyCodec getProperty(String name) {
+        return propertyMap.get(name);
+    }
+
+    public List<ESPropertyCodec> getProperties() {
+        return Collections.unmodifiableList(Arrays.asList(properties));
+    }
+
+    public ESPropertyCodec getIdProperty() {
+        return idProperty;
+    }
+
+    public ESPropertyCodec getRoutingProperty() {
+        return routingProperty;
+    }
+
+    public T newInstance() {
+        return constructor.get();
+    }
+
+    /**
+     * 获取 {@link ESId} 字段值
+     */
+    public String getId(T instance) {
+        if (idProperty == null || instance == null) {
+            return null;
+        }
+        Object value = idProperty.get(instance);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 设置 {@link ESId} 字段值，按字段类型转换
+     */
+    public void setId(T instance, String id) {
+        if (idProperty == null || instance == null) {
+            return;
+        }
+        Object value = idProperty.getType() == String.class ? id
+                : TypeUtils.cast(id, idProperty.getGenericType(), ParserConfig.getGlobalInstance());
+        idProperty.set(instance, value);
+    }
+
+    /**
+     * 获取 {@link ESRouting} 字段值，未标注时为 null
+     */
+    public String getRouting(T instance) {
+        if (routingProperty == null || instance == null) {
+            return null;
+        }
+        Object value = routingProperty.get(instance);
+        return value != null ? value.toString() : null;
+    }
+
+    public void encode(Object instance, XContentBuilder builder) throws IOException {
+        builder.startObject();
+        for (ESPropertyCodec property : properties) {
+            property.encode(instance, builder);
+        }
+        builder.endObject();
+    }
+
+    public XContentBuilder encode(T instance) {
+        try {
+            XContentBuilder builder = XContentFactory.jsonBuilder();
+            encode(instance, builder);
+            return builder;
+        } catch (IOException e) {
+            throw new ElasticsearchException("序列化 {" + type.getName() + "} 失败", e);
+        }
+    }
+
+    /**
+     * 序列化到线程内复用的缓冲，返回定长的UTF-8字节，用作请求的 _source
+     */
+    public BytesReference toBytes(T instance) {
+        ESSourceBuffer buffer = ESSourceBuffer.acquire();
+        try {
+            try (XContentBuilder builder = XContentFactory.jsonBuilder(buffer)) {
+                encode(instance, builder);
+            }
+            return buffer.toBytesArray();
+        } catch (IOException e) {
+            throw new ElasticsearchException("序列化 {" + type.getName() + "} 失败", e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 只序列化指定的属性，值为空的属性写为 null，用作局部更新的 doc
+     *
+     * @param names 属性名，不存在时抛出 IllegalArgumentException
+     */
+    public BytesReference toBytes(T instance, Collection<String> names) {
+        List<ESPropertyCodec> selected = new ArrayList<>(names.size());
+        for (String name : names) {
+            ESPropertyCodec property = propertyMap.get(name);
+            if (property == null) {
+                throw new IllegalArgumentException("{" + type.getName() + "} 不存在属性 {" + name + "}");
+            }
+            selected.add(property);
+        }
+        return toBytes(instance, selected);
+    }
+
+    private BytesReference toBytes(T instance, List<ESPropertyCodec> selected) {
+        ESSourceBuffer buffer = ESSourceBuffer.acquire();
+        try {
+            try (XContentBuilder builder = XContentFactory.jsonBuilder(buffer)) {
+                builder.startObject();
+                for (ESPropertyCodec property : selected) {
+                    builder.field(property.getName());
+                    property.encodeValue(instance, builder);
+                }
+                builder.endObject();
+            }
+            return buffer.toBytesArray();
+        } catch (IOException e) {
+            throw new ElasticsearchException("序列化 {" + type.getName() + "} 失败", e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 记录实体当前各属性的序列化结果
+     */
+    public ESEntitySnapshot snapshot(T instance) {
+        int[] offsets = new int[properties.length + 1];
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            try (XContentBuilder builder = XContentFactory.jsonBuilder(out)) {
+                // 以数组连续写出，逐个属性 flush 后记录偏移，数组分隔符对同一下标总是一致，不影响比较
+                builder.startArray();
+                builder.flush();
+                for (int i = 0; i < properties.length; i++) {
+                    offsets[i] = (int) out.position();
+                    properties[i].encodeValue(instance, builder);
+                    builder.flush();
+                }
+                offsets[properties.length] = (int) out.position();
+                builder.endArray();
+            }
+            return new ESEntitySnapshot(type, BytesReference.toBytes(out.bytes()), offsets);
+        } catch (IOException e) {
+            throw new ElasticsearchException("序列化 {" + type.getName() + "} 失败", e);
+        }
+    }
+
+    /**
+     * 与快照比较，只序列化发生变化的属性，变为空的属性写为 null
+     *
+     * @return 没有变化时为 null
+     */
+    public BytesReference diff(ESEntitySnapshot snapshot, T instance) {
+        if (snapshot.getType() != type) {
+            throw new IllegalArgumentException("快照类型 {" + snapshot.getType().getName() + "} 与 {" + type.getName() + "} 不一致");
+        }
+        ESEntitySnapshot current = snapshot(instance);
+        List<ESPropertyCodec> changed = new ArrayList<>();
+        for (int i = 0; i < properties.length; i++) {
+            if (!current.sameProperty(snapshot, i)) {
+                changed.add(properties[i]);
+            }
+        }
+        return changed.isEmpty() ? null : toBytes(instance, changed);
+    }
+
+    /**
+     * 从当前位置读取一个对象，parser 指向 START_OBJECT 或尚未开始读取
+     */
+    public T decode(XContentParser parser) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == null || token == XContentParser.Token.VALUE_NULL) {
+            return null;
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new ElasticsearchException("解析 {" + type.getName() + "} 失败，期望 START_OBJECT 实际为 " + token);
+        }
+        T instance = constructor.get();
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            ESPropertyCodec property = decodeProperty(parser.currentName());
+            parser.nextToken();
+            if (property == null) {
+                parser.skipChildren();
+            } else {
+                property.decode(instance, parser);
+            }
+        }
+        return instance;
+    }
+
+    public T decode(String json) {
+        if (json == null) {
+            return null;
+        }
+        try (XContentParser parser = XContentType.JSON.xContent()
+                .createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json)) {
+            return decode(parser);
+        } catch (IOException e) {
+            throw new ElasticsearchException("解析 {" + type.getName() + "} 失败", e);
+        }
+    }
+
+    /**
+     * 直接从响应中的 _source 字节解析，不构建中间String
+     */
+    public T decode(BytesReference source) {
+        if (source == null || source.length() == 0) {
+            return null;
+        }
+        try (XContentParser parser = createParser(source)) {
+            return decode(parser);
+        } catch (IOException e) {
+            throw new ElasticsearchException("解析 {" + type.getName() + "} 失败", e);
+        }
+    }
+
+    private static XContentParser createParser(BytesReference source) throws IOException {
+        if (source instanceof BytesArray) {
+            BytesArray array = (BytesArray) source;
+            return XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION, array.array(), array.offset(), array.length());
+        }
+        return XContentHelper.createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import java.util.Arrays;
+
+/**
+ * @ClassName ESEntitySnapshot
+ * @Description 实体各属性序列化后的字节快照，由 {@link ESEntityCodec#snapshot(Object)} 生成，
+ * 用于 {@link ESEntityCodec#diff(ESEntitySnapshot, Object)} 计算变更字段。保存的是字节副本，之后修改实体不会影响快照
+ * @Author liyongbing
+ * @Date 2026/10/18 22:40
+ * @Version 1.0
+ **/
+public final class ESEntitySnapshot {
+
+    private final Class<?> type;
+    private final byte[] bytes;
+    /**
+     * 第 i 个属性的字节区间为 [offsets[i], offsets[i + 1])
+     */
+    private final int[] offsets;
+
+    ESEntitySnapshot(Class<?> type, byte[] bytes, int[] offsets) {
+        this.type = type;
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    boolean sameProperty(ESEntitySnapshot other, int index) {
+        int from = offsets[index];
+        int to = offsets[index + 1];
+        int otherFrom = other.offsets[index];
+        int otherTo = other.offsets[index + 1];
+        if (to - from != otherTo - otherFrom) {
+            return false;
+        }
+        for (int i = 0; i < to - from; i++) {
+            if (bytes[from + i] != other.bytes[otherFrom + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ESEntitySnapshot{" + type.getSimpleName() + ", " + bytes.length + " bytes, offsets=" + Arrays.toString(offsets) + "}";
+    }
+}
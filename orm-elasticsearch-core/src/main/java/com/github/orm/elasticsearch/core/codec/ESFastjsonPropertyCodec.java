@@ -0,0 +1,87 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import com.alibaba.fastjson.parser.DefaultJSONParser;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.parser.deserializer.FieldDeserializer;
+import com.alibaba.fastjson.serializer.FieldSerializer;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+import com.alibaba.fastjson.util.FieldInfo;
+import com.alibaba.fastjson.util.JavaBeanInfo;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @ClassName ESFastjsonPropertyCodec
+ * @Description 带有 format、serializeUsing/deserializeUsing、serialzeFeatures 等 @JSONField 配置的属性，
+ * 值交给fastjson为该属性生成的字段序列化器/反序列化器处理，格式与 JSON.toJSONString/parseObject 一致
+ * @Author liyongbing
+ * @Date 2026/10/19 11:10
+ * @Version 1.0
+ **/
+final class ESFastjsonPropertyCodec implements ESValueCodec {
+
+    private final Class<?> owner;
+    private final String name;
+    private final FieldSerializer serializer;
+    private final FieldDeserializer deserializer;
+
+    private ESFastjsonPropertyCodec(Class<?> owner, String name, FieldSerializer serializer, FieldDeserializer deserializer) {
+        this.owner = owner;
+        this.name = name;
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+    }
+
+    static ESFastjsonPropertyCodec forWrite(Class<?> owner, FieldInfo info) {
+        return new ESFastjsonPropertyCodec(owner, info.name, new FieldSerializer(owner, info), null);
+    }
+
+    static ESFastjsonPropertyCodec forRead(Class<?> owner, FieldInfo info) {
+        ParserConfig config = ParserConfig.getGlobalInstance();
+        JavaBeanInfo beanInfo = JavaBeanInfo.build(owner, owner, config.propertyNamingStrategy);
+        return new ESFastjsonPropertyCodec(owner, info.name, null, config.createFieldDeserializer(config, beanInfo, info));
+    }
+
+    @Override
+    public void write(XContentBuilder builder, Object value) throws IOException {
+        SerializeWriter out = new SerializeWriter();
+        try {
+            serializer.writeValue(new JSONSerializer(out), value);
+            builder.rawValue(new ByteArrayInputStream(out.toBytes(StandardCharsets.UTF_8)), XContentType.JSON);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("序列化 {" + owner.getName() + "." + name + "} 失败", e);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public Object read(XContentParser parser) throws IOException {
+        String json;
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.copyCurrentStructure(parser);
+            json = Strings.toString(builder);
+        }
+        Map<String, Object> values = new HashMap<>(2);
+        DefaultJSONParser jsonParser = new DefaultJSONParser(json, ParserConfig.getGlobalInstance());
+        try {
+            deserializer.parseField(jsonParser, null, owner, values);
+        } finally {
+            // 字段反序列化器不会读到文本结尾，只释放词法分析器
+            jsonParser.getLexer().close();
+        }
+        return values.get(deserializer.fieldInfo.name);
+    }
+}
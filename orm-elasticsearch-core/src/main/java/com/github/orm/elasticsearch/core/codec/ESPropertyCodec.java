@@ -0,0 +1,198 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import com.alibaba.fastjson.util.FieldInfo;
+import com.github.orm.elasticsearch.core.base.ReflectionUtils;
+import lombok.Getter;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * @ClassName ESPropertyCodec
+ * @Description 实体单个属性的预编译访问器及编解码。属性由fastjson的JavaBean规则确定：
+ * 编码取 getter/isXxx/public 字段，解码取 setter/public 字段，遵循 {@link JSONField} 的 name、serialize、deserialize、alternateNames；
+ * 带 format、serializeUsing 等配置的属性值交给fastjson对应的字段序列化器处理
+ * @Author liyongbing
+ * @Date 2026/10/18 16:02
+ * @Version 1.0
+ **/
+public class ESPropertyCodec {
+
+    private static final String[] NO_NAMES = new String[0];
+
+    /**
+     * json属性名
+     */
+    @Getter
+    private final String name;
+    /**
+     * 对应的实体字段，只有getter的计算属性为 null
+     */
+    @Getter
+    private final Field field;
+    /**
+     * 字段上的 ESField 信息，没有对应字段时为 null
+     */
+    @Getter
+    private final ReflectionUtils.ESFieldData fieldData;
+    /**
+     * 属性值类型
+     */
+    @Getter
+    private final Class<?> type;
+    @Getter
+    private final Type genericType;
+    @Getter
+    private final ESValueCodec valueCodec;
+    private final ESValueCodec readCodec;
+    /**
+     * 为 null 时不参与编码
+     */
+    private final Function<Object, Object> getter;
+    /**
+     * 为 null 时不参与解码
+     */
+    private final BiConsumer<Object, Object> setter;
+    private final boolean primitive;
+    /**
+     * 解码时同样接受的属性名
+     */
+    @Getter
+    private final String[] alternateNames;
+
+    private ESPropertyCodec(String name, Field field, Class<?> type, Type genericType,
+                            Function<Object, Object> getter, ESValueCodec valueCodec,
+                            BiConsumer<Object, Object> setter, ESValueCodec readCodec, boolean primitive, String[] alternateNames) {
+        this.name = name;
+        this.field = field;
+        this.fieldData = field != null ? ReflectionUtils.getESFieldData(field) : null;
+        this.type = type;
+        this.genericType = genericType;
+        this.getter = getter;
+        this.valueCodec = valueCodec;
+        this.setter = setter;
+        this.readCodec = readCodec;
+        this.primitive = primitive;
+        this.alternateNames = alternateNames;
+    }
+
+    /**
+     * 按fastjson解析出的读写信息构建
+     *
+     * @param owner      实体类
+     * @param getterInfo {@code TypeUtils.computeGetters} 中的属性，只可解码时为 null
+     * @param setterInfo {@code JavaBeanInfo.build} 中的同名属性，只可编码时为 null
+     */
+    static ESPropertyCodec of(Class<?> owner, FieldInfo getterInfo, FieldInfo setterInfo) {
+        if (setterInfo != null && setterInfo.getOnly) {
+            // 只有getter的集合属性，fastjson通过getter追加元素，这里不参与解码
+            setterInfo = null;
+        }
+        FieldInfo info = getterInfo != null ? getterInfo : setterInfo;
+        if (info.unwrapped || (setterInfo != null && setterInfo.unwrapped)) {
+            throw new IllegalStateException("{" + owner.getName() + "} 的属性 {" + info.name + "} 使用了 @JSONField(unwrapped = true)，不支持预编译编解码");
+        }
+        Field field = getterInfo != null && getterInfo.field != null ? getterInfo.field : (setterInfo != null ? setterInfo.field : null);
+        Function<Object, Object> getter = null;
+        ESValueCodec valueCodec = null;
+        if (getterInfo != null) {
+            getter = getterInfo.method != null ? ESAccessors.getter(getterInfo.method) : ESAccessors.fieldGetter(getterInfo.field);
+            valueCodec = customized(getterInfo, true)
+                    ? ESFastjsonPropertyCodec.forWrite(owner, getterInfo)
+                    : ESValueCodecs.forType(getterInfo.fieldClass, getterInfo.fieldType);
+        }
+        BiConsumer<Object, Object> setter = null;
+        ESValueCodec readCodec = null;
+        String[] alternateNames = NO_NAMES;
+        if (setterInfo != null) {
+            setter = setterInfo.method != null ? ESAccessors.setter(setterInfo.method) : ESAccessors.fieldSetter(setterInfo.field);
+            readCodec = customized(setterInfo, false)
+                    ? ESFastjsonPropertyCodec.forRead(owner, setterInfo)
+                    : ESValueCodecs.forType(setterInfo.fieldClass, setterInfo.fieldType);
+            if (setterInfo.alternateNames != null) {
+                alternateNames = setterInfo.alternateNames;
+            }
+        }
+        return new ESPropertyCodec(info.name, field, info.fieldClass, info.fieldType, getter, valueCodec,
+                setter, readCodec, setter != null && setterInfo.fieldClass.isPrimitive(), alternateNames);
+    }
+
+    /**
+     * 直接按字段访问，用于不在json中出现的 @ESId/@ESRouting 字段
+     */
+    static ESPropertyCodec of(Field field) {
+        ESValueCodec codec = ESValueCodecs.forType(field.getType(), field.getGenericType());
+        return new ESPropertyCodec(field.getName(), field, field.getType(), field.getGenericType(),
+                ESAccessors.getter(field), codec, ESAccessors.setter(field), codec, field.getType().isPrimitive(), NO_NAMES);
+    }
+
+    /**
+     * 是否带有需要fastjson处理的配置
+     */
+    private static boolean customized(FieldInfo info, boolean write) {
+        JSONField annotation = info.getAnnotation();
+        if (info.format != null || info.jsonDirect) {
+            return true;
+        }
+        if (write) {
+            return info.serialzeFeatures != 0 || (annotation != null && annotation.serializeUsing() != Void.class);
+        }
+        return info.parserFeatures != 0 || (annotation != null && annotation.deserializeUsing() != Void.class);
+    }
+
+    public boolean canEncode() {
+        return getter != null;
+    }
+
+    public boolean canDecode() {
+        return setter != null;
+    }
+
+    public Object get(Object instance) {
+        return getter.apply(instance);
+    }
+
+    public void set(Object instance, Object value) {
+        if (setter == null || (value == null && primitive)) {
+            return;
+        }
+        setter.accept(instance, value);
+    }
+
+    /**
+     * 写入 "name": value，值为空时跳过(与fastjson默认行为一致)
+     */
+    void encode(Object instance, XContentBuilder builder) throws IOException {
+        Object value = getter.apply(instance);
+        if (value != null) {
+            builder.field(name);
+            valueCodec.write(builder, value);
+        }
+    }
+
+    /**
+     * 只写入值，为空时写入 null
+     */
+    void encodeValue(Object instance, XContentBuilder builder) throws IOException {
+        Object value = getter.apply(instance);
+        if (value == null) {
+            builder.nullValue();
+        } else {
+            valueCodec.write(builder, value);
+        }
+    }
+
+    void decode(Object instance, XContentParser parser) throws IOException {
+        if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
+            set(instance, null);
+            return;
+        }
+        set(instance, readCodec.read(parser));
+    }
+}
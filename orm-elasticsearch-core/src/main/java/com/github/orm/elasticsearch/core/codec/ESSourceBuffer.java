@@ -0,0 +1,62 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import org.elasticsearch.common.bytes.BytesArray;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * @ClassName ESSourceBuffer
+ * @Description 线程内复用的UTF-8序列化缓冲，序列化结果只做一次定长拷贝后作为 _source 挂到请求上
+ * @Author liyongbing
+ * @Date 2026/10/18 17:05
+ * @Version 1.0
+ **/
+public final class ESSourceBuffer extends ByteArrayOutputStream {
+
+    private static final int INITIAL_SIZE = 4 * 1024;
+    /**
+     * 超过该大小的缓冲用完即丢弃，避免个别大文档长期占用线程内存
+     */
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ESSourceBuffer> LOCAL = ThreadLocal.withInitial(ESSourceBuffer::new);
+
+    private boolean inUse;
+
+    private ESSourceBuffer() {
+        super(INITIAL_SIZE);
+    }
+
+    /**
+     * 获取当前线程的缓冲，嵌套使用时返回一个临时缓冲
+     */
+    public static ESSourceBuffer acquire() {
+        ESSourceBuffer buffer = LOCAL.get();
+        if (buffer.inUse) {
+            buffer = new ESSourceBuffer();
+        }
+        buffer.reset();
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    public void release() {
+        inUse = false;
+        if (buf.length > MAX_RETAINED_SIZE && LOCAL.get() == this) {
+            LOCAL.remove();
+        }
+    }
+
+    /**
+     * 按实际长度拷贝出已写入的内容
+     */
+    public BytesArray toBytesArray() {
+        return new BytesArray(Arrays.copyOf(buf, count));
+    }
+
+    @Override
+    public void close() {
+        // 由 release 管理生命周期，XContentBuilder 关闭时不做处理
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+
+/**
+ * @ClassName ESValueCodec
+ * @Description 单个属性值的编解码
+ * @Author liyongbing
+ * @Date 2026/10/18 15:10
+ * @Version 1.0
+ **/
+public interface ESValueCodec {
+
+    /**
+     * 写入非空值
+     *
+     * @param builder 输出
+     * @param value   非空值
+     */
+    void write(XContentBuilder builder, Object value) throws IOException;
+
+    /**
+     * 读取当前token对应的值，调用时 parser 已指向值的首个token且不为 VALUE_NULL
+     *
+     * @param parser 输入
+     * @return 值
+     */
+    Object read(XContentParser parser) throws IOException;
+}
@@ -0,0 +1,387 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName ESValueCodecs
+ * @Description 内置属性编解码，输出格式与fastjson默认序列化保持一致(日期为毫秒数，枚举为name)
+ * @Author liyongbing
+ * @Date 2026/10/18 15:18
+ * @Version 1.0
+ **/
+public final class ESValueCodecs {
+
+    private ESValueCodecs() {
+    }
+
+    public static final ESValueCodec STRING = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(value.toString());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.text();
+        }
+    };
+
+    public static final ESValueCodec CHARACTER = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(value.toString());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            String text = parser.text();
+            return text.isEmpty() ? null : text.charAt(0);
+        }
+    };
+
+    public static final ESValueCodec INTEGER = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Number) value).intValue());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.intValue();
+        }
+    };
+
+    public static final ESValueCodec LONG = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Number) value).longValue());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.longValue();
+        }
+    };
+
+    public static final ESValueCodec SHORT = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Number) value).shortValue());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.shortValue();
+        }
+    };
+
+    public static final ESValueCodec BYTE = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Number) value).byteValue());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return (byte) parser.intValue();
+        }
+    };
+
+    public static final ESValueCodec FLOAT = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Number) value).floatValue());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.floatValue();
+        }
+    };
+
+    public static final ESValueCodec DOUBLE = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Number) value).doubleValue());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.doubleValue();
+        }
+    };
+
+    public static final ESValueCodec BOOLEAN = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value((boolean) (Boolean) value);
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return parser.booleanValue();
+        }
+    };
+
+    public static final ESValueCodec BIG_DECIMAL = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value((BigDecimal) value);
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return new BigDecimal(parser.text());
+        }
+    };
+
+    public static final ESValueCodec BIG_INTEGER = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value((BigInteger) value);
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return new BigInteger(parser.text());
+        }
+    };
+
+    /**
+     * fastjson 默认将 Date 写为毫秒数，读取时兼容字符串格式
+     */
+    public static final ESValueCodec DATE = new ESValueCodec() {
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Date) value).getTime());
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            if (parser.currentToken() == XContentParser.Token.VALUE_NUMBER) {
+                return new Date(parser.longValue());
+            }
+            return TypeUtils.castToDate(parser.text());
+        }
+    };
+
+    /**
+     * 获取类型对应的编解码
+     *
+     * @param type        属性类型
+     * @param genericType 属性泛型类型
+     * @return 编解码
+     */
+    public static ESValueCodec forType(Class<?> type, Type genericType) {
+        if (type == String.class) {
+            return STRING;
+        } else if (type == Integer.class || type == int.class) {
+            return INTEGER;
+        } else if (type == Long.class || type == long.class) {
+            return LONG;
+        } else if (type == Double.class || type == double.class) {
+            return DOUBLE;
+        } else if (type == Float.class || type == float.class) {
+            return FLOAT;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == Short.class || type == short.class) {
+            return SHORT;
+        } else if (type == Byte.class || type == byte.class) {
+            return BYTE;
+        } else if (type == Character.class || type == char.class) {
+            return CHARACTER;
+        } else if (type == BigDecimal.class) {
+            return BIG_DECIMAL;
+        } else if (type == BigInteger.class) {
+            return BIG_INTEGER;
+        } else if (type == Date.class) {
+            return DATE;
+        } else if (type.isEnum()) {
+            return new EnumCodec(type);
+        } else if (Collection.class.isAssignableFrom(type)) {
+            Supplier<Collection<Object>> factory = collectionFactory(type);
+            if (factory != null && genericType instanceof ParameterizedType) {
+                Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (elementType instanceof Class) {
+                    return new CollectionCodec(factory, forType((Class<?>) elementType, elementType));
+                }
+            }
+        } else if (isBean(type)) {
+            return new BeanCodec(type);
+        }
+        return new FallbackCodec(genericType);
+    }
+
+    /**
+     * 可由 {@link ESEntityCodec} 处理的普通实体类
+     */
+    public static boolean isBean(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface()
+                || Modifier.isAbstract(type.getModifiers())) {
+            return false;
+        }
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("com.alibaba.fastjson.")) {
+            return false;
+        }
+        try {
+            type.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Supplier<Collection<Object>> collectionFactory(Class<?> type) {
+        if (type.isAssignableFrom(ArrayList.class)) {
+            return ArrayList::new;
+        } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return LinkedHashSet::new;
+        } else if (type.isAssignableFrom(TreeSet.class)) {
+            return TreeSet::new;
+        } else if (type.isAssignableFrom(LinkedList.class)) {
+            return LinkedList::new;
+        }
+        return null;
+    }
+
+    private static class EnumCodec implements ESValueCodec {
+        private final Class<?> type;
+
+        EnumCodec(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.value(((Enum<?>) value).name());
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            if (parser.currentToken() == XContentParser.Token.VALUE_NUMBER) {
+                return type.getEnumConstants()[parser.intValue()];
+            }
+            return Enum.valueOf((Class) type, parser.text());
+        }
+    }
+
+    private static class CollectionCodec implements ESValueCodec {
+        private final Supplier<Collection<Object>> factory;
+        private final ESValueCodec elementCodec;
+
+        CollectionCodec(Supplier<Collection<Object>> factory, ESValueCodec elementCodec) {
+            this.factory = factory;
+            this.elementCodec = elementCodec;
+        }
+
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.startArray();
+            for (Object element : (Collection<?>) value) {
+                if (element == null) {
+                    builder.nullValue();
+                } else {
+                    elementCodec.write(builder, element);
+                }
+            }
+            builder.endArray();
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            Collection<Object> collection = factory.get();
+            if (parser.currentToken() != XContentParser.Token.START_ARRAY) {
+                // 单值按单元素集合处理
+                collection.add(elementCodec.read(parser));
+                return collection;
+            }
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                collection.add(token == XContentParser.Token.VALUE_NULL ? null : elementCodec.read(parser));
+            }
+            return collection;
+        }
+    }
+
+    /**
+     * 嵌套实体，首次使用时再解析对应的 {@link ESEntityCodec}，以支持自引用类型
+     */
+    private static class BeanCodec implements ESValueCodec {
+        private final Class<?> type;
+        private volatile ESEntityCodec<Object> codec;
+
+        BeanCodec(Class<?> type) {
+            this.type = type;
+        }
+
+        @SuppressWarnings("unchecked")
+        private ESEntityCodec<Object> codec() {
+            ESEntityCodec<Object> result = codec;
+            if (result == null) {
+                result = (ESEntityCodec<Object>) ESEntityCodec.of(type);
+                codec = result;
+            }
+            return result;
+        }
+
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            codec().encode(value, builder);
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            return codec().decode(parser);
+        }
+    }
+
+    /**
+     * 无法预编译的类型(Map、数组、接口等)交给fastjson处理
+     */
+    private static class FallbackCodec implements ESValueCodec {
+        private final Type type;
+
+        FallbackCodec(Type type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(XContentBuilder builder, Object value) throws IOException {
+            builder.rawValue(new ByteArrayInputStream(JSON.toJSONBytes(value)), XContentType.JSON);
+        }
+
+        @Override
+        public Object read(XContentParser parser) throws IOException {
+            Object value;
+            switch (parser.currentToken()) {
+                case START_OBJECT:
+                    value = parser.map();
+                    break;
+                case START_ARRAY:
+                    value = parser.list();
+                    break;
+                default:
+                    value = parser.objectText();
+            }
+            return TypeUtils.cast(value, type, ParserConfig.getGlobalInstance());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.orm.elasticsearch.core.enums;
+
+/**
+ * @ClassName ESMigrationMode
+ * @Description 索引迁移时的数据复制方式
+ * @Author liyongbing
+ * @Date 2026/10/18 18:50
+ * @Version 1.0
+ **/
+public enum ESMigrationMode {
+    /**
+     * 服务端 _reindex，以后台任务方式执行并轮询进度
+     */
+    REINDEX,
+    /**
+     * 客户端 sliced scroll 读取，经批量写入管道写入新索引，适用于禁用 _reindex 或需要跨集群处理的场景
+     */
+    SCROLL_BULK,
+    ;
+}
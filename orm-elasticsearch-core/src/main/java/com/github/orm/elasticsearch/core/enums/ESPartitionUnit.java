@@ -0,0 +1,52 @@
+package com.github.orm.elasticsearch.core.enums;
+
+import java.time.LocalDate;
+
+/**
+ * @ClassName ESPartitionUnit
+ * @Description 时间分区粒度，分区索引名为 索引名-日期
+ * @Author liyongbing
+ * @Date 2026/10/18 20:05
+ * @Version 1.0
+ **/
+public enum ESPartitionUnit {
+    DAY("yyyy.MM.dd") {
+        @Override
+        public LocalDate floor(LocalDate date) {
+            return date;
+        }
+
+        @Override
+        public LocalDate next(LocalDate date) {
+            return date.plusDays(1);
+        }
+    },
+    MONTH("yyyy.MM") {
+        @Override
+        public LocalDate floor(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+
+        @Override
+        public LocalDate next(LocalDate date) {
+            return date.plusMonths(1);
+        }
+    },
+    ;
+
+    ESPartitionUnit(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String pattern;
+
+    /**
+     * 所在分区的起始日期
+     */
+    public abstract LocalDate floor(LocalDate date);
+
+    /**
+     * 下一个分区的起始日期
+     */
+    public abstract LocalDate next(LocalDate date);
+}
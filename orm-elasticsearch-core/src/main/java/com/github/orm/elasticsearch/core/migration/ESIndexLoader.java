@@ -0,0 +1,141 @@
+package com.github.orm.elasticsearch.core.migration;
+
+import com.github.orm.elasticsearch.core.base.ElasticsearchUtils;
+import com.github.orm.elasticsearch.core.bulk.ESBulkItemResult;
+import com.github.orm.elasticsearch.core.bulk.ESBulkProcessor;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.settings.Settings;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @ClassName ESIndexLoader
+ * @Description 全量导入：写入一个关闭刷新、无副本的新索引，不影响线上查询，完成后恢复配置并原子切换读写别名。
+ * 导入期间原索引保持写锁，避免切换时丢失这段时间写入原索引的数据；切换后保留的原索引及放弃导入时解除写锁。
+ * 未调用 {@link #promote()} 就关闭时删除新索引
+ * @Author liyongbing
+ * @Date 2026/10/18 19:40
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESIndexLoader<T> implements Closeable {
+
+    private final ESIndexMigrator migrator;
+    private final ElasticsearchUtils elasticsearchUtils;
+    private final ESEntityCodec<T> codec;
+    private final ESBulkProcessor processor;
+    private final String index;
+    private final Settings restore;
+    /**
+     * 导入期间加了写锁的原索引
+     */
+    private final Set<String> sources;
+    private final String alias;
+    private final String writeAlias;
+    private final Runnable onPromoted;
+
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean finished;
+
+    public ESIndexLoader(ESIndexMigrator migrator, ElasticsearchUtils elasticsearchUtils, ESEntityCodec<T> codec,
+                         ESBulkProcessor processor, String index, Settings restore, Set<String> sources, String alias,
+                         String writeAlias, Runnable onPromoted) {
+        this.migrator = migrator;
+        this.elasticsearchUtils = elasticsearchUtils;
+        this.codec = codec;
+        this.processor = processor;
+        this.index = index;
+        this.restore = restore;
+        this.sources = sources;
+        this.alias = alias;
+        this.writeAlias = writeAlias;
+        this.onPromoted = onPromoted;
+    }
+
+    /**
+     * 导入中的新索引名称
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public CompletableFuture<ESBulkItemResult> add(T genericInstance) {
+        return processor.add(ElasticsearchUtils.buildIndexRequest(index, codec.getId(genericInstance), genericInstance, codec)
+                .routing(codec.getRouting(genericInstance)))
+                .whenComplete((result, e) -> {
+                    if (e != null || result.isFailed()) {
+                        failed.incrementAndGet();
+                    } else {
+                        loaded.incrementAndGet();
+                    }
+                });
+    }
+
+    public void addAll(Collection<T> list) {
+        list.forEach(this::add);
+    }
+
+    /**
+     * 等待全部写入完成，恢复刷新及副本配置后切换读写别名至新索引，原索引仅移除别名并解除写锁
+     */
+    public void promote() {
+        promote(false);
+    }
+
+    /**
+     * @param deleteOldIndex 是否删除原索引
+     */
+    public void promote(boolean deleteOldIndex) {
+        if (finished) {
+            throw new IllegalStateException("loader is already finished");
+        }
+        processor.close();
+        if (failed.get() > 0) {
+            throw new ElasticsearchException("导入索引 {" + index + "} 失败 " + failed.get() + " 条，未切换别名");
+        }
+        elasticsearchUtils.putIndexSettings(index, restore);
+        migrator.refresh(index);
+        Set<String> remaining = new HashSet<>(sources);
+        remaining.removeAll(migrator.promote(alias, writeAlias, index, deleteOldIndex));
+        finished = true;
+        migrator.blockWrites(remaining, false);
+        if (onPromoted != null) {
+            onPromoted.run();
+        }
+        log.info("index loaded, alias: [{}], index: [{}], {} docs", alias, index, loaded.get());
+    }
+
+    /**
+     * 放弃导入，解除原索引写锁并删除新索引
+     */
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        processor.close();
+        migrator.blockWrites(sources, false);
+        elasticsearchUtils.deleteIndexRequest(index);
+    }
+
+    @Override
+    public void close() {
+        abort();
+    }
+}
@@ -0,0 +1,510 @@
+package com.github.orm.elasticsearch.core.migration;
+
+import com.github.orm.elasticsearch.core.base.ESScrollIterator;
+import com.github.orm.elasticsearch.core.base.ElasticsearchUtils;
+import com.github.orm.elasticsearch.core.bulk.ESBulkProcessor;
+import com.github.orm.elasticsearch.core.enums.ESMigrationMode;
+import com.github.orm.elasticsearch.core.setting.ESClassSetting;
+import com.github.orm.elasticsearch.core.setting.ESMigrationSetting;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.tasks.GetTaskRequest;
+import org.elasticsearch.client.tasks.GetTaskResponse;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.tasks.RawTaskStatus;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * @ClassName ESIndexMigrator
+ * @Description 索引迁移：按当前映射创建版本化索引(别名_v时间戳)，复制数据后原子切换别名，复制期间读写仍由原索引提供服务。
+ * 复制完成后对原索引加写锁，按复制前记录的各分片 _seq_no 补齐复制期间的写入，校验条数一致后切换别名并解除写锁；
+ * 加锁期间写入原索引会被拒绝(cluster_block_exception)，由调用方重试
+ * @Author liyongbing
+ * @Date 2026/10/18 19:05
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESIndexMigrator {
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+    private static final String WRITE_BLOCK = "index.blocks.write";
+
+    private final ElasticsearchUtils elasticsearchUtils;
+    private final RequestOptions options;
+
+    public ESIndexMigrator(ElasticsearchUtils elasticsearchUtils) {
+        this(elasticsearchUtils, elasticsearchUtils.getRequestOptions().getAdmin());
+    }
+
+    public ESIndexMigrator(ElasticsearchUtils elasticsearchUtils, RequestOptions options) {
+        this.elasticsearchUtils = elasticsearchUtils;
+        this.options = options;
+    }
+
+    private RestHighLevelClient getClient() {
+        return elasticsearchUtils.getClient();
+    }
+
+    /**
+     * 迁移别名(或同名索引)中的数据至按 clazz 当前映射新建的索引，校验通过后原子切换别名。
+     * 原先为同名实际索引时，切换的同时删除该索引并以别名替代
+     *
+     * @param alias        读写使用的索引名称
+     * @param clazz        实体类型
+     * @param classSetting 新索引的settings
+     * @param setting      迁移配置
+     * @param listener     进度回调，可为空
+     * @return 新索引名称
+     */
+    public String migrate(String alias, Class<?> clazz, ESClassSetting classSetting, ESMigrationSetting setting,
+                          Consumer<ESMigrationProgress> listener) {
+        return migrate(alias, null, clazz, classSetting, setting, listener);
+    }
+
+    /**
+     * @param writeAlias 写别名，不为空时一并切换至新索引并设为 is_write_index
+     */
+    public String migrate(String alias, String writeAlias, Class<?> clazz, ESClassSetting classSetting,
+                          ESMigrationSetting setting, Consumer<ESMigrationProgress> listener) {
+        Set<String> sources = resolveIndices(alias);
+        String target = createVersionedIndex(alias, clazz, classSetting);
+        if (sources.isEmpty()) {
+            promote(alias, writeAlias, target, setting.isDeleteOldIndex());
+            return target;
+        }
+        ESMigrationProgress progress = new ESMigrationProgress()
+                .setSourceIndex(String.join(",", sources))
+                .setTargetIndex(target)
+                .setTotal(count(sources));
+        long start = System.currentTimeMillis();
+        // 先记录检查点再开始复制，复制期间的写入 _seq_no 一定大于检查点
+        Map<String, long[]> checkpoints = maxSeqNos(sources);
+        Settings restore = setting.isDisableRefreshDuringCopy() ? prepareForBulkLoad(target) : null;
+        try {
+            if (setting.getMode() == ESMigrationMode.SCROLL_BULK) {
+                scrollBulk(sources, target, setting, progress, start, listener);
+            } else {
+                reindex(sources, target, setting, progress, start, listener);
+            }
+        } finally {
+            if (restore != null) {
+                elasticsearchUtils.putIndexSettings(target, restore);
+            }
+        }
+        blockWrites(sources, true);
+        Set<String> removed = Collections.emptySet();
+        try {
+            catchUp(sources, target, checkpoints, setting, progress, start, listener);
+            verify(sources, target, progress);
+            removed = promote(alias, writeAlias, target, setting.isDeleteOldIndex());
+        } finally {
+            // 切换后保留的原索引同样解除写锁，便于回滚
+            Set<String> remaining = new HashSet<>(sources);
+            remaining.removeAll(removed);
+            blockWrites(remaining, false);
+        }
+        return target;
+    }
+
+    /**
+     * 别名指向的实际索引，不是别名时返回同名的实际索引，均不存在时返回空集合
+     */
+    public Set<String> resolveIndices(String alias) {
+        Set<String> indices = elasticsearchUtils.getAliasIndices(alias);
+        if (indices.isEmpty() && elasticsearchUtils.existIndex(alias)) {
+            return Collections.singleton(alias);
+        }
+        return indices;
+    }
+
+    /**
+     * 按当前映射创建版本化索引 别名_v时间戳，可同时挂载别名
+     *
+     * @return 新索引名称
+     */
+    public String createVersionedIndex(String alias, Class<?> clazz, ESClassSetting classSetting, Alias... aliases) {
+        String index = alias + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+        elasticsearchUtils.createIndexRequest(index, clazz, classSetting, aliases);
+        return index;
+    }
+
+    /**
+     * 写别名不存在且读别名只指向一个索引时，为该索引补充写别名
+     */
+    public void ensureWriteAlias(String alias, String writeAlias) {
+        if (!elasticsearchUtils.getAliasIndices(writeAlias).isEmpty()) {
+            return;
+        }
+        Set<String> indices = elasticsearchUtils.getAliasIndices(alias);
+        if (indices.size() != 1) {
+            throw new ElasticsearchException("别名 {" + alias + "} 指向 " + indices + "，无法确定写索引");
+        }
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        request.addAliasAction(AliasActions.add().index(indices.iterator().next()).alias(writeAlias).writeIndex(true));
+        updateAliases(request, writeAlias);
+    }
+
+    /**
+     * 批量导入前关闭刷新、副本数置0，返回用于恢复的原配置
+     */
+    public Settings prepareForBulkLoad(String index) {
+        String refreshInterval = elasticsearchUtils.getIndexSetting(index, "index.refresh_interval");
+        String replicas = elasticsearchUtils.getIndexSetting(index, "index.number_of_replicas");
+        Settings.Builder restore = Settings.builder();
+        if (refreshInterval != null) {
+            restore.put("index.refresh_interval", refreshInterval);
+        } else {
+            restore.putNull("index.refresh_interval");
+        }
+        if (replicas != null) {
+            restore.put("index.number_of_replicas", replicas);
+        }
+        elasticsearchUtils.putIndexSettings(index, Settings.builder()
+                .put("index.refresh_interval", "-1")
+                .put("index.number_of_replicas", 0)
+                .build());
+        return restore.build();
+    }
+
+    public void refresh(String index) {
+        try {
+            getClient().indices().refresh(new RefreshRequest(index), options);
+        } catch (IOException e) {
+            throw new ElasticsearchException("刷新索引 {" + index + "} 失败", e);
+        }
+    }
+
+    /**
+     * 设置或解除索引写锁，加锁后的写入请求返回 cluster_block_exception
+     */
+    public void blockWrites(Collection<String> indices, boolean blocked) {
+        for (String index : indices) {
+            elasticsearchUtils.putIndexSettings(index, blocked
+                    ? Settings.builder().put(WRITE_BLOCK, true).build()
+                    : Settings.builder().putNull(WRITE_BLOCK).build());
+        }
+    }
+
+    /**
+     * 各索引每个分片当前最大的 _seq_no，空分片为 -1
+     */
+    private Map<String, long[]> maxSeqNos(Set<String> indices) {
+        Map<String, long[]> checkpoints = new HashMap<>();
+        for (String index : indices) {
+            long[] seqNos = new long[Integer.parseInt(elasticsearchUtils.getIndexSetting(index, "index.number_of_shards"))];
+            for (int shard = 0; shard < seqNos.length; shard++) {
+                SearchRequest request = new SearchRequest(index).preference("_shards:" + shard)
+                        .source(new SearchSourceBuilder().size(1).fetchSource(false).trackTotalHits(false)
+                                .sort(SortBuilders.fieldSort("_seq_no").order(SortOrder.DESC)));
+                try {
+                    SearchHit[] hits = getClient().search(request, options).getHits().getHits();
+                    seqNos[shard] = hits.length > 0 ? ((Number) hits[0].getSortValues()[0]).longValue() : -1L;
+                } catch (IOException e) {
+                    throw new ElasticsearchException("读取索引 {" + index + "} 分片 " + shard + " 的 _seq_no 失败", e);
+                }
+            }
+            checkpoints.put(index, seqNos);
+        }
+        return checkpoints;
+    }
+
+    /**
+     * 原索引加写锁后，把各分片 _seq_no 大于检查点的文档(复制期间新增或修改)重新写入新索引
+     */
+    private void catchUp(Set<String> sources, String target, Map<String, long[]> checkpoints, ESMigrationSetting setting,
+                         ESMigrationProgress progress, long start, Consumer<ESMigrationProgress> listener) {
+        AtomicLong copied = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ESBulkProcessor processor = new ESBulkProcessor(elasticsearchUtils.getBulkClient(), elasticsearchUtils.getRequestOptions().getBulk(), setting.getBulkSetting(), target);
+        try {
+            for (String index : sources) {
+                long[] seqNos = checkpoints.get(index);
+                for (int shard = 0; shard < seqNos.length; shard++) {
+                    SearchSourceBuilder source = new SearchSourceBuilder().size(setting.getBatchSize())
+                            .query(QueryBuilders.rangeQuery("_seq_no").gt(seqNos[shard]))
+                            .sort(SortBuilders.fieldSort("_doc"));
+                    copyHits(new SearchRequest(index).preference("_shards:" + shard).source(source), target, 0, processor, copied, failed);
+                }
+            }
+            processor.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("补齐索引 {" + target + "} 被中断", e);
+        } finally {
+            processor.close();
+        }
+        if (copied.get() > 0 || failed.get() > 0) {
+            log.info("index catch up [{}] -> [{}], {} copied, {} failed", progress.getSourceIndex(), target, copied.get(), failed.get());
+        }
+        report(progress.setCopied(progress.getCopied() + copied.get()).setFailed(progress.getFailed() + failed.get()), start, listener);
+    }
+
+    /**
+     * 在一次别名操作中把读别名(及写别名)切换至 target：原索引与别名同名或 deleteOldIndex 时删除原索引，否则只移除别名
+     *
+     * @param alias          读别名
+     * @param writeAlias     写别名，可为空
+     * @param target         新索引
+     * @param deleteOldIndex 是否删除原索引
+     * @return 被删除的原索引
+     */
+    public Set<String> promote(String alias, String writeAlias, String target, boolean deleteOldIndex) {
+        Set<String> sources = elasticsearchUtils.getAliasIndices(alias);
+        boolean concrete = sources.isEmpty() && elasticsearchUtils.existIndex(alias);
+        if (concrete) {
+            sources = Collections.singleton(alias);
+        }
+        Set<String> removed = new HashSet<>();
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        for (String source : sources) {
+            if (source.equals(target)) {
+                continue;
+            }
+            if (concrete || deleteOldIndex) {
+                request.addAliasAction(AliasActions.removeIndex().index(source));
+                removed.add(source);
+            } else {
+                request.addAliasAction(AliasActions.remove().index(source).alias(alias));
+            }
+        }
+        request.addAliasAction(AliasActions.add().index(target).alias(alias));
+        if (writeAlias != null) {
+            for (String index : elasticsearchUtils.getAliasIndices(writeAlias)) {
+                if (!removed.contains(index) && !index.equals(target)) {
+                    request.addAliasAction(AliasActions.remove().index(index).alias(writeAlias));
+                }
+            }
+            request.addAliasAction(AliasActions.add().index(target).alias(writeAlias).writeIndex(true));
+        }
+        updateAliases(request, alias);
+        log.info("index promoted, alias: [{}], from: {}, to: [{}]", alias, sources, target);
+        return removed;
+    }
+
+    private void updateAliases(IndicesAliasesRequest request, String alias) {
+        try {
+            getClient().indices().updateAliases(request, options);
+        } catch (IOException e) {
+            throw new ElasticsearchException("更新别名 {" + alias + "} 失败", e);
+        }
+    }
+
+    private void reindex(Set<String> sources, String target, ESMigrationSetting setting, ESMigrationProgress progress,
+                         long start, Consumer<ESMigrationProgress> listener) {
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(sources.toArray(new String[0]))
+                .setDestIndex(target)
+                .setSourceBatchSize(setting.getBatchSize())
+                .setSlices(setting.getSlices() > 0 ? setting.getSlices() : AbstractBulkByScrollRequest.AUTO_SLICES);
+        if (setting.getRequestsPerSecond() > 0) {
+            request.setRequestsPerSecond(setting.getRequestsPerSecond());
+        }
+        TaskId taskId;
+        try {
+            taskId = new TaskId(getClient().submitReindexTask(request, options).getTask());
+        } catch (IOException e) {
+            throw new ElasticsearchException("提交 reindex 任务 {" + target + "} 失败", e);
+        }
+        try {
+            while (true) {
+                Thread.sleep(setting.getProgressIntervalMillis());
+                Optional<GetTaskResponse> response = getClient().tasks()
+                        .get(new GetTaskRequest(taskId.getNodeId(), taskId.getId()), options);
+                if (!response.isPresent()) {
+                    throw new ElasticsearchException("reindex 任务 {" + taskId + "} 不存在");
+                }
+                Map<String, Object> status = statusMap(response.get().getTaskInfo().getStatus());
+                long total = longValue(status, "total");
+                if (total > 0) {
+                    progress.setTotal(total);
+                }
+                progress.setCopied(longValue(status, "created") + longValue(status, "updated"))
+                        .setFailed(longValue(status, "version_conflicts"))
+                        .setDone(response.get().isCompleted());
+                report(progress, start, listener);
+                if (progress.isDone()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(taskId);
+            throw new ElasticsearchException("reindex 任务 {" + taskId + "} 被中断", e);
+        } catch (IOException e) {
+            throw new ElasticsearchException("查询 reindex 任务 {" + taskId + "} 失败", e);
+        }
+    }
+
+    private static Map<String, Object> statusMap(Task.Status status) {
+        if (status instanceof RawTaskStatus) {
+            return ((RawTaskStatus) status).toMap();
+        }
+        return Collections.emptyMap();
+    }
+
+    private static long longValue(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private void cancel(TaskId taskId) {
+        try {
+            CancelTasksRequest request = new CancelTasksRequest();
+            request.setTaskId(taskId);
+            getClient().tasks().cancel(request, options);
+        } catch (Exception e) {
+            log.warn("cancel reindex task {} error", taskId, e);
+        }
+    }
+
+    private void scrollBulk(Set<String> sources, String target, ESMigrationSetting setting, ESMigrationProgress progress,
+                            long start, Consumer<ESMigrationProgress> listener) {
+        int slices = setting.getSlices() > 0 ? setting.getSlices()
+                : Math.max(1, Integer.parseInt(elasticsearchUtils.getIndexSetting(target, "index.number_of_shards")));
+        AtomicLong copied = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ESBulkProcessor processor = new ESBulkProcessor(elasticsearchUtils.getBulkClient(), elasticsearchUtils.getRequestOptions().getBulk(), setting.getBulkSetting(), target);
+        ExecutorService executor = Executors.newFixedThreadPool(slices);
+        try {
+            List<Future<?>> futures = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                int slice = i;
+                futures.add(executor.submit(() -> {
+                    copySlice(sources, target, slice, slices, setting, processor, copied, failed);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(setting.getProgressIntervalMillis(), TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        report(progress.setCopied(copied.get()).setFailed(failed.get()), start, listener);
+                    }
+                }
+            }
+            processor.close();
+            report(progress.setCopied(copied.get()).setFailed(failed.get()).setDone(true), start, listener);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("迁移索引 {" + target + "} 被中断", e);
+        } catch (ExecutionException e) {
+            throw new ElasticsearchException("迁移索引 {" + target + "} 失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            processor.close();
+        }
+    }
+
+    private void copySlice(Set<String> sources, String target, int slice, int slices, ESMigrationSetting setting,
+                           ESBulkProcessor processor, AtomicLong copied, AtomicLong failed) throws InterruptedException {
+        SearchSourceBuilder source = new SearchSourceBuilder().size(setting.getBatchSize()).sort(SortBuilders.fieldSort("_doc"));
+        if (slices > 1) {
+            source.slice(new SliceBuilder(slice, slices));
+        }
+        SearchRequest request = new SearchRequest(sources.toArray(new String[0])).source(source);
+        // 限流按slice均分
+        double rate = setting.getRequestsPerSecond() > 0 ? setting.getRequestsPerSecond() / (double) slices : 0;
+        copyHits(request, target, rate, processor, copied, failed);
+    }
+
+    /**
+     * 滚动读取 request 的命中写入 target，保留 _id 及 _routing
+     *
+     * @param rate 每秒写入上限，小于等于0时不限流
+     */
+    private void copyHits(SearchRequest request, String target, double rate, ESBulkProcessor processor,
+                          AtomicLong copied, AtomicLong failed) throws InterruptedException {
+        long begin = System.nanoTime();
+        long sent = 0;
+        try (ESScrollIterator<SearchHit> iterator = new ESScrollIterator<>(getClient(), options, request, SCROLL_KEEP_ALIVE, Function.identity())) {
+            while (iterator.hasNext()) {
+                SearchHit hit = iterator.next();
+                IndexRequest indexRequest = new IndexRequest(target).id(hit.getId()).source(hit.getSourceRef(), XContentType.JSON);
+                DocumentField routing = hit.field("_routing");
+                if (routing != null && routing.getValue() != null) {
+                    indexRequest.routing(routing.getValue().toString());
+                }
+                processor.add(indexRequest).whenComplete((result, e) -> {
+                    if (e != null || result.isFailed()) {
+                        failed.incrementAndGet();
+                    } else {
+                        copied.incrementAndGet();
+                    }
+                });
+                sent++;
+                if (rate > 0) {
+                    long waitMillis = (long) (sent * 1000D / rate) - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                    if (waitMillis > 0) {
+                        Thread.sleep(waitMillis);
+                    }
+                }
+            }
+        }
+    }
+
+    private void report(ESMigrationProgress progress, long start, Consumer<ESMigrationProgress> listener) {
+        progress.setElapsedMillis(System.currentTimeMillis() - start);
+        if (listener != null) {
+            listener.accept(progress);
+        } else {
+            log.info("index migrating [{}] -> [{}], {}/{} copied, {} failed", progress.getSourceIndex(),
+                    progress.getTargetIndex(), progress.getCopied(), progress.getTotal(), progress.getFailed());
+        }
+    }
+
+    /**
+     * 原索引已加写锁，两边条数必须完全一致：新索引较少为复制不完整，较多为复制期间原索引删除了文档(删除无法补齐)。
+     * 校验失败时不切换别名，保留新索引以便排查
+     */
+    private void verify(Set<String> sources, String target, ESMigrationProgress progress) {
+        refresh(target);
+        long expected = count(sources);
+        long actual = count(Collections.singleton(target));
+        if (progress.getFailed() > 0 || actual != expected) {
+            throw new ElasticsearchException("迁移索引 {" + target + "} 与源索引不一致，源索引 " + expected + " 条，新索引 "
+                    + actual + " 条，失败 " + progress.getFailed() + " 条，未切换别名");
+        }
+    }
+
+    private long count(Set<String> indices) {
+        try {
+            return getClient().count(new CountRequest(indices.toArray(new String[0])), options).getCount();
+        } catch (IOException e) {
+            throw new ElasticsearchException("统计索引 {" + indices + "} 文档数失败", e);
+        }
+    }
+}
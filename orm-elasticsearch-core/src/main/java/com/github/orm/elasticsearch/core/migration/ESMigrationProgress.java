@@ -0,0 +1,43 @@
+package com.github.orm.elasticsearch.core.migration;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESMigrationProgress
+ * @Description 索引迁移进度
+ * @Author liyongbing
+ * @Date 2026/10/18 18:55
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESMigrationProgress {
+
+    private String sourceIndex;
+
+    private String targetIndex;
+
+    /**
+     * 开始复制时源索引的文档总数
+     */
+    private long total;
+
+    /**
+     * 已写入新索引的文档数
+     */
+    private long copied;
+
+    /**
+     * 写入失败的文档数
+     */
+    private long failed;
+
+    private long elapsedMillis;
+
+    private boolean done;
+
+    public double getPercent() {
+        return total > 0 ? Math.min(100D, copied * 100D / total) : (done ? 100D : 0D);
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.orm.elasticsearch.core.query;
+
+import com.github.orm.elasticsearch.core.enums.ESFieldType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @ClassName ESFieldMeta
+ * @Description 查询字段的mapping信息，由实体 {@link com.github.orm.elasticsearch.core.annotation.ESField} 推导
+ * @Author liyongbing
+ * @Date 2026/10/18 23:32
+ * @Version 1.0
+ **/
+public final class ESFieldMeta {
+
+    private final String path;
+    /**
+     * 未标注且无法推导类型时为 null，即由集群动态mapping
+     */
+    private final ESFieldType fieldType;
+    private final String rawName;
+    /**
+     * 路径上经过的 nested 字段，由外到内
+     */
+    private final List<String> nestedPaths;
+
+    ESFieldMeta(String path, ESFieldType fieldType, String rawName, List<String> nestedPaths) {
+        this.path = path;
+        this.fieldType = fieldType;
+        this.rawName = rawName;
+        this.nestedPaths = Collections.unmodifiableList(nestedPaths);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public ESFieldType getFieldType() {
+        return fieldType;
+    }
+
+    public List<String> getNestedPaths() {
+        return nestedPaths;
+    }
+
+    public boolean isText() {
+        return fieldType == ESFieldType.TEXT;
+    }
+
+    public boolean isObject() {
+        return fieldType == ESFieldType.OBJECT || fieldType == ESFieldType.NESTED || fieldType == ESFieldType.GEO_POINT;
+    }
+
+    /**
+     * 精确匹配、排序及聚合使用的字段名：text 字段为其 keyword 子字段，未配置 textRaw 时为 null
+     */
+    public String getKeywordPath() {
+        if (!isText()) {
+            return path;
+        }
+        return rawName != null ? path + "." + rawName : null;
+    }
+
+    @Override
+    public String toString() {
+        return path + "(" + (fieldType != null ? fieldType.typeName : "dynamic") + ")";
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.orm.elasticsearch.core.query;
+
+import com.github.orm.elasticsearch.core.base.ReflectionUtils;
+import com.github.orm.elasticsearch.core.enums.ESFieldType;
+
+import java.beans.Introspector;
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @ClassName ESFieldMetas
+ * @Description 按实体类解析字段路径及getter方法引用，与 {@link com.github.orm.elasticsearch.core.base.ESClassLoopMapping} 生成的mapping保持一致，结果缓存
+ * @Author liyongbing
+ * @Date 2026/10/18 23:36
+ * @Version 1.0
+ **/
+public final class ESFieldMetas {
+
+    private static final ConcurrentHashMap<String, ESFieldMeta> PATH_CACHE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, String> REF_CACHE = new ConcurrentHashMap<>();
+
+    private ESFieldMetas() {
+    }
+
+    /**
+     * @param path 属性名，对象字段内的属性以 . 连接，如 address.city
+     * @throws IllegalArgumentException 属性不存在
+     */
+    public static ESFieldMeta resolve(Class<?> type, String path) {
+        return PATH_CACHE.computeIfAbsent(type.getName() + "#" + path, key -> doResolve(type, path));
+    }
+
+    public static ESFieldMeta resolve(Class<?> type, ESFieldRef<?, ?> ref) {
+        return resolve(type, propertyName(ref));
+    }
+
+    /**
+     * 由 getter 方法引用得到属性名，getXxx/isXxx 去掉前缀后首字母小写
+     */
+    public static String propertyName(ESFieldRef<?, ?> ref) {
+        return REF_CACHE.computeIfAbsent(ref.getClass(), key -> {
+            String method = serializedLambda(ref).getImplMethodName();
+            if (method.startsWith("get") && method.length() > 3) {
+                return Introspector.decapitalize(method.substring(3));
+            }
+            if (method.startsWith("is") && method.length() > 2) {
+                return Introspector.decapitalize(method.substring(2));
+            }
+            throw new IllegalArgumentException("{" + method + "} 不是getter方法引用");
+        });
+    }
+
+    private static SerializedLambda serializedLambda(ESFieldRef<?, ?> ref) {
+        try {
+            Method writeReplace = ref.getClass().getDeclaredMethod("writeReplace");
+            writeReplace.setAccessible(true);
+            return (SerializedLambda) writeReplace.invoke(ref);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("字段引用只支持getter方法引用，如 User::getName", e);
+        }
+    }
+
+    private static ESFieldMeta doResolve(Class<?> type, String path) {
+        String[] segments = path.split("\\.");
+        List<String> nestedPaths = new ArrayList<>();
+        Class<?> current = type;
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            Field field = findField(current, segments[i]);
+            if (field == null) {
+                throw new IllegalArgumentException("{" + type.getName() + "} 不存在属性 {" + path + "}");
+            }
+            if (prefix.length() > 0) {
+                prefix.append('.');
+            }
+            prefix.append(segments[i]);
+            ReflectionUtils.ESFieldData data = ReflectionUtils.getESFieldData(field);
+            if (i == segments.length - 1) {
+                String rawName = data.getFieldType() == ESFieldType.TEXT && data.isTextRaw() ? data.getTextRawName() : null;
+                return new ESFieldMeta(path, data.getFieldType(), rawName, nestedPaths);
+            }
+            if (data.getFieldType() == ESFieldType.NESTED) {
+                nestedPaths.add(prefix.toString());
+            }
+            current = ReflectionUtils.getTypeOrCollectionRealType(field);
+        }
+        throw new IllegalArgumentException("属性 {" + path + "} 为空");
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> clazz = type; clazz != null && !clazz.equals(Object.class); clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.orm.elasticsearch.core.query;
+
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * @ClassName ESFieldRef
+ * @Description 以getter方法引用指定实体字段，如 {@code User::getName}，字段名由 {@link ESFieldMetas} 解析
+ * @Author liyongbing
+ * @Date 2026/10/18 23:30
+ * @Version 1.0
+ **/
+@FunctionalInterface
+public interface ESFieldRef<T, R> extends Function<T, R>, Serializable {
+}
@@ -0,0 +1,341 @@
+package com.github.orm.elasticsearch.core.query;
+
+import com.github.orm.elasticsearch.core.base.ESSort;
+import org.apache.lucene.search.join.ScoreMode;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.NestedSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @ClassName ESQuery
+ * @Description 按实体字段mapping构建查询及排序：
+ * <ul>
+ * <li>精确匹配、范围、存在性条件放在 filter 中，不计算评分且可被集群缓存</li>
+ * <li>text 字段的精确匹配、排序使用 textRaw 子字段，未配置时拒绝，全文匹配使用 match 并计算评分</li>
+ * <li>nested 字段内的条件自动包装为 nested 查询</li>
+ * </ul>
+ * 字段可用getter方法引用或属性路径指定，不存在的字段在构建时即抛出 IllegalArgumentException
+ * @Author liyongbing
+ * @Date 2026/10/18 23:45
+ * @Version 1.0
+ **/
+public class ESQuery<T> {
+
+    private final Class<T> type;
+    private final BoolQueryBuilder bool = QueryBuilders.boolQuery();
+    private final ESSort sort = new ESSort();
+    private boolean empty = true;
+
+    private ESQuery(Class<T> type) {
+        this.type = type;
+    }
+
+    public static <T> ESQuery<T> of(Class<T> type) {
+        return new ESQuery<>(type);
+    }
+
+    public ESFieldMeta field(ESFieldRef<T, ?> field) {
+        return ESFieldMetas.resolve(type, field);
+    }
+
+    public ESFieldMeta field(String path) {
+        return ESFieldMetas.resolve(type, path);
+    }
+
+    /**
+     * 聚合使用的字段名，text 字段为其 keyword 子字段
+     */
+    public String aggField(ESFieldRef<T, ?> field) {
+        return keywordPath(field(field), "聚合");
+    }
+
+    public String aggField(String path) {
+        return keywordPath(field(path), "聚合");
+    }
+
+    public ESQuery<T> eq(ESFieldRef<T, ?> field, Object value) {
+        return eq(field(field), value);
+    }
+
+    public ESQuery<T> eq(String path, Object value) {
+        return eq(field(path), value);
+    }
+
+    public ESQuery<T> notEq(ESFieldRef<T, ?> field, Object value) {
+        return notEq(field(field), value);
+    }
+
+    public ESQuery<T> notEq(String path, Object value) {
+        return notEq(field(path), value);
+    }
+
+    public ESQuery<T> in(ESFieldRef<T, ?> field, Collection<?> values) {
+        return in(field(field), values);
+    }
+
+    public ESQuery<T> in(String path, Collection<?> values) {
+        return in(field(path), values);
+    }
+
+    /**
+     * 全文匹配，text 字段计算评分，其他字段等同 {@link #eq(String, Object)}
+     */
+    public ESQuery<T> match(ESFieldRef<T, ?> field, String text) {
+        return match(field(field), text);
+    }
+
+    public ESQuery<T> match(String path, String text) {
+        return match(field(path), text);
+    }
+
+    public ESQuery<T> prefix(ESFieldRef<T, ?> field, String prefix) {
+        return prefix(field(field), prefix);
+    }
+
+    public ESQuery<T> prefix(String path, String prefix) {
+        return prefix(field(path), prefix);
+    }
+
+    public ESQuery<T> gt(ESFieldRef<T, ?> field, Object value) {
+        return range(field(field), value, false, null, false);
+    }
+
+    public ESQuery<T> gt(String path, Object value) {
+        return range(field(path), value, false, null, false);
+    }
+
+    public ESQuery<T> gte(ESFieldRef<T, ?> field, Object value) {
+        return range(field(field), value, true, null, false);
+    }
+
+    public ESQuery<T> gte(String path, Object value) {
+        return range(field(path), value, true, null, false);
+    }
+
+    public ESQuery<T> lt(ESFieldRef<T, ?> field, Object value) {
+        return range(field(field), null, false, value, false);
+    }
+
+    public ESQuery<T> lt(String path, Object value) {
+        return range(field(path), null, false, value, false);
+    }
+
+    public ESQuery<T> lte(ESFieldRef<T, ?> field, Object value) {
+        return range(field(field), null, false, value, true);
+    }
+
+    public ESQuery<T> lte(String path, Object value) {
+        return range(field(path), null, false, value, true);
+    }
+
+    /**
+     * 闭区间 [from, to]，为 null 的一端不限制
+     */
+    public ESQuery<T> between(ESFieldRef<T, ?> field, Object from, Object to) {
+        return range(field(field), from, true, to, true);
+    }
+
+    public ESQuery<T> between(String path, Object from, Object to) {
+        return range(field(path), from, true, to, true);
+    }
+
+    public ESQuery<T> exists(ESFieldRef<T, ?> field) {
+        return exists(field(field), true);
+    }
+
+    public ESQuery<T> exists(String path) {
+        return exists(field(path), true);
+    }
+
+    public ESQuery<T> notExists(ESFieldRef<T, ?> field) {
+        return exists(field(field), false);
+    }
+
+    public ESQuery<T> notExists(String path) {
+        return exists(field(path), false);
+    }
+
+    /**
+     * 追加自定义条件，不计算评分
+     */
+    public ESQuery<T> filter(QueryBuilder query) {
+        bool.filter(query);
+        empty = false;
+        return this;
+    }
+
+    /**
+     * 追加自定义条件，计算评分
+     */
+    public ESQuery<T> must(QueryBuilder query) {
+        bool.must(query);
+        empty = false;
+        return this;
+    }
+
+    public ESQuery<T> mustNot(QueryBuilder query) {
+        bool.mustNot(query);
+        empty = false;
+        return this;
+    }
+
+    public ESQuery<T> asc(ESFieldRef<T, ?> field) {
+        return sort(field(field), SortOrder.ASC);
+    }
+
+    public ESQuery<T> asc(String path) {
+        return sort(field(path), SortOrder.ASC);
+    }
+
+    public ESQuery<T> desc(ESFieldRef<T, ?> field) {
+        return sort(field(field), SortOrder.DESC);
+    }
+
+    public ESQuery<T> desc(String path) {
+        return sort(field(path), SortOrder.DESC);
+    }
+
+    /**
+     * 没有条件时为 match_all
+     */
+    public QueryBuilder toQuery() {
+        return empty ? QueryBuilders.matchAllQuery() : bool;
+    }
+
+    public ESSort toSort() {
+        return sort;
+    }
+
+    /**
+     * 只包含查询条件，排序通过 {@link #toSort()} 交给DAO
+     */
+    public SearchSourceBuilder toSearchSource() {
+        return new SearchSourceBuilder().query(toQuery());
+    }
+
+    private ESQuery<T> eq(ESFieldMeta meta, Object value) {
+        Assert.notNull(value, "value of " + meta.getPath() + " is null, use notExists instead");
+        checkScalar(meta, "精确匹配");
+        if (meta.isText() && meta.getKeywordPath() == null) {
+            return must(nested(meta, QueryBuilders.matchPhraseQuery(meta.getPath(), value)));
+        }
+        return filter(nested(meta, QueryBuilders.termQuery(meta.getKeywordPath(), toValue(value))));
+    }
+
+    private ESQuery<T> notEq(ESFieldMeta meta, Object value) {
+        Assert.notNull(value, "value of " + meta.getPath() + " is null, use exists instead");
+        checkScalar(meta, "精确匹配");
+        if (meta.isText() && meta.getKeywordPath() == null) {
+            return mustNot(nested(meta, QueryBuilders.matchPhraseQuery(meta.getPath(), value)));
+        }
+        return mustNot(nested(meta, QueryBuilders.termQuery(meta.getKeywordPath(), toValue(value))));
+    }
+
+    private ESQuery<T> in(ESFieldMeta meta, Collection<?> values) {
+        Assert.notNull(values, "values of " + meta.getPath() + " is null");
+        checkScalar(meta, "terms 查询");
+        String path = keywordPath(meta, "terms 查询");
+        Object[] array = values.stream().map(ESQuery::toValue).toArray();
+        return filter(nested(meta, QueryBuilders.termsQuery(path, array)));
+    }
+
+    private ESQuery<T> match(ESFieldMeta meta, String text) {
+        if (!meta.isText()) {
+            return eq(meta, text);
+        }
+        Assert.notNull(text, "text of " + meta.getPath() + " is null");
+        return must(nested(meta, QueryBuilders.matchQuery(meta.getPath(), text)));
+    }
+
+    private ESQuery<T> prefix(ESFieldMeta meta, String prefix) {
+        Assert.hasText(prefix, "prefix of " + meta.getPath() + " is empty");
+        checkScalar(meta, "前缀查询");
+        return filter(nested(meta, QueryBuilders.prefixQuery(keywordPath(meta, "前缀查询"), prefix)));
+    }
+
+    private ESQuery<T> range(ESFieldMeta meta, Object from, boolean includeLower, Object to, boolean includeUpper) {
+        Assert.isTrue(from != null || to != null, "range of " + meta.getPath() + " is unbounded");
+        checkScalar(meta, "范围查询");
+        if (meta.isText()) {
+            throw new IllegalArgumentException("text 字段 {" + meta.getPath() + "} 不支持范围查询");
+        }
+        RangeQueryBuilder range = QueryBuilders.rangeQuery(meta.getPath());
+        if (from != null) {
+            range.from(toValue(from), includeLower);
+        }
+        if (to != null) {
+            range.to(toValue(to), includeUpper);
+        }
+        return filter(nested(meta, range));
+    }
+
+    private ESQuery<T> exists(ESFieldMeta meta, boolean exists) {
+        QueryBuilder query = nested(meta, QueryBuilders.existsQuery(meta.getPath()));
+        return exists ? filter(query) : mustNot(query);
+    }
+
+    private ESQuery<T> sort(ESFieldMeta meta, SortOrder order) {
+        checkScalar(meta, "排序");
+        FieldSortBuilder builder = SortBuilders.fieldSort(keywordPath(meta, "排序")).order(order);
+        List<String> nestedPaths = meta.getNestedPaths();
+        if (!nestedPaths.isEmpty()) {
+            NestedSortBuilder nestedSort = null;
+            for (int i = nestedPaths.size() - 1; i >= 0; i--) {
+                NestedSortBuilder outer = new NestedSortBuilder(nestedPaths.get(i));
+                nestedSort = nestedSort == null ? outer : outer.setNestedSort(nestedSort);
+            }
+            builder.setNestedSort(nestedSort);
+        }
+        sort.add(builder);
+        return this;
+    }
+
+    /**
+     * 由内到外逐层包装为 nested 查询
+     */
+    private static QueryBuilder nested(ESFieldMeta meta, QueryBuilder query) {
+        List<String> nestedPaths = meta.getNestedPaths();
+        for (int i = nestedPaths.size() - 1; i >= 0; i--) {
+            query = QueryBuilders.nestedQuery(nestedPaths.get(i), query, ScoreMode.None);
+        }
+        return query;
+    }
+
+    private static String keywordPath(ESFieldMeta meta, String usage) {
+        String path = meta.getKeywordPath();
+        if (path == null) {
+            throw new IllegalArgumentException("text 字段 {" + meta.getPath() + "} 未配置 textRaw，不支持" + usage);
+        }
+        return path;
+    }
+
+    private static void checkScalar(ESFieldMeta meta, String usage) {
+        if (meta.isObject()) {
+            throw new IllegalArgumentException(meta.getFieldType().typeName + " 字段 {" + meta.getPath() + "} 不支持" + usage);
+        }
+    }
+
+    /**
+     * 与实体编码保持一致：Date 为毫秒数，枚举为名称
+     */
+    private static Object toValue(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value;
+    }
+}
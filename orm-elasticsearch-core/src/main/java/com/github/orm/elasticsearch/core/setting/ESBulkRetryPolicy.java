@@ -0,0 +1,105 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.rest.RestStatus;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @ClassName ESBulkRetryPolicy
+ * @Description bulk失败项重试策略，指数退避加随机抖动
+ * @Author liyongbing
+ * @Date 2026/10/18 14:05
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESBulkRetryPolicy {
+
+    /**
+     * 最大重试次数，0表示不重试
+     */
+    private int maxRetries = 3;
+
+    /**
+     * 首次重试等待时间(毫秒)
+     */
+    private long initialBackoffMillis = 100;
+
+    /**
+     * 单次重试最长等待时间(毫秒)
+     */
+    private long maxBackoffMillis = 5000;
+
+    /**
+     * 退避倍数
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * 抖动比例 0~1，实际等待时间在 [delay * (1 - jitter), delay] 之间
+     */
+    private double jitter = 0.5;
+
+    public static ESBulkRetryPolicy noRetry() {
+        return new ESBulkRetryPolicy().setMaxRetries(0);
+    }
+
+    /**
+     * 第 attempt 次重试前的等待时间
+     *
+     * @param attempt 从1开始
+     * @return 毫秒
+     */
+    public long backoffMillis(int attempt) {
+        double delay = initialBackoffMillis * Math.pow(multiplier, Math.max(0, attempt - 1));
+        delay = Math.min(delay, maxBackoffMillis);
+        if (jitter > 0) {
+            delay -= delay * Math.min(jitter, 1.0) * ThreadLocalRandom.current().nextDouble();
+        }
+        return (long) delay;
+    }
+
+    /**
+     * 集群过载类状态可以重试，其余视为永久失败
+     */
+    public boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS
+                || status == RestStatus.SERVICE_UNAVAILABLE
+                || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * 整个bulk请求失败时是否可以重发，只重发确定未被服务端执行的请求：连接未建立，或服务端以 429/503 拒绝整个请求。
+     * 读取超时、连接中断等请求发出后的失败无法确定是否已写入，重发会让自动生成id的文档重复写入，视为永久失败
+     */
+    public boolean isRetryable(Exception e) {
+        if (e instanceof ElasticsearchException) {
+            return isRejected(((ElasticsearchException) e).status());
+        }
+        if (e instanceof ResponseException) {
+            return isRejected(RestStatus.fromCode(((ResponseException) e).getResponse().getStatusLine().getStatusCode()));
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 整个请求被拒绝的状态，网关超时时请求可能已被执行，不在此列
+     */
+    private static boolean isRejected(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE;
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESBulkSetting
+ * @Description 批量写入管道配置
+ * @Author liyongbing
+ * @Date 2026/10/18 10:12
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESBulkSetting {
+
+    /**
+     * 缓冲文档数达到该值时触发一次bulk
+     */
+    private int bulkActions = 1000;
+
+    /**
+     * 缓冲请求体估算字节数达到该值时触发一次bulk
+     */
+    private long bulkSizeInBytes = 5 * 1024 * 1024;
+
+    /**
+     * 定时刷新间隔(毫秒)，小于等于0时不定时刷新
+     */
+    private long flushIntervalMillis = 1000;
+
+    /**
+     * 同时在途的bulk请求数
+     */
+    private int concurrentRequests = 2;
+
+    /**
+     * 缓冲中及在途的最大文档数，超出后调用方阻塞或被拒绝
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 缓冲已满时是否阻塞调用方，false时直接拒绝
+     */
+    private boolean blockWhenFull = true;
+
+    /**
+     * 阻塞等待的最长时间(毫秒)，超时后拒绝
+     */
+    private long blockTimeoutMillis = 30000;
+
+    /**
+     * 被拒绝文档的重试策略
+     */
+    private ESBulkRetryPolicy retryPolicy = new ESBulkRetryPolicy();
+}
@@ -0,0 +1,41 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESByQuerySetting
+ * @Description delete_by_query/update_by_query 配置
+ * @Author liyongbing
+ * @Date 2026/10/18 23:05
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESByQuerySetting {
+
+    /**
+     * 并行slice数，小于等于0时交由服务端按分片数自动决定
+     */
+    private int slices = 0;
+
+    /**
+     * 每秒处理的文档数上限，小于等于0时不限流
+     */
+    private float requestsPerSecond = 0;
+
+    /**
+     * 每批 scroll 读取的文档数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 版本冲突时跳过并继续，false 时遇到冲突中止
+     */
+    private boolean proceedOnConflict = true;
+
+    /**
+     * 完成后刷新涉及的索引
+     */
+    private boolean refresh = false;
+}
@@ -0,0 +1,36 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESCacheSetting
+ * @Description 按id读取的本地近端缓存配置
+ * @Author liyongbing
+ * @Date 2026/10/18 20:40
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESCacheSetting {
+
+    /**
+     * 缓存 _source 的总字节上限
+     */
+    private long maxWeightBytes = 64 * 1024 * 1024;
+
+    /**
+     * 缓存条数上限
+     */
+    private int maxEntries = 100000;
+
+    /**
+     * 写入后的存活时间(毫秒)，多实例部署时即其他实例写入后的最长不一致时间
+     */
+    private long ttlMillis = 60000;
+
+    /**
+     * 分段数，分段越多锁竞争越小
+     */
+    private int segments = 16;
+}
@@ -0,0 +1,149 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName ESClientSetting
+ * @Description 客户端连接池、超时及压缩配置，由 {@link com.github.orm.elasticsearch.core.client.ESClientFactory} 使用
+ * @Author liyongbing
+ * @Date 2026/10/19 00:40
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESClientSetting {
+
+    /**
+     * 节点地址，如 http://127.0.0.1:9200
+     */
+    private List<String> hosts = new ArrayList<>();
+
+    private String username;
+
+    private String password;
+
+    private String pathPrefix;
+
+    /**
+     * 连接池总连接数
+     */
+    private int maxConnTotal = 100;
+
+    /**
+     * 每个节点的最大连接数
+     */
+    private int maxConnPerRoute = 30;
+
+    /**
+     * I/O线程数，小于等于0时为CPU核数
+     */
+    private int ioThreadCount = 0;
+
+    /**
+     * 空闲连接保持时间(毫秒)，应小于服务端及中间代理的空闲超时
+     */
+    private long keepAliveMillis = 60000;
+
+    private int connectTimeoutMillis = 1000;
+
+    private int socketTimeoutMillis = 30000;
+
+    /**
+     * 从连接池获取连接的超时(毫秒)
+     */
+    private int connectionRequestTimeoutMillis = 1000;
+
+    /**
+     * 请求响应使用gzip压缩，节省带宽但增加CPU开销
+     */
+    private boolean compression = false;
+
+    /**
+     * 各类请求的响应缓冲上限(字节)
+     */
+    private int searchBufferLimitBytes = 100 * 1024 * 1024;
+
+    private int bulkBufferLimitBytes = 50 * 1024 * 1024;
+
+    private int getBufferLimitBytes = 30 * 1024 * 1024;
+
+    /**
+     * 单文档写入的响应缓冲上限(字节)，只有 update 指定 fetchSource 时响应才包含文档
+     */
+    private int writeBufferLimitBytes = 10 * 1024 * 1024;
+
+    private int adminBufferLimitBytes = 30 * 1024 * 1024;
+
+    /**
+     * 批量写入独立连接池的总连接数，大于0时批量写入使用单独的客户端，避免大批量请求占满查询的连接
+     */
+    private int bulkMaxConnTotal = 0;
+
+    private int bulkMaxConnPerRoute = 10;
+
+    /**
+     * 批量写入客户端的读超时(毫秒)，批量请求耗时通常较长
+     */
+    private int bulkSocketTimeoutMillis = 60000;
+
+    /**
+     * 定时从集群获取节点列表，跳过专用master节点
+     */
+    private boolean sniff = false;
+
+    private int sniffIntervalMillis = 5 * 60 * 1000;
+
+    /**
+     * 请求失败后尽快重新获取节点列表的延迟(毫秒)
+     */
+    private int sniffAfterFailureDelayMillis = 60 * 1000;
+
+    /**
+     * 按各节点响应耗时的EWMA选择节点，避开慢节点及刚失败的节点
+     */
+    private boolean latencyAware = false;
+
+    /**
+     * EWMA平滑系数，越大越偏向最近的耗时
+     */
+    private double ewmaAlpha = 0.3;
+
+    /**
+     * 耗时超过最快节点的倍数视为慢节点
+     */
+    private double slowNodeFactor = 3.0;
+
+    /**
+     * 慢节点判定的耗时下限(毫秒)，低于该值的差异不做区分
+     */
+    private long slowNodeMinMillis = 50;
+
+    /**
+     * 节点失败后的回避时间(毫秒)
+     */
+    private long failurePenaltyMillis = 30000;
+
+    /**
+     * 被回避的节点每隔多久放行一次探测请求(毫秒)，以便恢复后重新获得流量
+     */
+    private long probeIntervalMillis = 5000;
+
+    /**
+     * 查询及读取在延迟后向另一节点发送相同请求，取先返回的结果，以额外的请求量换取尾延迟
+     */
+    private boolean hedgedReads = false;
+
+    /**
+     * 对冲请求的延迟(毫秒)，小于等于0时取最快节点EWMA耗时的2倍
+     */
+    private long hedgeDelayMillis = 0;
+
+    /**
+     * 自适应对冲延迟的下限(毫秒)
+     */
+    private long hedgeMinDelayMillis = 20;
+}
@@ -0,0 +1,26 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESCoalesceSetting
+ * @Description 按id读取的请求合并配置
+ * @Author liyongbing
+ * @Date 2026/10/18 21:20
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESCoalesceSetting {
+
+    /**
+     * 合并窗口(毫秒)，窗口内的不同id合并为一次mget；小于等于0时只合并相同id的并发请求
+     */
+    private long batchWindowMillis = 0;
+
+    /**
+     * 单次mget的最大id数，达到后立即发送
+     */
+    private int maxBatchSize = 200;
+}
@@ -0,0 +1,57 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import com.github.orm.elasticsearch.core.enums.ESMigrationMode;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESMigrationSetting
+ * @Description 索引迁移配置
+ * @Author liyongbing
+ * @Date 2026/10/18 18:52
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESMigrationSetting {
+
+    /**
+     * 数据复制方式
+     */
+    private ESMigrationMode mode = ESMigrationMode.REINDEX;
+
+    /**
+     * 并行slice数，小于等于0时自动：REINDEX 交由服务端按分片数决定，SCROLL_BULK 取新索引分片数
+     */
+    private int slices = 0;
+
+    /**
+     * 每秒复制的文档数上限，小于等于0时不限流
+     */
+    private float requestsPerSecond = 0;
+
+    /**
+     * 每批读取的文档数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 进度上报及任务轮询间隔(毫秒)
+     */
+    private long progressIntervalMillis = 2000;
+
+    /**
+     * 复制期间关闭刷新并将副本数置0，完成后恢复
+     */
+    private boolean disableRefreshDuringCopy = true;
+
+    /**
+     * 切换别名后是否删除旧索引，原索引与别名同名时总会被删除
+     */
+    private boolean deleteOldIndex = false;
+
+    /**
+     * SCROLL_BULK 模式下写入新索引的批量管道配置
+     */
+    private ESBulkSetting bulkSetting = new ESBulkSetting();
+}
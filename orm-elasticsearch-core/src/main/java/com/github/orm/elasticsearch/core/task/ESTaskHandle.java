@@ -0,0 +1,173 @@
+package com.github.orm.elasticsearch.core.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.RethrottleRequest;
+import org.elasticsearch.client.tasks.GetTaskRequest;
+import org.elasticsearch.client.tasks.GetTaskResponse;
+import org.elasticsearch.tasks.RawTaskStatus;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskInfo;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @ClassName ESTaskHandle
+ * @Description 后台运行的 delete_by_query/update_by_query 任务，可查询进度、调整限流或取消。
+ * 首次观察到任务完成时执行完成回调，取消时立即执行一次
+ * @Author liyongbing
+ * @Date 2026/10/18 23:15
+ * @Version 1.0
+ **/
+@Slf4j
+public class ESTaskHandle {
+
+    public static final String DELETE_BY_QUERY = "delete_by_query";
+    public static final String UPDATE_BY_QUERY = "update_by_query";
+
+    private final RestHighLevelClient client;
+    private final RequestOptions options;
+    private final TaskId taskId;
+    private final String action;
+    private final Runnable onCompleted;
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    public ESTaskHandle(RestHighLevelClient client, RequestOptions options, String taskId, String action, Runnable onCompleted) {
+        this.client = client;
+        this.options = options;
+        this.taskId = new TaskId(taskId);
+        this.action = action;
+        this.onCompleted = onCompleted;
+    }
+
+    public String getTaskId() {
+        return taskId.toString();
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * 查询当前进度
+     */
+    public ESTaskStatus status() {
+        Optional<GetTaskResponse> response;
+        try {
+            response = client.tasks().get(new GetTaskRequest(taskId.getNodeId(), taskId.getId()), options);
+        } catch (IOException e) {
+            throw new ElasticsearchException("查询 " + action + " 任务 {" + taskId + "} 失败", e);
+        }
+        if (!response.isPresent()) {
+            throw new ElasticsearchException(action + " 任务 {" + taskId + "} 不存在");
+        }
+        TaskInfo taskInfo = response.get().getTaskInfo();
+        Map<String, Object> status = statusMap(taskInfo.getStatus());
+        ESTaskStatus result = new ESTaskStatus()
+                .setTaskId(getTaskId())
+                .setTotal(longValue(status, "total"))
+                .setCreated(longValue(status, "created"))
+                .setUpdated(longValue(status, "updated"))
+                .setDeleted(longValue(status, "deleted"))
+                .setNoops(longValue(status, "noops"))
+                .setVersionConflicts(longValue(status, "version_conflicts"))
+                .setBatches(longValue(status, "batches"))
+                .setRunningMillis(TimeUnit.NANOSECONDS.toMillis(taskInfo.getRunningTimeNanos()))
+                .setCompleted(response.get().isCompleted());
+        if (result.isCompleted()) {
+            complete();
+        }
+        return result;
+    }
+
+    /**
+     * 轮询直到任务完成
+     *
+     * @param pollIntervalMillis 轮询间隔(毫秒)
+     * @return 最终进度
+     */
+    public ESTaskStatus await(long pollIntervalMillis) throws InterruptedException {
+        while (true) {
+            ESTaskStatus status = status();
+            if (status.isCompleted()) {
+                return status;
+            }
+            Thread.sleep(pollIntervalMillis);
+        }
+    }
+
+    /**
+     * 调整限流，小于等于0时不限流
+     */
+    public void rethrottle(float requestsPerSecond) {
+        RethrottleRequest request = requestsPerSecond > 0 ? new RethrottleRequest(taskId, requestsPerSecond) : new RethrottleRequest(taskId);
+        try {
+            if (DELETE_BY_QUERY.equals(action)) {
+                client.deleteByQueryRethrottle(request, options);
+            } else {
+                client.updateByQueryRethrottle(request, options);
+            }
+        } catch (IOException e) {
+            throw new ElasticsearchException("调整 " + action + " 任务 {" + taskId + "} 限流失败", e);
+        }
+    }
+
+    /**
+     * 取消任务，已处理的文档不会回滚。
+     * 取消是异步的，任务可能还会处理部分文档，因此立即执行完成回调后，之后观察到任务完成时仍会再执行一次
+     */
+    public void cancel() {
+        CancelTasksRequest request = new CancelTasksRequest();
+        request.setTaskId(taskId);
+        try {
+            client.tasks().cancel(request, options);
+        } catch (IOException e) {
+            throw new ElasticsearchException("取消 " + action + " 任务 {" + taskId + "} 失败", e);
+        } finally {
+            if (!completed.get()) {
+                runCallback();
+            }
+        }
+    }
+
+    private void complete() {
+        if (completed.compareAndSet(false, true)) {
+            runCallback();
+        }
+    }
+
+    private void runCallback() {
+        if (onCompleted != null) {
+            try {
+                onCompleted.run();
+            } catch (RuntimeException e) {
+                log.warn("{} task {} completion callback error", action, taskId, e);
+            }
+        }
+    }
+
+    private static Map<String, Object> statusMap(Task.Status status) {
+        if (status instanceof RawTaskStatus) {
+            return ((RawTaskStatus) status).toMap();
+        }
+        return Collections.emptyMap();
+    }
+
+    private static long longValue(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
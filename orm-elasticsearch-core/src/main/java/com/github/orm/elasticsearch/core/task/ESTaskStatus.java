@@ -0,0 +1,50 @@
+package com.github.orm.elasticsearch.core.task;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESTaskStatus
+ * @Description delete_by_query/update_by_query 任务进度
+ * @Author liyongbing
+ * @Date 2026/10/18 23:10
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+public class ESTaskStatus {
+
+    private String taskId;
+
+    /**
+     * 匹配查询的文档总数，任务刚开始时可能为0
+     */
+    private long total;
+
+    private long created;
+
+    private long updated;
+
+    private long deleted;
+
+    private long noops;
+
+    private long versionConflicts;
+
+    private long batches;
+
+    private long runningMillis;
+
+    private boolean completed;
+
+    public long getProcessed() {
+        return created + updated + deleted + noops + versionConflicts;
+    }
+
+    public double getPercent() {
+        if (completed) {
+            return 100D;
+        }
+        return total > 0 ? Math.min(100D, getProcessed() * 100D / total) : 0D;
+    }
+}
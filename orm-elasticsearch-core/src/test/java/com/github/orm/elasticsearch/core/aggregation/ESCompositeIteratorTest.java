@@ -0,0 +1,147 @@
+package com.github.orm.elasticsearch.core.aggregation;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class ESCompositeIteratorTest {
+
+    @Test
+    public void pagesWithAfterKeyUntilEmptyPageAfterFullPage() throws Exception {
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/" + INDEX + "/_search", request -> {
+                    String after = after(request);
+                    if (after == null) {
+                        return StubResponse.ok(page("y", bucket("x", 2, 3), bucket("y", 1, 5)));
+                    }
+                    if ("y".equals(after)) {
+                        return StubResponse.ok(page("z", bucket("w", 3, 4), bucket("z", 1, 3)));
+                    }
+                    return StubResponse.ok(page(null));
+                });
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESCompositeIterator iterator = dao.compositeTerms(QueryBuilders.matchAllQuery(), 2, new String[]{"name"},
+                    AggregationBuilders.sum("total").field("version"));
+
+            List<String> keys = new ArrayList<>();
+            long docCount = 0;
+            double total = 0;
+            while (iterator.hasNext()) {
+                ESBucket bucket = iterator.next();
+                keys.add(String.valueOf(((Map<?, ?>) bucket.getKey()).get("name")));
+                docCount += bucket.getDocCount();
+                total += bucket.metric("total");
+            }
+            assertEquals("[x, y, w, z]", keys.toString());
+            assertEquals(7, docCount);
+            assertEquals(15.0, total, 0.0);
+
+            // 每页都以上一页的 after_key 继续，且只请求 composite 聚合，不取命中
+            List<StubRequest> searches = searches(server);
+            assertEquals(3, searches.size());
+            assertNull(after(searches.get(0)));
+            assertEquals("y", after(searches.get(1)));
+            assertEquals("z", after(searches.get(2)));
+            assertEquals(0, JSON.parseObject(searches.get(0).body).getIntValue("size"));
+            assertEquals(2, composite(searches.get(0)).getIntValue("size"));
+
+            // 遍历结束后不再发起请求
+            assertFalse(iterator.hasNext());
+            try {
+                iterator.next();
+                fail("expected NoSuchElementException");
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+            assertEquals(3, searches(server).size());
+        }
+    }
+
+    @Test
+    public void stopsAfterShortPageWithoutRequestingEmptyPage() throws Exception {
+        // 服务端对非空页总会返回 after_key
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/" + INDEX + "/_search", request -> StubResponse.ok(page("x", bucket("x", 1, 1))));
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESCompositeIterator iterator = dao.compositeTerms(QueryBuilders.matchAllQuery(), 2, new String[]{"name"});
+            assertTrue(iterator.hasNext());
+            assertEquals(1, iterator.next().getDocCount());
+            assertNull(iterator.getAfterKey());
+            assertFalse(iterator.hasNext());
+            assertEquals(1, searches(server).size());
+        }
+    }
+
+    @Test
+    public void emptyFirstPageEndsIteration() throws Exception {
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/" + INDEX + "/_search", request -> StubResponse.ok(page(null)));
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESCompositeIterator iterator = dao.compositeTerms(QueryBuilders.matchAllQuery(), 2, new String[]{"name"});
+            assertFalse(iterator.hasNext());
+            assertFalse(iterator.hasNext());
+            assertEquals(1, searches(server).size());
+        }
+    }
+
+    private static List<StubRequest> searches(ESStubServer server) {
+        List<StubRequest> searches = new ArrayList<>();
+        for (StubRequest request : server.requests()) {
+            if (request.path.endsWith("/_search")) {
+                searches.add(request);
+            }
+        }
+        return searches;
+    }
+
+    private static JSONObject composite(StubRequest request) {
+        return JSON.parseObject(request.body).getJSONObject("aggregations").getJSONObject("composite").getJSONObject("composite");
+    }
+
+    private static String after(StubRequest request) {
+        JSONObject after = composite(request).getJSONObject("after");
+        return after != null ? after.getString("name") : null;
+    }
+
+    private static String bucket(String name, long docCount, double total) {
+        return "{\"key\":{\"name\":\"" + name + "\"},\"doc_count\":" + docCount + ",\"sum#total\":{\"value\":" + total + "}}";
+    }
+
+    /**
+     * typed_keys 格式的 composite 聚合响应
+     *
+     * @param afterKey 为 null 时不返回 after_key
+     */
+    private static String page(String afterKey, String... buckets) {
+        StringBuilder sb = new StringBuilder("{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},")
+                .append("\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]},")
+                .append("\"aggregations\":{\"composite#composite\":{");
+        if (afterKey != null) {
+            sb.append("\"after_key\":{\"name\":\"").append(afterKey).append("\"},");
+        }
+        sb.append("\"buckets\":[").append(String.join(",", buckets)).append("]}}}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.github.orm.elasticsearch.core.cache.ESCacheStats;
+import com.github.orm.elasticsearch.core.setting.ESCacheSetting;
+import com.github.orm.elasticsearch.core.setting.ESCoalesceSetting;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class BaseElasticsearchDaoCacheTest {
+
+    private static final String DOC_PATH = "/" + INDEX + "/_doc/a";
+
+    @Test
+    public void servesRepeatedGetFromCacheUntilWrite() throws Exception {
+        AtomicInteger gets = new AtomicInteger();
+        AtomicInteger version = new AtomicInteger(1);
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("GET", DOC_PATH, request -> {
+                    gets.incrementAndGet();
+                    return StubResponse.ok("{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":" + version.get()
+                            + ",\"_seq_no\":0,\"_primary_term\":1,\"found\":true,\"_source\":{\"id\":\"a\",\"name\":\"n\",\"version\":" + version.get() + "}}");
+                })
+                .on("PUT", DOC_PATH, request -> {
+                    version.incrementAndGet();
+                    return StubResponse.ok("{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":" + version.get()
+                            + ",\"result\":\"updated\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":1,\"_primary_term\":1}");
+                });
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).setCacheSetting(new ESCacheSetting()).start();
+            assertEquals(1, dao.getById("a").getVersion());
+            assertEquals(1, dao.getById("a").getVersion());
+            assertEquals(1, gets.get());
+
+            dao.saveOrUpdate(new ESStubDocument().setId("a").setName("n").setVersion(2));
+            assertEquals(2, dao.getById("a").getVersion());
+            assertEquals(2, gets.get());
+        }
+    }
+
+    @Test
+    public void asyncGetsShareTheNearCache() throws Exception {
+        AtomicInteger gets = new AtomicInteger();
+        AtomicInteger mgets = new AtomicInteger();
+        ESStubServer.Handler mget = request -> {
+            mgets.incrementAndGet();
+            return StubResponse.ok("{\"docs\":[" + doc(1).replace("\"_id\":\"a\"", "\"_id\":\"b\"").replace("\"id\":\"a\"", "\"id\":\"b\"") + "]}");
+        };
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("GET", DOC_PATH, request -> {
+                    gets.incrementAndGet();
+                    return StubResponse.ok(doc(1));
+                })
+                .on("POST", "(/" + INDEX + ")?/_mget", mget)
+                .on("GET", "(/" + INDEX + ")?/_mget", mget);
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).setCacheSetting(new ESCacheSetting()).start();
+            assertEquals(1, dao.getByIdAsync("a").get(5, TimeUnit.SECONDS).getVersion());
+            assertEquals(1, dao.getById("a").getVersion());
+            assertEquals(1, dao.getByIdAsync("a").get(5, TimeUnit.SECONDS).getVersion());
+            assertEquals(1, gets.get());
+
+            // a 命中缓存，只读取 b
+            List<ESStubDocument> batch = dao.batchGetByIdAsync(Arrays.asList("a", "b")).get(5, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList("a", "b"), Arrays.asList(batch.get(0).getId(), batch.get(1).getId()));
+            assertEquals(1, mgets.get());
+            assertEquals("b", dao.getById("b").getId());
+            assertEquals(1, mgets.get());
+
+            ESCacheStats stats = dao.getCacheStats();
+            assertEquals(4, stats.getHitCount());
+            assertEquals(2, stats.getMissCount());
+        }
+    }
+
+    @Test
+    public void writeDuringCoalescedGetIsVisibleToLaterReads() throws Exception {
+        AtomicInteger version = new AtomicInteger(1);
+        AtomicInteger mgets = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ESStubServer.Handler mget = request -> {
+            // 第一次 mget 在写入前发出，等到写入之后才返回旧数据
+            int current = version.get();
+            if (mgets.incrementAndGet() == 1) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return StubResponse.ok("{\"docs\":[" + doc(current) + "]}");
+        };
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "(/" + INDEX + ")?/_mget", mget)
+                .on("GET", "(/" + INDEX + ")?/_mget", mget)
+                .on("PUT", DOC_PATH, request -> StubResponse.ok("{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":"
+                        + version.incrementAndGet() + ",\"result\":\"updated\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":1,\"_primary_term\":1}"));
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(10000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client)
+                    .setCacheSetting(new ESCacheSetting())
+                    .setCoalesceSetting(new ESCoalesceSetting())
+                    .start();
+            try {
+                CompletableFuture<ESStubDocument> beforeWrite = CompletableFuture.supplyAsync(() -> dao.getById("a"));
+                waitFor(() -> mgets.get() == 1);
+
+                dao.saveOrUpdate(new ESStubDocument().setId("a").setName("n").setVersion(2));
+                CompletableFuture<ESStubDocument> afterWrite = CompletableFuture.supplyAsync(() -> dao.getById("a"));
+                waitFor(() -> mgets.get() == 2 || afterWrite.isDone());
+                release.countDown();
+
+                assertEquals(1, beforeWrite.get(5, TimeUnit.SECONDS).getVersion());
+                assertEquals(2, afterWrite.get(5, TimeUnit.SECONDS).getVersion());
+                // 写入前发出的读取不能回填缓存
+                assertEquals(2, dao.getById("a").getVersion());
+                assertEquals(2, mgets.get());
+            } finally {
+                release.countDown();
+                dao.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void coalescedGetFailureIsNotReportedAsMissing() throws Exception {
+        ESStubServer.Handler mget = request -> StubResponse.json(500,
+                "{\"error\":{\"type\":\"stub_exception\",\"reason\":\"boom\"},\"status\":500}");
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "(/" + INDEX + ")?/_mget", mget)
+                .on("GET", "(/" + INDEX + ")?/_mget", mget);
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).setCoalesceSetting(new ESCoalesceSetting()).start();
+            try {
+                dao.getById("a");
+                fail("expected failure");
+            } catch (ElasticsearchException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("a"));
+            } finally {
+                dao.destroy();
+            }
+        }
+    }
+
+    private static String doc(int version) {
+        return "{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":" + version
+                + ",\"_seq_no\":0,\"_primary_term\":1,\"found\":true,\"_source\":{\"id\":\"a\",\"name\":\"n\",\"version\":" + version + "}}";
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubSearch;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class BaseElasticsearchDaoCursorTest {
+
+    @Test
+    public void idFieldIsMappedAsKeyword() throws Exception {
+        String mapping = Strings.toString(new ESClassLoopMapping(ESStubDocument.class).mapping().getBuilder());
+        assertEquals("keyword", JSON.parseObject(mapping).getJSONObject("properties").getJSONObject("id").getString("type"));
+    }
+
+    @Test
+    public void cursorUsesKeywordIdFieldAsTiebreaker() throws Exception {
+        assertEquals("id", tiebreaker("keyword"));
+    }
+
+    @Test
+    public void cursorFallsBackToIdMetaFieldWhenIdIsText() throws Exception {
+        // 旧版本创建的索引中 id 由动态映射生成为 text
+        assertEquals("_id", tiebreaker("text"));
+    }
+
+    private static String tiebreaker(String idType) throws Exception {
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, idType)
+                .on("POST", "/" + INDEX + "/_search", request -> StubResponse.ok(ESStubSearch.hits(INDEX, 1,
+                        "{\"id\":\"a\",\"name\":\"n\",\"version\":1}")));
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESPageResult<ESStubDocument> page = dao.search(new SearchSourceBuilder(), ESPageRequest.cursor(10), null);
+            assertEquals("a", page.getResults().get(0).getId());
+            StubRequest search = server.requests().get(server.requests().size() - 1);
+            JSONArray sort = JSON.parseObject(search.body).getJSONArray("sort");
+            assertEquals(1, sort.size());
+            return sort.getJSONObject(0).keySet().iterator().next();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.github.orm.elasticsearch.core.enums.ESDecodeMode;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubSearch;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class BaseElasticsearchDaoDecodeTest {
+
+    @Test
+    public void defaultsToFastjson() {
+        assertEquals(ESDecodeMode.FASTJSON, new ESStubDocumentDao(null).decodeMode());
+    }
+
+    @Test
+    public void bothModesDecodeHitsAndDocuments() throws Exception {
+        for (ESDecodeMode mode : ESDecodeMode.values()) {
+            List<ESStubDocument> hits = search(mode);
+            assertEquals(mode.name(), 2, hits.size());
+            assertEquals(mode.name(), "名称", hits.get(0).getName());
+            assertEquals(mode.name(), 3, hits.get(0).getVersion());
+            // _source 未包含 id 时取命中的 _id
+            assertEquals(mode.name(), "b", hits.get(1).getId());
+            assertNull(mode.name(), hits.get(1).getName());
+        }
+    }
+
+    private static List<ESStubDocument> search(ESDecodeMode mode) throws Exception {
+        String body = ESStubSearch.hits(INDEX, 2, "{\"id\":\"a\",\"name\":\"名称\",\"version\":3}", "{\"id\":\"b\",\"version\":1}")
+                .replace("\"_source\":{\"id\":\"b\",", "\"_source\":{");
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/" + INDEX + "/_search", request -> StubResponse.ok(body));
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).setDecodeMode(mode).start();
+            return dao.search(new SearchSourceBuilder());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubSearch;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class BaseElasticsearchDaoExistsTest {
+
+    @Test
+    public void singleMatchExists() throws Exception {
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        assertTrue(exists(1, bodies));
+        JSONObject body = JSON.parseObject(bodies.get(0));
+        assertEquals(0, body.getIntValue("size"));
+        assertEquals(1, body.getIntValue("terminate_after"));
+        assertEquals(1, body.getIntValue("track_total_hits"));
+    }
+
+    @Test
+    public void noMatchDoesNotExist() throws Exception {
+        assertFalse(exists(0, new CopyOnWriteArrayList<>()));
+    }
+
+    /**
+     * 与集群行为一致：单条匹配时不返回 terminated_early，总数按 track_total_hits 截断
+     */
+    private static boolean exists(long matches, List<String> bodies) throws Exception {
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/" + INDEX + "/_search", request -> {
+                    bodies.add(request.body);
+                    return StubResponse.ok(ESStubSearch.hits(INDEX, Math.min(matches, 1)));
+                });
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            return dao.exists(QueryBuilders.termQuery("name", "n"));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.setting.ESByQuerySetting;
+import com.github.orm.elasticsearch.core.setting.ESCacheSetting;
+import com.github.orm.elasticsearch.core.setting.ESCoalesceSetting;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import com.github.orm.elasticsearch.core.task.ESTaskHandle;
+import com.github.orm.elasticsearch.core.task.ESTaskStatus;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.script.Script;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class BaseElasticsearchDaoTaskTest {
+
+    @Test
+    public void submitsDeleteByQueryAndInvalidatesCacheOnCompletion() throws Exception {
+        Stub stub = new Stub("n1:5");
+        try (ESStubServer server = new ESStubServer(stub.routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = stub.dao(client);
+            try {
+                ESTaskHandle handle = dao.submitDeleteByQuery(QueryBuilders.termQuery("name", "n"),
+                        new ESByQuerySetting().setRequestsPerSecond(100).setBatchSize(500));
+                assertEquals("n1:5", handle.getTaskId());
+                assertEquals(ESTaskHandle.DELETE_BY_QUERY, handle.getAction());
+                StubRequest submit = last(server, "/" + INDEX + "/_delete_by_query");
+                assertEquals("false", param(submit, "wait_for_completion"));
+                assertEquals("100.0", param(submit, "requests_per_second"));
+                assertEquals("500", param(submit, "scroll_size"));
+                assertEquals("proceed", param(submit, "conflicts"));
+                assertEquals("n", JSON.parseObject(submit.body).getJSONObject("query").getJSONObject("term")
+                        .getJSONObject("name").getString("value"));
+
+                assertEquals(1, dao.getById("a").getVersion());
+                assertEquals(1, dao.getById("a").getVersion());
+                assertEquals(1, stub.mgets.get());
+
+                // 任务执行中修改了文档，完成前缓存仍返回旧数据
+                stub.version.set(2);
+                ESTaskStatus running = handle.status();
+                assertFalse(running.isCompleted());
+                assertFalse(handle.isCompleted());
+                assertEquals(10, running.getTotal());
+                assertEquals(4, running.getDeleted());
+                assertEquals(1, running.getBatches());
+                assertEquals(1, running.getVersionConflicts());
+                assertEquals(2, running.getRunningMillis());
+                assertEquals("n1:5", running.getTaskId());
+                assertEquals(1, dao.getById("a").getVersion());
+
+                handle.rethrottle(50);
+                StubRequest rethrottle = last(server, "/_delete_by_query/n1:5/_rethrottle");
+                assertEquals("50.0", param(rethrottle, "requests_per_second"));
+                handle.rethrottle(0);
+                assertEquals("-1", param(last(server, "/_delete_by_query/n1:5/_rethrottle"), "requests_per_second"));
+
+                // 观察到完成时清空缓存，之后读取到任务修改后的数据
+                stub.completed.set(true);
+                ESTaskStatus done = handle.await(1);
+                assertTrue(done.isCompleted());
+                assertTrue(handle.isCompleted());
+                assertEquals(10, done.getDeleted());
+                assertEquals(2, dao.getById("a").getVersion());
+                assertEquals(2, stub.mgets.get());
+
+                // 只在首次观察到完成时清空
+                handle.status();
+                assertEquals(2, dao.getById("a").getVersion());
+                assertEquals(2, stub.mgets.get());
+            } finally {
+                dao.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void cancelInvalidatesCacheAndCompletionInvalidatesAgain() throws Exception {
+        Stub stub = new Stub("n1:7");
+        try (ESStubServer server = new ESStubServer(stub.routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = stub.dao(client);
+            try {
+                ESTaskHandle handle = dao.submitUpdateByQuery(QueryBuilders.matchAllQuery(),
+                        new Script("ctx._source.version++"), new ESByQuerySetting());
+                assertEquals(ESTaskHandle.UPDATE_BY_QUERY, handle.getAction());
+                assertEquals("ctx._source.version++", JSON.parseObject(last(server, "/" + INDEX + "/_update_by_query").body)
+                        .getJSONObject("script").getString("source"));
+                assertEquals(1, dao.getById("a").getVersion());
+
+                stub.version.set(2);
+                handle.cancel();
+                assertEquals("n1:7", param(last(server, "/_tasks/_cancel"), "task_id"));
+                // 取消是异步的，此时任务尚未结束
+                assertFalse(handle.isCompleted());
+                assertEquals(2, dao.getById("a").getVersion());
+                assertEquals(2, stub.mgets.get());
+
+                // 取消生效前任务又处理了部分文档
+                stub.version.set(3);
+                stub.completed.set(true);
+                assertTrue(handle.status().isCompleted());
+                assertTrue(handle.isCompleted());
+                assertEquals(3, dao.getById("a").getVersion());
+                assertEquals(3, stub.mgets.get());
+            } finally {
+                dao.destroy();
+            }
+        }
+    }
+
+    private static StubRequest last(ESStubServer server, String path) {
+        StubRequest found = null;
+        for (StubRequest request : server.requests()) {
+            if (path.equals(request.path)) {
+                found = request;
+            }
+        }
+        assertNotNull("no request to " + path, found);
+        return found;
+    }
+
+    private static String param(StubRequest request, String name) {
+        if (request.query == null) {
+            return null;
+        }
+        for (String pair : request.query.split("&")) {
+            String[] kv = pair.split("=", 2);
+            if (kv[0].equals(name)) {
+                return kv[1].replace("%3A", ":");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 带近端缓存及请求合并的DAO，文档 a 的版本及任务是否完成由测试控制
+     */
+    private static final class Stub {
+        private final AtomicInteger version = new AtomicInteger(1);
+        private final AtomicInteger mgets = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final ESStubRoutes routes;
+
+        private Stub(String taskId) {
+            ESStubServer.Handler mget = request -> {
+                mgets.incrementAndGet();
+                return StubResponse.ok("{\"docs\":[{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":" + version.get()
+                        + ",\"_seq_no\":0,\"_primary_term\":1,\"found\":true,\"_source\":{\"id\":\"a\",\"name\":\"n\",\"version\":" + version.get() + "}}]}");
+            };
+            ESStubServer.Handler submit = request -> StubResponse.ok("{\"task\":\"" + taskId + "\"}");
+            String nodes = "{\"nodes\":{},\"node_failures\":[],\"task_failures\":[]}";
+            this.routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                    .on("POST", "(/" + INDEX + ")?/_mget", mget)
+                    .on("GET", "(/" + INDEX + ")?/_mget", mget)
+                    .on("POST", "/" + INDEX + "/_delete_by_query", submit)
+                    .on("POST", "/" + INDEX + "/_update_by_query", submit)
+                    .on("GET", "/_tasks/" + taskId, request -> StubResponse.ok(task(taskId, completed.get())))
+                    .on("POST", "/_(delete|update)_by_query/" + taskId + "/_rethrottle", request -> StubResponse.ok(nodes))
+                    .on("POST", "/_tasks/_cancel", request -> StubResponse.ok(nodes));
+        }
+
+        private ESStubDocumentDao dao(RestHighLevelClient client) throws Exception {
+            return new ESStubDocumentDao(client).setCacheSetting(new ESCacheSetting())
+                    .setCoalesceSetting(new ESCoalesceSetting()).start();
+        }
+
+        /**
+         * GET _tasks/{taskId} 的响应，status 由客户端解析为 RawTaskStatus
+         */
+        private static String task(String taskId, boolean completed) {
+            String[] parts = taskId.split(":");
+            long deleted = completed ? 10 : 4;
+            return "{\"completed\":" + completed + ",\"task\":{\"node\":\"" + parts[0] + "\",\"id\":" + parts[1]
+                    + ",\"type\":\"transport\",\"action\":\"indices:data/write/delete/byquery\",\"status\":{\"total\":10,\"updated\":0,"
+                    + "\"created\":0,\"deleted\":" + deleted + ",\"batches\":1,\"version_conflicts\":1,\"noops\":0,"
+                    + "\"retries\":{\"bulk\":0,\"search\":0},\"throttled_millis\":0,\"requests_per_second\":-1.0,\"throttled_until_millis\":0},"
+                    + "\"description\":\"delete-by-query\",\"start_time_in_millis\":1,\"running_time_in_nanos\":2000000,"
+                    + "\"cancellable\":true,\"headers\":{}}}";
+        }
+    }
+}
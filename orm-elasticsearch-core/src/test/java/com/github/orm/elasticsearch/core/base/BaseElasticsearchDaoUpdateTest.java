@@ -0,0 +1,50 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class BaseElasticsearchDaoUpdateTest {
+
+    private static final String DOC_PATH = "/" + INDEX + "/_doc/a";
+
+    @Test
+    public void rereadsAndRetriesOnVersionConflict() throws Exception {
+        AtomicInteger seqNo = new AtomicInteger(5);
+        List<String> writes = new CopyOnWriteArrayList<>();
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("GET", DOC_PATH, request -> StubResponse.ok("{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":1,\"_seq_no\":"
+                        + seqNo.get() + ",\"_primary_term\":1,\"found\":true,\"_source\":{\"id\":\"a\",\"name\":\"n\",\"version\":" + seqNo.get() + "}}"))
+                .on("PUT", DOC_PATH, request -> {
+                    writes.add(request.query);
+                    if (writes.size() == 1) {
+                        // 读取后被其他写入抢先
+                        seqNo.incrementAndGet();
+                        return StubResponse.json(409, "{\"error\":{\"type\":\"version_conflict_engine_exception\",\"reason\":\"conflict\"},\"status\":409}");
+                    }
+                    return StubResponse.ok("{\"_index\":\"" + INDEX + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":2,\"result\":\"updated\","
+                            + "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":" + (seqNo.get() + 1) + ",\"_primary_term\":1}");
+                });
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESStubDocument updated = dao.update("a", current -> current.setVersion(current.getVersion() + 100));
+
+            assertEquals(106, updated.getVersion());
+            assertEquals(2, writes.size());
+            assertTrue(writes.get(0), writes.get(0).contains("if_seq_no=5"));
+            assertTrue(writes.get(1), writes.get(1).contains("if_seq_no=6"));
+        }
+    }
+}
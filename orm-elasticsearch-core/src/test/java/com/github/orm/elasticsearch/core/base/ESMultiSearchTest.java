@@ -0,0 +1,136 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubSearch;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class ESMultiSearchTest {
+
+    @Test
+    public void mapsEachResponseToItsItemAndAttributesFailures() throws Exception {
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/_msearch", request -> {
+                    List<String> responses = new ArrayList<>();
+                    // 请求体为 header/body 交替的 NDJSON，按查询的 name 条件返回对应结果
+                    String[] lines = request.body.split("\n");
+                    for (int i = 1; i < lines.length; i += 2) {
+                        String name = JSON.parseObject(lines[i]).getJSONObject("query").getJSONObject("term")
+                                .getJSONObject("name").getString("value");
+                        responses.add(item(name));
+                    }
+                    return StubResponse.ok("{\"took\":1,\"responses\":[" + String.join(",", responses) + "]}");
+                });
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESMultiSearch multiSearch = dao.multiSearch().setMaxConcurrentSearchRequests(2);
+            ESMultiSearchItem<ESStubDocument> first = multiSearch.add(dao, query("a"), new ESPageRequest(1, 10), null);
+            ESMultiSearchItem<ESStubDocument> rejected = multiSearch.add(dao, query("rejected"), new ESPageRequest(1, 10), null);
+            ESMultiSearchItem<ESStubDocument> undecodable = multiSearch.add(dao, query("undecodable"), new ESPageRequest(1, 10), null);
+            ESMultiSearchItem<ESBaseEntity<ESStubDocument>> base = multiSearch.addBase(dao, query("b"), new ESPageRequest(1, 10), null);
+            assertEquals(4, multiSearch.size());
+            try {
+                first.getResult();
+                fail("expected IllegalStateException before execute");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+
+            multiSearch.execute();
+
+            StubRequest msearch = server.requests().get(server.requests().size() - 1);
+            assertEquals("2", param(msearch, "max_concurrent_searches"));
+            assertEquals(8, msearch.body.split("\n").length);
+
+            // 成功的查询按所属位置解码，不受其他查询失败的影响
+            assertFalse(first.isFailed());
+            assertEquals(1, first.getResult().getResults().size());
+            assertEquals("a", first.getResult().getResults().get(0).getId());
+            assertFalse(base.isFailed());
+            assertEquals("b", base.getResult().getResults().get(0).getData().getId());
+            assertEquals(INDEX, base.getResult().getResults().get(0).getHitIndex());
+
+            // 服务端返回的单项错误只记录在对应的查询上
+            assertTrue(rejected.isDone());
+            assertTrue(rejected.isFailed());
+            assertNull(rejected.getResultOrNull());
+            assertTrue(rejected.getFailure() instanceof ElasticsearchException);
+            assertTrue(rejected.getFailure().getMessage(), rejected.getFailure().getMessage().contains("too_many_clauses"));
+            try {
+                rejected.getResult();
+                fail("expected ElasticsearchException");
+            } catch (ElasticsearchException e) {
+                assertSame(rejected.getFailure(), e.getCause());
+            }
+
+            // 解码失败同样只影响该查询
+            assertTrue(undecodable.isFailed());
+            assertFalse(undecodable.getFailure() instanceof ElasticsearchException);
+        }
+    }
+
+    @Test
+    public void wholeRequestFailureIsThrown() throws Exception {
+        ESStubRoutes routes = ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/_msearch", request -> StubResponse.json(503,
+                        "{\"error\":{\"type\":\"cluster_block_exception\",\"reason\":\"blocked\"},\"status\":503}"));
+        try (ESStubServer server = new ESStubServer(routes);
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+            ESMultiSearch multiSearch = dao.multiSearch();
+            ESMultiSearchItem<ESStubDocument> item = multiSearch.add(dao, query("a"), new ESPageRequest(1, 10), null);
+            try {
+                multiSearch.execute();
+                fail("expected ElasticsearchException");
+            } catch (ElasticsearchException e) {
+                assertEquals(503, e.status().getStatus());
+            }
+            assertFalse(item.isDone());
+        }
+    }
+
+    private static SearchSourceBuilder query(String name) {
+        return new SearchSourceBuilder().query(QueryBuilders.termQuery("name", name));
+    }
+
+    private static String param(StubRequest request, String name) {
+        for (String pair : request.query.split("&")) {
+            String[] kv = pair.split("=", 2);
+            if (kv[0].equals(name)) {
+                return kv[1];
+            }
+        }
+        return null;
+    }
+
+    private static String item(String name) {
+        switch (name) {
+            case "rejected":
+                return "{\"error\":{\"type\":\"too_many_clauses\",\"reason\":\"maxClauseCount is set to 1024\"},\"status\":400}";
+            case "undecodable":
+                return withStatus(ESStubSearch.hits(INDEX, 1, "{\"id\":\"u\",\"name\":\"n\",\"version\":\"not a number\"}"));
+            default:
+                return withStatus(ESStubSearch.hits(INDEX, 1, "{\"id\":\"" + name + "\",\"name\":\"" + name + "\",\"version\":1}"));
+        }
+    }
+
+    private static String withStatus(String searchResponse) {
+        return searchResponse.substring(0, searchResponse.length() - 1) + ",\"status\":200}";
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubSearch;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class ESScrollIteratorTest {
+
+    private static final String A = "{\"id\":\"a\",\"name\":\"n\",\"version\":1}";
+    private static final String B = "{\"id\":\"b\",\"name\":\"n\",\"version\":1}";
+    private static final String C = "{\"id\":\"c\",\"name\":\"n\",\"version\":1}";
+
+    @Test
+    public void iteratesAllPagesAndClearsEveryScrollIdOnce() throws Exception {
+        Map<String, StubResponse> pages = new HashMap<>();
+        pages.put("s1", StubResponse.ok(ESStubSearch.scroll("s2", INDEX, C)));
+        pages.put("s2", StubResponse.ok(ESStubSearch.scroll("s3", INDEX)));
+        try (ESStubServer server = new ESStubServer(routes(ESStubSearch.scroll("s1", INDEX, A, B), pages));
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESScrollIterator<ESStubDocument> iterator = scroll(client);
+            List<String> ids = new ArrayList<>();
+            iterator.forEachRemaining(document -> ids.add(document.getId()));
+            assertEquals(3, ids.size());
+            assertEquals("a", ids.get(0));
+            assertEquals("c", ids.get(2));
+            assertFalse(iterator.hasNext());
+            expectExhausted(iterator);
+            iterator.close();
+            // 最后一批为空时同样需要清理，且之后的 close 不会重复清理
+            assertEquals(1, awaitClears(server, "s3"));
+            assertEquals(1, clearCount(server, "s1"));
+            assertEquals(1, clearCount(server, "s2"));
+            assertEquals(3, clearedIds(server).size());
+            assertEquals(1, clearCalls(server));
+        }
+    }
+
+    @Test
+    public void emptyFirstPageClearsScrollOnce() throws Exception {
+        try (ESStubServer server = new ESStubServer(routes(ESStubSearch.scroll("s1", INDEX), new HashMap<>()));
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESScrollIterator<ESStubDocument> iterator = scroll(client);
+            assertFalse(iterator.hasNext());
+            expectExhausted(iterator);
+            iterator.close();
+            assertEquals(1, awaitClears(server, "s1"));
+            assertEquals(1, clearedIds(server).size());
+            assertEquals(0, scrollRequests(server));
+        }
+    }
+
+    @Test
+    public void closeDuringPrefetchClearsScrollIdReturnedByPrefetch() throws Exception {
+        Map<String, StubResponse> pages = new HashMap<>();
+        pages.put("s1", StubResponse.ok(ESStubSearch.scroll("s2", INDEX, B)).delay(300));
+        try (ESStubServer server = new ESStubServer(routes(ESStubSearch.scroll("s1", INDEX, A), pages));
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESScrollIterator<ESStubDocument> iterator = scroll(client);
+            assertEquals("a", iterator.next().getId());
+            waitFor(() -> scrollRequests(server) == 1);
+            iterator.close();
+            iterator.close();
+            assertFalse(iterator.hasNext());
+            expectExhausted(iterator);
+            // 预取返回前不清理，返回后连同其携带的新scroll id一起清理
+            assertEquals(1, awaitClears(server, "s2"));
+            assertEquals(1, clearCount(server, "s1"));
+            assertEquals(2, clearedIds(server).size());
+            assertEquals(1, clearCalls(server));
+        }
+    }
+
+    @Test
+    public void failedPrefetchClosesAndClearsScrollOnce() throws Exception {
+        Map<String, StubResponse> pages = new HashMap<>();
+        pages.put("s1", StubResponse.json(500, "{\"error\":{\"type\":\"search_phase_execution_exception\",\"reason\":\"boom\"},\"status\":500}"));
+        try (ESStubServer server = new ESStubServer(routes(ESStubSearch.scroll("s1", INDEX, A), pages));
+             RestHighLevelClient client = ESStubServer.client(5000, server)) {
+            ESScrollIterator<ESStubDocument> iterator = scroll(client);
+            assertEquals("a", iterator.next().getId());
+            try {
+                iterator.hasNext();
+                fail("expected failed prefetch to surface");
+            } catch (ElasticsearchException e) {
+                assertEquals("scroll 查询失败", e.getMessage());
+            }
+            assertFalse(iterator.hasNext());
+            expectExhausted(iterator);
+            iterator.close();
+            assertEquals(1, awaitClears(server, "s1"));
+            assertEquals(1, clearedIds(server).size());
+        }
+    }
+
+    private static ESStubRoutes routes(String firstPage, Map<String, StubResponse> pages) {
+        return ESStubDocumentDao.routes(INDEX, "keyword")
+                .on("POST", "/" + INDEX + "/_search", request -> StubResponse.ok(firstPage))
+                .on("POST", "/_search/scroll", request -> {
+                    StubResponse page = pages.get(JSON.parseObject(request.body).getString("scroll_id"));
+                    return page != null ? page : StubResponse.json(404, "{\"error\":{\"type\":\"search_context_missing_exception\",\"reason\":\"No search context found\"},\"status\":404}");
+                })
+                .on("DELETE", "/_search/scroll", request -> StubResponse.ok("{\"succeeded\":true,\"num_freed\":1}"));
+    }
+
+    private static ESScrollIterator<ESStubDocument> scroll(RestHighLevelClient client) throws Exception {
+        ESStubDocumentDao dao = new ESStubDocumentDao(client).start();
+        return dao.scroll(new SearchSourceBuilder().size(2));
+    }
+
+    private static void expectExhausted(ESScrollIterator<ESStubDocument> iterator) {
+        try {
+            iterator.next();
+            fail("expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    private static long scrollRequests(ESStubServer server) {
+        return server.requests().stream().filter(r -> "POST".equals(r.method) && "/_search/scroll".equals(r.path)).count();
+    }
+
+    private static List<String> clearedIds(ESStubServer server) {
+        List<String> ids = new ArrayList<>();
+        for (StubRequest request : server.requests()) {
+            if ("DELETE".equals(request.method) && "/_search/scroll".equals(request.path)) {
+                ids.addAll(JSON.parseObject(request.body).getJSONArray("scroll_id").toJavaList(String.class));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 等待清理请求到达后再稍等片刻，以便捕获重复的清理
+     */
+    private static long awaitClears(ESStubServer server, String scrollId) throws InterruptedException {
+        waitFor(() -> clearedIds(server).contains(scrollId));
+        Thread.sleep(200);
+        return clearCount(server, scrollId);
+    }
+
+    private static long clearCount(ESStubServer server, String scrollId) {
+        return clearedIds(server).stream().filter(scrollId::equals).count();
+    }
+
+    private static long clearCalls(ESStubServer server) {
+        return server.requests().stream().filter(r -> "DELETE".equals(r.method) && "/_search/scroll".equals(r.path)).count();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.orm.elasticsearch.core.base;
+
+import com.github.orm.elasticsearch.core.annotation.ESTimePartition;
+import com.github.orm.elasticsearch.core.codec.ESEntityCodec;
+import com.github.orm.elasticsearch.core.enums.ESPartitionUnit;
+import lombok.Data;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class ESTimePartitionerTest {
+
+    private static final String INDEX = "event";
+
+    @Data
+    @ESTimePartition(field = "time", zone = "UTC")
+    public static class DailyEvent {
+        private String id;
+        private Date time;
+    }
+
+    @Data
+    @ESTimePartition(field = "time", unit = ESPartitionUnit.MONTH, zone = "UTC")
+    public static class MonthlyEvent {
+        private String id;
+        private Date time;
+    }
+
+    private static <T> ESTimePartitioner partitioner(Class<T> type) {
+        return new ESTimePartitioner(INDEX, type.getAnnotation(ESTimePartition.class), ESEntityCodec.of(type));
+    }
+
+    private static Date utc(int year, int month, int day, int hour) {
+        return Date.from(LocalDateTime.of(year, month, day, hour, 0).toInstant(ZoneOffset.UTC));
+    }
+
+    @Test
+    public void dayInsideRange() {
+        assertArrayEquals(new String[]{"event-2026.10.18"},
+                partitioner(DailyEvent.class).partitions(utc(2026, 10, 18, 1), utc(2026, 10, 18, 23)));
+    }
+
+    @Test
+    public void monthInsideRange() {
+        assertArrayEquals(new String[]{"event-2026.10"},
+                partitioner(MonthlyEvent.class).partitions(utc(2026, 10, 3, 0), utc(2026, 10, 28, 0)));
+    }
+
+    @Test
+    public void rangeCrossingBoundaries() {
+        assertArrayEquals(new String[]{"event-2026.12.31", "event-2027.01.01"},
+                partitioner(DailyEvent.class).partitions(utc(2026, 12, 31, 22), utc(2027, 1, 1, 2)));
+        // from 不在月初时同样包含其所在月份
+        assertArrayEquals(new String[]{"event-2026.11", "event-2026.12", "event-2027.01"},
+                partitioner(MonthlyEvent.class).partitions(utc(2026, 11, 30, 0), utc(2027, 1, 1, 0)));
+    }
+
+    @Test
+    public void openEndedRangeUsesPattern() {
+        ESTimePartitioner partitioner = partitioner(DailyEvent.class);
+        assertArrayEquals(new String[]{"event-*"}, partitioner.partitions(utc(2026, 10, 18, 0), null));
+        assertArrayEquals(new String[]{"event-*"}, partitioner.partitions(null, utc(2026, 10, 18, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invertedRangeIsRejected() {
+        partitioner(DailyEvent.class).partitions(utc(2026, 10, 19, 0), utc(2026, 10, 18, 0));
+    }
+
+    @Test
+    public void sameInstantIsOnePartition() {
+        Date time = utc(2026, 10, 18, 12);
+        assertArrayEquals(new String[]{"event-2026.10.18"}, partitioner(DailyEvent.class).partitions(time, time));
+    }
+
+    @Test
+    public void tooManyPartitionsFallBackToPattern() {
+        ESTimePartitioner partitioner = partitioner(DailyEvent.class);
+        // 2024 年共366天，2024.01.01 至 2025.02.03 恰好400个分区
+        assertEquals(400, partitioner.partitions(utc(2024, 1, 1, 0), utc(2025, 2, 3, 0)).length);
+        assertArrayEquals(new String[]{"event-*"}, partitioner.partitions(utc(2024, 1, 1, 0), utc(2025, 2, 4, 0)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.orm.elasticsearch.core.bulk;
+
+import com.github.orm.elasticsearch.core.setting.ESBulkRetryPolicy;
+import com.github.orm.elasticsearch.core.support.ESStubBulk;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ESBulkExecutorTest {
+
+    private final ESBulkRetryPolicy policy = new ESBulkRetryPolicy().setInitialBackoffMillis(1).setMaxRetries(2);
+
+    @Test
+    public void resendsOnlyRejectedItems() throws Exception {
+        try (ESStubServer server = new ESStubServer(null)) {
+            server.setHandler(request -> {
+                boolean first = server.requests().size() == 1;
+                return StubResponse.ok(ESStubBulk.response(request.body, i -> first && i != 1 ? 429 : 201));
+            });
+            try (RestHighLevelClient client = ESStubServer.client(5000, server)) {
+                ESBulkResult result = new ESBulkExecutor(client, RequestOptions.DEFAULT, policy).execute(requests());
+                assertFalse(result.hasFailures());
+                assertEquals(1, result.getRetries());
+                assertEquals(1, result.getItems().get(1).getAttempts());
+                assertEquals(2, result.getItems().get(0).getAttempts());
+                List<String[]> resent = ESStubBulk.actions(server.requests().get(1).body);
+                assertEquals(2, resent.size());
+                assertEquals("0", resent.get(0)[2]);
+                assertNull(resent.get(1)[2]);
+            }
+        }
+    }
+
+    @Test
+    public void doesNotReplayBulkAfterReadTimeout() throws Exception {
+        // IO reactor 每秒检查一次超时，延迟须明显长于检查间隔
+        try (ESStubServer server = new ESStubServer(request -> StubResponse.ok(ESStubBulk.success(request.body)).delay(3000))) {
+            try (RestHighLevelClient client = ESStubServer.client(200, server)) {
+                ESBulkResult result = new ESBulkExecutor(client, RequestOptions.DEFAULT, policy).execute(requests());
+                assertEquals(3, result.getFailures().size());
+                assertEquals(0, result.getRetries());
+                assertEquals(1, server.requests().size());
+            }
+        }
+    }
+
+    @Test
+    public void replaysBulkThatNeverConnected() throws Exception {
+        ESStubServer server = new ESStubServer(request -> StubResponse.ok(ESStubBulk.success(request.body)));
+        server.close();
+        try (RestHighLevelClient client = ESStubServer.client(200, server)) {
+            ESBulkResult result = new ESBulkExecutor(client, RequestOptions.DEFAULT, policy).execute(requests());
+            assertEquals(3, result.getFailures().size());
+            assertEquals(2, result.getRetries());
+            assertEquals(3, result.getItems().get(2).getAttempts());
+        }
+    }
+
+    private static List<DocWriteRequest<?>> requests() {
+        return Arrays.asList(
+                new IndexRequest("test").id("0").source("{\"name\":\"a\"}", XContentType.JSON),
+                new IndexRequest("test").id("1").source("{\"name\":\"b\"}", XContentType.JSON),
+                new IndexRequest("test").source("{\"name\":\"c\"}", XContentType.JSON));
+    }
+}
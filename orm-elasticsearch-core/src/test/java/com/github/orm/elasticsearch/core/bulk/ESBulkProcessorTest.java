@@ -0,0 +1,125 @@
+package com.github.orm.elasticsearch.core.bulk;
+
+import com.github.orm.elasticsearch.core.setting.ESBulkRetryPolicy;
+import com.github.orm.elasticsearch.core.setting.ESBulkSetting;
+import com.github.orm.elasticsearch.core.support.ESStubBulk;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ESBulkProcessorTest {
+
+    private ESStubServer server;
+    private RestHighLevelClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ESStubServer(request -> StubResponse.ok(ESStubBulk.success(request.body)));
+        client = ESStubServer.client(5000, server);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void flushesWhenBatchIsFullAndCompletesEachFuture() throws Exception {
+        ESBulkProcessor processor = new ESBulkProcessor(client, RequestOptions.DEFAULT,
+                new ESBulkSetting().setBulkActions(3).setFlushIntervalMillis(0), "test");
+        List<CompletableFuture<ESBulkItemResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(processor.add(indexRequest(String.valueOf(i))));
+        }
+        for (int i = 0; i < 3; i++) {
+            ESBulkItemResult result = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertFalse(result.isFailed());
+            assertEquals(String.valueOf(i), result.getId());
+        }
+        assertEquals(1, server.requests().size());
+        assertEquals(3, ESStubBulk.actions(server.requests().get(0).body).size());
+        assertTrue(processor.awaitClose(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void resendsOnlyRejectedItems() throws Exception {
+        // 首次请求中第二个文档被拒绝
+        server.setHandler(request -> {
+            boolean first = server.requests().size() == 1;
+            return StubResponse.ok(ESStubBulk.response(request.body, i -> first && i == 1 ? 429 : 201));
+        });
+        ESBulkSetting setting = new ESBulkSetting().setBulkActions(3).setFlushIntervalMillis(0)
+                .setRetryPolicy(new ESBulkRetryPolicy().setInitialBackoffMillis(1));
+        ESBulkProcessor processor = new ESBulkProcessor(client, RequestOptions.DEFAULT, setting, "test");
+        List<CompletableFuture<ESBulkItemResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(processor.add(indexRequest(String.valueOf(i))));
+        }
+        ESBulkItemResult retried = futures.get(1).get(5, TimeUnit.SECONDS);
+        assertFalse(retried.isFailed());
+        assertEquals(2, retried.getAttempts());
+        assertEquals(1, futures.get(0).get().getAttempts());
+        assertEquals(2, server.requests().size());
+        List<String[]> resent = ESStubBulk.actions(server.requests().get(1).body);
+        assertEquals(1, resent.size());
+        assertEquals("1", resent.get(0)[2]);
+        assertTrue(processor.awaitClose(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void closeRacingWithAddNeverLeavesFutureIncomplete() throws Exception {
+        for (int round = 0; round < 30; round++) {
+            ESBulkProcessor processor = new ESBulkProcessor(client, RequestOptions.DEFAULT,
+                    new ESBulkSetting().setBulkActions(50).setFlushIntervalMillis(0), "race");
+            List<CompletableFuture<ESBulkItemResult>> futures = new CopyOnWriteArrayList<>();
+            ExecutorService writers = Executors.newFixedThreadPool(4);
+            CountDownLatch started = new CountDownLatch(4);
+            AtomicInteger sequence = new AtomicInteger();
+            for (int t = 0; t < 4; t++) {
+                writers.execute(() -> {
+                    started.countDown();
+                    while (true) {
+                        try {
+                            futures.add(processor.add(indexRequest(String.valueOf(sequence.incrementAndGet()))));
+                        } catch (RejectedExecutionException e) {
+                            return;
+                        }
+                    }
+                });
+            }
+            started.await();
+            assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+            writers.shutdown();
+            assertTrue(writers.awaitTermination(5, TimeUnit.SECONDS));
+            for (CompletableFuture<ESBulkItemResult> future : futures) {
+                ESBulkItemResult result = future.get(5, TimeUnit.SECONDS);
+                assertFalse(result.getFailureMessage(), result.isFailed());
+            }
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsAddAfterClose() throws Exception {
+        ESBulkProcessor processor = new ESBulkProcessor(client, RequestOptions.DEFAULT, new ESBulkSetting(), "test");
+        processor.close();
+        processor.add(indexRequest("1"));
+    }
+
+    private static IndexRequest indexRequest(String id) {
+        return new IndexRequest("test").id(id).source("{\"name\":\"n" + id + "\"}", XContentType.JSON);
+    }
+}
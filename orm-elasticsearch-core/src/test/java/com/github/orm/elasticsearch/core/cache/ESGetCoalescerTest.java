@@ -0,0 +1,171 @@
+package com.github.orm.elasticsearch.core.cache;
+
+import com.github.orm.elasticsearch.core.setting.ESCoalesceSetting;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ESGetCoalescerTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<Map<String, BytesReference>>> results = new CopyOnWriteArrayList<>();
+
+    private CompletableFuture<Map<String, BytesReference>> load(List<String> ids) {
+        batches.add(ids);
+        CompletableFuture<Map<String, BytesReference>> result = new CompletableFuture<>();
+        results.add(result);
+        return result;
+    }
+
+    private static Map<String, BytesReference> sources(String... ids) {
+        Map<String, BytesReference> sources = new HashMap<>();
+        for (String id : ids) {
+            sources.put(id, new BytesArray(id));
+        }
+        return sources;
+    }
+
+    @Test
+    public void sharesInFlightLoadForSameId() throws Exception {
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting(), this::load, "test");
+        CompletableFuture<ESGetCoalescer.Fetch> first = coalescer.get("a");
+        CompletableFuture<ESGetCoalescer.Fetch> second = coalescer.get("a");
+        assertSame(first, second);
+        assertEquals(1, batches.size());
+
+        results.get(0).complete(sources("a"));
+        assertEquals("a", first.get().getSource().utf8ToString());
+        // 完成后不再复用
+        coalescer.get("a");
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void invalidateStopsSharingSentLoad() throws Exception {
+        AtomicLong generation = new AtomicLong();
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting(), this::load, id -> generation.get(), "test");
+        CompletableFuture<ESGetCoalescer.Fetch> before = coalescer.get("a");
+        // 请求发出后文档被写入
+        generation.incrementAndGet();
+        coalescer.invalidate("a");
+        CompletableFuture<ESGetCoalescer.Fetch> after = coalescer.get("a");
+        assertNotSame(before, after);
+        assertEquals(2, batches.size());
+
+        results.get(0).complete(sources("a"));
+        results.get(1).complete(sources("a"));
+        assertEquals(0, before.get().getStamp());
+        assertEquals(1, after.get().getStamp());
+    }
+
+    @Test
+    public void invalidateKeepsUnsentLoad() throws Exception {
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting().setBatchWindowMillis(60_000), this::load, "test");
+        try {
+            CompletableFuture<ESGetCoalescer.Fetch> before = coalescer.get("a");
+            coalescer.invalidate("a");
+            coalescer.invalidateAll();
+            // 尚未发出的请求在写入之后才读取，可以继续复用
+            assertSame(before, coalescer.get("a"));
+        } finally {
+            coalescer.close();
+        }
+        assertEquals(1, batches.size());
+        assertEquals(Collections.singletonList("a"), batches.get(0));
+    }
+
+    @Test
+    public void completesMissingIdWithNull() throws Exception {
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting(), this::load, "test");
+        CompletableFuture<ESGetCoalescer.Fetch> future = coalescer.get("a");
+        results.get(0).complete(Collections.emptyMap());
+        assertNull(future.get().getSource());
+    }
+
+    @Test
+    public void batchesDistinctIdsWithinWindow() throws Exception {
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting().setBatchWindowMillis(50), this::load, "test");
+        try {
+            CompletableFuture<ESGetCoalescer.Fetch> a = coalescer.get("a");
+            CompletableFuture<ESGetCoalescer.Fetch> b = coalescer.get("b");
+            assertTrue(batches.isEmpty());
+            waitFor(1);
+            assertEquals(Arrays.asList("a", "b"), batches.get(0));
+
+            results.get(0).complete(sources("a", "b"));
+            assertEquals("a", a.get().getSource().utf8ToString());
+            assertEquals("b", b.get().getSource().utf8ToString());
+        } finally {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    public void sendsImmediatelyWhenBatchIsFull() {
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting().setBatchWindowMillis(60_000).setMaxBatchSize(2), this::load, "test");
+        try {
+            coalescer.get("a");
+            coalescer.get("b");
+            assertEquals(1, batches.size());
+            assertEquals(Arrays.asList("a", "b"), batches.get(0));
+            coalescer.get("c");
+            assertEquals(1, batches.size());
+        } finally {
+            coalescer.close();
+        }
+        // 关闭时发送剩余请求
+        assertEquals(2, batches.size());
+        assertEquals(Collections.singletonList("c"), batches.get(1));
+    }
+
+    @Test
+    public void failsWholeBatchWhenLoaderFails() throws Exception {
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting(), this::load, "test");
+        CompletableFuture<ESGetCoalescer.Fetch> future = coalescer.get("a");
+        IllegalStateException failure = new IllegalStateException("mget failed");
+        results.get(0).completeExceptionally(failure);
+        assertSame(failure, cause(future));
+        // 失败后不再复用
+        coalescer.get("a");
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void failsFutureWhenLoaderThrows() throws Exception {
+        IllegalStateException failure = new IllegalStateException("rejected");
+        ESGetCoalescer coalescer = new ESGetCoalescer(new ESCoalesceSetting(), ids -> {
+            throw failure;
+        }, "test");
+        assertSame(failure, cause(coalescer.get("a")));
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            throw new AssertionError("future did not complete", e);
+        }
+    }
+
+    private void waitFor(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batches.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, batches.size());
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.orm.elasticsearch.core.cache;
+
+import com.github.orm.elasticsearch.core.setting.ESCacheSetting;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ESNearCacheTest {
+
+    @Test
+    public void cachesACopyOfTheSource() {
+        ESNearCache cache = new ESNearCache(new ESCacheSetting());
+        byte[] bytes = "{\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8);
+        cache.put("a", new BytesArray(bytes), cache.stamp("a"));
+        bytes[2] = 'X';
+        assertEquals("{\"name\":\"a\"}", cache.get("a").utf8ToString());
+        assertNull(cache.get("b"));
+        ESCacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void dropsFillWhenInvalidatedAfterStamp() {
+        ESNearCache cache = new ESNearCache(new ESCacheSetting().setSegments(1));
+        long stamp = cache.stamp("a");
+        // 读取集群期间其他线程写入并失效
+        cache.invalidate("a");
+        cache.put("a", source("old"), stamp);
+        assertNull(cache.get("a"));
+        cache.put("a", source("new"), cache.stamp("a"));
+        assertEquals("new", cache.get("a").utf8ToString());
+    }
+
+    @Test
+    public void expiresAfterTtl() throws InterruptedException {
+        ESNearCache cache = new ESNearCache(new ESCacheSetting().setTtlMillis(20));
+        cache.put("a", source("a"), cache.stamp("a"));
+        assertNotNull(cache.get("a"));
+        Thread.sleep(50);
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByCount() {
+        ESNearCache cache = new ESNearCache(new ESCacheSetting().setSegments(1).setMaxEntries(2));
+        cache.put("a", source("a"), cache.stamp("a"));
+        cache.put("b", source("b"), cache.stamp("b"));
+        cache.get("a");
+        cache.put("c", source("c"), cache.stamp("c"));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void evictsByWeightAndSkipsOversizedEntries() {
+        ESNearCache cache = new ESNearCache(new ESCacheSetting().setSegments(1).setMaxWeightBytes(300));
+        cache.put("a", source(repeat(100)), cache.stamp("a"));
+        cache.put("b", source(repeat(100)), cache.stamp("b"));
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertTrue(cache.stats().getWeightBytes() <= 300);
+        cache.put("c", source(repeat(400)), cache.stamp("c"));
+        assertNull(cache.get("c"));
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    public void invalidateAllClearsEverySegment() {
+        ESNearCache cache = new ESNearCache(new ESCacheSetting().setSegments(4));
+        for (int i = 0; i < 20; i++) {
+            cache.put("k" + i, source("v"), cache.stamp("k" + i));
+        }
+        assertEquals(20, cache.stats().getSize());
+        long stamp = cache.stamp("k0");
+        cache.invalidateAll();
+        cache.put("k0", source("v"), stamp);
+        assertEquals(0, cache.stats().getSize());
+        assertEquals(0, cache.stats().getWeightBytes());
+    }
+
+    private static BytesReference source(String value) {
+        return new BytesArray(value);
+    }
+
+    private static String repeat(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.orm.elasticsearch.core.client;
+
+import com.github.orm.elasticsearch.core.setting.ESClientSetting;
+import org.apache.http.HttpHeaders;
+import org.elasticsearch.client.RequestOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ESClientFactoryTest {
+
+    @Test
+    public void writeProfileDoesNotRequestCompression() {
+        ESRequestOptions options = ESClientFactory.requestOptions(new ESClientSetting().setCompression(true));
+        assertTrue(acceptsGzip(options.getGet()));
+        assertTrue(acceptsGzip(options.getSearch()));
+        assertFalse(acceptsGzip(options.getWrite()));
+        assertNotSame(options.getGet(), options.getWrite());
+    }
+
+    private static boolean acceptsGzip(RequestOptions options) {
+        return options.getHeaders().stream().anyMatch(header -> HttpHeaders.ACCEPT_ENCODING.equals(header.getName()));
+    }
+}
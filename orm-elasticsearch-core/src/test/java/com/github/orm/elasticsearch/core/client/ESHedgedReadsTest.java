@@ -0,0 +1,153 @@
+package com.github.orm.elasticsearch.core.client;
+
+import com.github.orm.elasticsearch.core.base.ElasticsearchUtils;
+import com.github.orm.elasticsearch.core.setting.ESClientSetting;
+import com.github.orm.elasticsearch.core.support.ESStubRoutes;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ESHedgedReadsTest {
+
+    private static final String INDEX = "hedged_test";
+    private static final String DOC_PATH = "/" + INDEX + "/_doc/a";
+    private static final long SLOW_MILLIS = 3000;
+
+    @Test
+    public void synchronousThrowCompletesFuture() throws Exception {
+        ESHedgedReads hedgedReads = new ESHedgedReads(null, 50, 0);
+        try {
+            IllegalStateException failure = new IllegalStateException("client is closed");
+            CompletableFuture<Object> future = hedgedReads.execute(listener -> {
+                throw failure;
+            });
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("expected failure");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+            assertEquals(0, hedgedReads.getHedgeCount());
+        } finally {
+            hedgedReads.close();
+        }
+    }
+
+    @Test
+    public void synchronousThrowOfHedgeWaitsForOriginal() throws Exception {
+        ESHedgedReads hedgedReads = new ESHedgedReads(null, 20, 0);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            String result = hedgedReads.executeSync(listener -> {
+                if (calls.incrementAndGet() > 1) {
+                    throw new IllegalStateException("rejected");
+                }
+                CompletableFuture.runAsync(() -> {
+                    sleep(200);
+                    listener.onResponse("original");
+                });
+            });
+            assertEquals("original", result);
+            assertEquals(2, calls.get());
+            assertEquals(1, hedgedReads.getHedgeCount());
+        } finally {
+            hedgedReads.close();
+        }
+    }
+
+    @Test
+    public void hedgeReturnsFromFastNode() throws Exception {
+        AtomicLong slowDelay = new AtomicLong();
+        try (ESStubServer slow = new ESStubServer(new ESStubRoutes().on("GET", DOC_PATH, request -> found().delay(slowDelay.get())));
+             ESStubServer fast = new ESStubServer(routes(0))) {
+            ElasticsearchUtils utils = ESClientFactory.create(setting(slow, fast).setHedgedReads(true).setHedgeDelayMillis(300));
+            try {
+                // 预热两个节点的连接，避免首次建连的耗时触发对冲
+                for (int i = 0; i < 2; i++) {
+                    assertTrue(utils.getClient().get(new GetRequest(INDEX, "a"), RequestOptions.DEFAULT).isExists());
+                }
+                slowDelay.set(SLOW_MILLIS);
+                int slowBefore = slow.requests().size();
+                ESHedgedReads hedgedReads = utils.getHedgedReads();
+                // 客户端轮询节点，连续两次请求中必有一次先发到慢节点
+                for (int i = 0; i < 2; i++) {
+                    long start = System.nanoTime();
+                    GetResponse response = hedgedReads.executeSync(listener ->
+                            utils.getClient().getAsync(new GetRequest(INDEX, "a"), RequestOptions.DEFAULT, listener));
+                    assertTrue(response.isExists());
+                    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < SLOW_MILLIS / 2);
+                }
+                // 先发到慢节点的请求都经对冲由快节点返回
+                int slowHits = slow.requests().size() - slowBefore;
+                assertTrue(slowHits >= 1);
+                assertEquals(slowHits, hedgedReads.getHedgeCount());
+                // 调用方在 future 完成时即返回，胜出计数稍后才增加
+                long deadline = System.currentTimeMillis() + 1000;
+                while (hedgedReads.getHedgeWinCount() < slowHits && System.currentTimeMillis() < deadline) {
+                    sleep(5);
+                }
+                assertEquals(slowHits, hedgedReads.getHedgeWinCount());
+            } finally {
+                utils.close();
+            }
+        }
+    }
+
+    @Test
+    public void latencyAwareSelectorAvoidsSlowNode() throws Exception {
+        try (ESStubServer slow = new ESStubServer(routes(1000));
+             ESStubServer fast = new ESStubServer(routes(0))) {
+            ElasticsearchUtils utils = ESClientFactory.create(setting(slow, fast).setLatencyAware(true)
+                    .setSlowNodeFactor(3).setSlowNodeMinMillis(50).setProbeIntervalMillis(60000));
+            try {
+                // 轮询使两个节点各有耗时记录
+                for (int i = 0; i < 2; i++) {
+                    assertTrue(utils.getClient().get(new GetRequest(INDEX, "a"), RequestOptions.DEFAULT).isExists());
+                }
+                assertEquals(1, slow.requests().size());
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(utils.getClient().get(new GetRequest(INDEX, "a"), RequestOptions.DEFAULT).isExists());
+                }
+                assertEquals(1, slow.requests().size());
+                assertEquals(11, fast.requests().size());
+            } finally {
+                utils.close();
+            }
+        }
+    }
+
+    private static ESClientSetting setting(ESStubServer... servers) {
+        ESClientSetting setting = new ESClientSetting();
+        setting.setHosts(Arrays.asList(servers[0].host().toURI(), servers[1].host().toURI()));
+        return setting;
+    }
+
+    private static ESStubRoutes routes(long delayMillis) {
+        return new ESStubRoutes().on("GET", DOC_PATH, request -> found().delay(delayMillis));
+    }
+
+    private static StubResponse found() {
+        return StubResponse.ok("{\"_index\":\"" + INDEX
+                + "\",\"_type\":\"_doc\",\"_id\":\"a\",\"_version\":1,\"_seq_no\":0,\"_primary_term\":1,\"found\":true,\"_source\":{}}");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
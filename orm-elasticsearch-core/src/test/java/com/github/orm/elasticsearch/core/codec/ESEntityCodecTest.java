@@ -0,0 +1,207 @@
+package com.github.orm.elasticsearch.core.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.annotation.JSONField;
+import com.alibaba.fastjson.annotation.JSONType;
+import com.github.orm.elasticsearch.core.annotation.ESId;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ESEntityCodecTest {
+
+    @Test
+    public void encodesTheSamePropertiesAsFastjson() {
+        Account account = Account.sample();
+        ESEntityCodec<Account> codec = ESEntityCodec.of(Account.class);
+        JSONObject expected = JSON.parseObject(JSON.toJSONString(account));
+        JSONObject actual = JSON.parseObject(codec.toBytes(account).utf8ToString());
+        assertEquals(expected, actual);
+        assertTrue(actual.containsKey("active"));
+        assertTrue(actual.containsKey("renamed"));
+        assertTrue(actual.containsKey("fullName"));
+        assertEquals("2020-01-02", actual.getString("day"));
+        assertFalse(actual.containsKey("isActive"));
+        assertFalse(actual.containsKey("hidden"));
+        assertFalse(actual.containsKey("noGetter"));
+        assertFalse(actual.containsKey("ignoredByType"));
+    }
+
+    @Test
+    public void decodesDocumentsWrittenByFastjson() {
+        Account account = Account.sample();
+        ESEntityCodec<Account> codec = ESEntityCodec.of(Account.class);
+        Account decoded = codec.decode(JSON.toJSONString(account));
+        assertEquals(JSON.toJSONString(JSON.parseObject(JSON.toJSONString(account), Account.class)), JSON.toJSONString(decoded));
+        assertFalse(decoded.isActive());
+        assertEquals("o", decoded.getOriginal());
+        assertEquals(account.getDay(), decoded.getDay());
+        assertEquals(account.getItems(), decoded.getItems());
+    }
+
+    @Test
+    public void matchesNamesLikeFastjson() {
+        ESEntityCodec<Account> codec = ESEntityCodec.of(Account.class);
+        Account decoded = codec.decode("{\"isActive\":false,\"old_name\":\"x\",\"public_field\":\"p\"}");
+        Account expected = JSON.parseObject("{\"isActive\":false,\"old_name\":\"x\",\"public_field\":\"p\"}", Account.class);
+        assertEquals(expected.isActive(), decoded.isActive());
+        assertEquals("x", decoded.getOriginal());
+        assertEquals(expected.publicField, decoded.publicField);
+    }
+
+    @Test
+    public void idFieldWithoutGetterIsStillAccessible() {
+        ESEntityCodec<Account> codec = ESEntityCodec.of(Account.class);
+        Account account = Account.sample();
+        assertEquals("42", codec.getId(account));
+        codec.setId(account, "7");
+        assertEquals("7", codec.getId(account));
+    }
+
+    @Test
+    public void snapshotDiffUsesJsonNames() {
+        ESEntityCodec<Account> codec = ESEntityCodec.of(Account.class);
+        Account account = Account.sample();
+        ESEntitySnapshot snapshot = codec.snapshot(account);
+        assertNull(codec.diff(snapshot, account));
+        account.setActive(true);
+        account.setOriginal(null);
+        JSONObject diff = JSON.parseObject(codec.diff(snapshot, account).utf8ToString());
+        // fullName 由 original 计算得出，同样发生了变化
+        assertEquals(new HashSet<>(Arrays.asList("active", "renamed", "fullName")), diff.keySet());
+        assertEquals(Boolean.TRUE, diff.get("active"));
+        assertNull(diff.get("renamed"));
+    }
+
+    @Test
+    public void nonPublicEntityFallsBackToMethodHandles() {
+        Hidden hidden = new Hidden();
+        hidden.setName("n");
+        ESEntityCodec<Hidden> codec = ESEntityCodec.of(Hidden.class);
+        assertEquals(JSON.parseObject(JSON.toJSONString(hidden)), JSON.parseObject(codec.toBytes(hidden).utf8ToString()));
+        assertEquals("n", codec.decode("{\"name\":\"n\"}").getName());
+    }
+
+    @JSONType(ignores = "ignoredByType")
+    public static class Account {
+        @ESId
+        private long id;
+        private boolean isActive;
+        @JSONField(name = "renamed", alternateNames = "old_name")
+        private String original;
+        @JSONField(serialize = false)
+        private String hidden;
+        private String noGetter = "x";
+        public String publicField;
+        private String ignoredByType = "i";
+        @JSONField(format = "yyyy-MM-dd")
+        private Date day;
+        private Status status;
+        private List<Object> items;
+        private Map<String, Integer> counts;
+
+        static Account sample() {
+            Account account = new Account();
+            account.id = 42;
+            account.isActive = false;
+            account.original = "o";
+            account.hidden = "h";
+            account.publicField = "p";
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(2020, Calendar.JANUARY, 2);
+            account.day = calendar.getTime();
+            account.status = Status.OPEN;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("k", "v");
+            account.items = new ArrayList<>(Arrays.asList(item, "text", 3));
+            account.counts = new TreeMap<>();
+            account.counts.put("a", 1);
+            return account;
+        }
+
+        public boolean isActive() {
+            return isActive;
+        }
+
+        public Account setActive(boolean active) {
+            isActive = active;
+            return this;
+        }
+
+        public String getOriginal() {
+            return original;
+        }
+
+        public void setOriginal(String original) {
+            this.original = original;
+        }
+
+        public String getHidden() {
+            return hidden;
+        }
+
+        public void setHidden(String hidden) {
+            this.hidden = hidden;
+        }
+
+        public String getFullName() {
+            return original + "-" + publicField;
+        }
+
+        public String getIgnoredByType() {
+            return ignoredByType;
+        }
+
+        public Date getDay() {
+            return day;
+        }
+
+        public void setDay(Date day) {
+            this.day = day;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public List<Object> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Object> items) {
+            this.items = items;
+        }
+
+        public Map<String, Integer> getCounts() {
+            return counts;
+        }
+
+        public void setCounts(Map<String, Integer> counts) {
+            this.counts = counts;
+        }
+    }
+
+    public enum Status {
+        OPEN, CLOSED
+    }
+
+    static class Hidden {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
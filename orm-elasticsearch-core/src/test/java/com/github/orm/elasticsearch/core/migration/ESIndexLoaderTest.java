@@ -0,0 +1,68 @@
+package com.github.orm.elasticsearch.core.migration;
+
+import com.github.orm.elasticsearch.core.support.ESStubCluster;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubDocumentDao;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.github.orm.elasticsearch.core.support.ESStubDocumentDao.INDEX;
+import static org.junit.Assert.*;
+
+public class ESIndexLoaderTest {
+
+    private final ESStubCluster cluster = new ESStubCluster();
+    private ESStubServer server;
+    private RestHighLevelClient client;
+    private ESStubDocumentDao dao;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ESStubServer(cluster.routes());
+        client = ESStubServer.client(5000, server);
+        cluster.createIndex(INDEX);
+        cluster.put(INDEX, "old", "{\"id\":\"old\"}");
+        dao = new ESStubDocumentDao(client).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void rejectsWritesWhileLoadingAndReplacesDataOnPromote() {
+        ESIndexLoader<ESStubDocument> loader = dao.bulkLoader();
+        try {
+            dao.saveOrUpdate(new ESStubDocument().setId("lost").setName("n"));
+            fail("writes to the old index must be rejected while loading");
+        } catch (ElasticsearchStatusException e) {
+            assertEquals(403, e.status().getStatus());
+        }
+        loader.addAll(Arrays.asList(new ESStubDocument().setId("a"), new ESStubDocument().setId("b")));
+        loader.promote();
+
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(cluster.docs(INDEX).keySet().toArray()));
+        assertTrue(cluster.aliasIndices(INDEX).contains(loader.getIndex()));
+        dao.saveOrUpdate(new ESStubDocument().setId("c"));
+        assertTrue(cluster.docs(INDEX).containsKey("c"));
+    }
+
+    @Test
+    public void abortReleasesTheWriteBlock() {
+        ESIndexLoader<ESStubDocument> loader = dao.bulkLoader();
+        assertTrue(cluster.isBlocked(INDEX));
+        loader.close();
+        assertFalse(cluster.isBlocked(INDEX));
+        assertFalse(cluster.indices().contains(loader.getIndex()));
+        dao.saveOrUpdate(new ESStubDocument().setId("c"));
+        assertTrue(cluster.docs(INDEX).containsKey("c"));
+    }
+}
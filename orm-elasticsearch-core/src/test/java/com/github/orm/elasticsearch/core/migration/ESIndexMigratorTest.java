@@ -0,0 +1,97 @@
+package com.github.orm.elasticsearch.core.migration;
+
+import com.github.orm.elasticsearch.core.base.ElasticsearchUtils;
+import com.github.orm.elasticsearch.core.enums.ESMigrationMode;
+import com.github.orm.elasticsearch.core.setting.ESMigrationSetting;
+import com.github.orm.elasticsearch.core.setting.SimpleESClassSetting;
+import com.github.orm.elasticsearch.core.support.ESStubCluster;
+import com.github.orm.elasticsearch.core.support.ESStubDocument;
+import com.github.orm.elasticsearch.core.support.ESStubServer;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ESIndexMigratorTest {
+
+    private static final String INDEX = "stub_document_test";
+
+    private final ESStubCluster cluster = new ESStubCluster();
+    private ESStubServer server;
+    private RestHighLevelClient client;
+    private ESIndexMigrator migrator;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ESStubServer(cluster.routes());
+        client = ESStubServer.client(5000, server);
+        ElasticsearchUtils utils = new ElasticsearchUtils();
+        utils.setClient(client);
+        migrator = new ESIndexMigrator(utils);
+        cluster.createIndex(INDEX);
+        cluster.put(INDEX, "a", "{\"id\":\"a\",\"name\":\"a1\"}");
+        cluster.put(INDEX, "b", "{\"id\":\"b\",\"name\":\"b1\"}");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void writesDuringCopyAreCaughtUpBeforeSwap() {
+        AtomicInteger searches = new AtomicInteger();
+        AtomicBoolean blockedDuringCatchUp = new AtomicBoolean();
+        cluster.setSearchListener(body -> {
+            if (body.containsKey("query")) {
+                blockedDuringCatchUp.set(!cluster.put(INDEX, "late", "{\"id\":\"late\"}"));
+            } else if (!String.valueOf(body.get("sort")).contains("_seq_no") && searches.incrementAndGet() == 1) {
+                // 复制开始后的并发写入
+                cluster.put(INDEX, "a", "{\"id\":\"a\",\"name\":\"a2\"}");
+                cluster.put(INDEX, "c", "{\"id\":\"c\",\"name\":\"c1\"}");
+            }
+        });
+        String target = migrator.migrate(INDEX, ESStubDocument.class, new SimpleESClassSetting(), setting(), null);
+
+        assertTrue(blockedDuringCatchUp.get());
+        assertEquals(1, cluster.aliasIndices(INDEX).size());
+        assertTrue(cluster.aliasIndices(INDEX).contains(target));
+        Map<String, String> docs = cluster.docs(INDEX);
+        assertEquals(3, docs.size());
+        assertTrue(docs.get("a").contains("a2"));
+        assertTrue(docs.containsKey("c"));
+        assertFalse(cluster.isBlocked(target));
+    }
+
+    @Test
+    public void refusesToSwapWhenDocumentsWereDeletedDuringCopy() {
+        AtomicInteger searches = new AtomicInteger();
+        cluster.setSearchListener(body -> {
+            if (!body.containsKey("query") && !String.valueOf(body.get("sort")).contains("_seq_no") && searches.incrementAndGet() == 1) {
+                cluster.delete(INDEX, "b");
+            }
+        });
+        try {
+            migrator.migrate(INDEX, ESStubDocument.class, new SimpleESClassSetting(), setting(), null);
+            fail("deletion during copy must abort the swap");
+        } catch (ElasticsearchException e) {
+            assertTrue(e.getMessage().contains("未切换别名"));
+        }
+        assertTrue(cluster.aliasIndices(INDEX).isEmpty());
+        assertTrue(cluster.indices().contains(INDEX));
+        assertFalse(cluster.isBlocked(INDEX));
+        assertTrue(cluster.put(INDEX, "d", "{\"id\":\"d\"}"));
+    }
+
+    private static ESMigrationSetting setting() {
+        return new ESMigrationSetting().setMode(ESMigrationMode.SCROLL_BULK).setProgressIntervalMillis(50);
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.orm.elasticsearch.core.query;
+
+import com.alibaba.fastjson.JSON;
+import com.github.orm.elasticsearch.core.annotation.ESField;
+import com.github.orm.elasticsearch.core.base.ESSort;
+import com.github.orm.elasticsearch.core.enums.ESFieldType;
+import lombok.Data;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ESQueryTest {
+
+    public enum Status {
+        ACTIVE, CLOSED
+    }
+
+    @Data
+    public static class Order {
+        private String id;
+        @ESField(type = ESFieldType.TEXT, textRaw = true)
+        private String title;
+        @ESField(type = ESFieldType.TEXT)
+        private String remark;
+        private long amount;
+        private Date created;
+        private Status status;
+        private boolean paid;
+        @ESField(type = ESFieldType.NESTED)
+        private List<Item> items;
+        @ESField(type = ESFieldType.OBJECT)
+        private Item primary;
+    }
+
+    @Data
+    public static class Item {
+        private String sku;
+        private int quantity;
+        @ESField(type = ESFieldType.NESTED)
+        private List<Tag> tags;
+    }
+
+    @Data
+    public static class Tag {
+        private String name;
+    }
+
+    @Test
+    public void emptyQueryIsMatchAll() {
+        assertJson("{\"match_all\":{\"boost\":1.0}}", ESQuery.of(Order.class).toQuery());
+    }
+
+    @Test
+    public void termAndRangeGoToFilter() {
+        ESQuery<Order> query = ESQuery.of(Order.class)
+                .eq(Order::getStatus, Status.ACTIVE)
+                .between(Order::getCreated, new Date(1000L), new Date(2000L))
+                .gt("amount", 10)
+                .in(Order::getId, Arrays.asList("a", "b"));
+        assertJson("{\"bool\":{\"filter\":["
+                + "{\"term\":{\"status\":{\"value\":\"ACTIVE\",\"boost\":1.0}}},"
+                + "{\"range\":{\"created\":{\"from\":1000,\"to\":2000,\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},"
+                + "{\"range\":{\"amount\":{\"from\":10,\"to\":null,\"include_lower\":false,\"include_upper\":true,\"boost\":1.0}}},"
+                + "{\"terms\":{\"id\":[\"a\",\"b\"],\"boost\":1.0}}"
+                + "],\"adjust_pure_negative\":true,\"boost\":1.0}}", query.toQuery());
+    }
+
+    @Test
+    public void textFieldsUseRawSubFieldOrScoredMatch() {
+        ESQuery<Order> query = ESQuery.of(Order.class)
+                .eq(Order::getTitle, "标题")
+                .match(Order::getTitle, "关键词")
+                .eq(Order::getRemark, "备注")
+                .notExists(Order::isPaid);
+        assertJson("{\"bool\":{"
+                + "\"must\":["
+                + "{\"match\":{\"title\":{\"query\":\"关键词\",\"operator\":\"OR\",\"prefix_length\":0,\"max_expansions\":50,\"fuzzy_transpositions\":true,"
+                + "\"lenient\":false,\"zero_terms_query\":\"NONE\",\"auto_generate_synonyms_phrase_query\":true,\"boost\":1.0}}},"
+                + "{\"match_phrase\":{\"remark\":{\"query\":\"备注\",\"slop\":0,\"zero_terms_query\":\"NONE\",\"boost\":1.0}}}"
+                + "],"
+                + "\"filter\":[{\"term\":{\"title.raw\":{\"value\":\"标题\",\"boost\":1.0}}}],"
+                + "\"must_not\":[{\"exists\":{\"field\":\"paid\",\"boost\":1.0}}],"
+                + "\"adjust_pure_negative\":true,\"boost\":1.0}}", query.toQuery());
+    }
+
+    @Test
+    public void nestedFieldsAreWrappedFromOuterToInner() {
+        ESQuery<Order> query = ESQuery.of(Order.class)
+                .eq("items.sku", "s1")
+                .eq("items.tags.name", "t1")
+                .eq("primary.sku", "s2");
+        assertJson("{\"bool\":{\"filter\":["
+                + "{\"nested\":{\"query\":{\"term\":{\"items.sku\":{\"value\":\"s1\",\"boost\":1.0}}},\"path\":\"items\",\"ignore_unmapped\":false,\"score_mode\":\"none\",\"boost\":1.0}},"
+                + "{\"nested\":{\"query\":{\"nested\":{\"query\":{\"term\":{\"items.tags.name\":{\"value\":\"t1\",\"boost\":1.0}}},"
+                + "\"path\":\"items.tags\",\"ignore_unmapped\":false,\"score_mode\":\"none\",\"boost\":1.0}},"
+                + "\"path\":\"items\",\"ignore_unmapped\":false,\"score_mode\":\"none\",\"boost\":1.0}},"
+                + "{\"term\":{\"primary.sku\":{\"value\":\"s2\",\"boost\":1.0}}}"
+                + "],\"adjust_pure_negative\":true,\"boost\":1.0}}", query.toQuery());
+    }
+
+    @Test
+    public void sortUsesRawSubFieldAndNestedPath() {
+        ESSort sort = ESQuery.of(Order.class).desc(Order::getTitle).asc("items.quantity").toSort();
+        assertEquals(2, sort.getOrders().size());
+        assertJson("{\"title.raw\":{\"order\":\"desc\"}}", sort.getOrders().get(0));
+        assertJson("{\"items.quantity\":{\"order\":\"asc\",\"nested\":{\"path\":\"items\"}}}", sort.getOrders().get(1));
+    }
+
+    @Test
+    public void aggFieldUsesRawSubField() {
+        assertEquals("title.raw", ESQuery.of(Order.class).aggField(Order::getTitle));
+        assertEquals("status", ESQuery.of(Order.class).aggField(Order::getStatus));
+    }
+
+    @Test
+    public void customClausesAreKept() {
+        ESQuery<Order> query = ESQuery.of(Order.class).mustNot(QueryBuilders.idsQuery().addIds("x"));
+        assertJson("{\"bool\":{\"must_not\":[{\"ids\":{\"values\":[\"x\"],\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}", query.toQuery());
+    }
+
+    @Test
+    public void misspelledFieldIsRejected() {
+        IllegalArgumentException e = expectFailure(() -> ESQuery.of(Order.class).eq("titel", "x"));
+        assertTrue(e.getMessage(), e.getMessage().contains("titel"));
+        e = expectFailure(() -> ESQuery.of(Order.class).eq("items.skuu", "x"));
+        assertTrue(e.getMessage(), e.getMessage().contains("items.skuu"));
+    }
+
+    @Test
+    public void typeMisuseIsRejected() {
+        // text 字段没有 textRaw 时不能排序、聚合或 terms 查询
+        expectFailure(() -> ESQuery.of(Order.class).asc(Order::getRemark));
+        expectFailure(() -> ESQuery.of(Order.class).aggField(Order::getRemark));
+        expectFailure(() -> ESQuery.of(Order.class).in(Order::getRemark, Arrays.asList("a")));
+        expectFailure(() -> ESQuery.of(Order.class).gt(Order::getTitle, "a"));
+        // 对象字段只能查询其属性
+        expectFailure(() -> ESQuery.of(Order.class).eq("items", "a"));
+        expectFailure(() -> ESQuery.of(Order.class).eq(Order::getStatus, null));
+        expectFailure(() -> ESQuery.of(Order.class).between(Order::getAmount, null, null));
+    }
+
+    @Test
+    public void fieldRefMustBeGetter() {
+        expectFailure(() -> ESQuery.of(Order.class).eq(order -> order.getId().trim(), "a"));
+    }
+
+    private static IllegalArgumentException expectFailure(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+        throw new AssertionError("expected IllegalArgumentException");
+    }
+
+    private static void assertJson(String expected, ToXContent actual) {
+        assertEquals(JSON.parseObject(expected), JSON.parseObject(Strings.toString(actual)));
+    }
+}
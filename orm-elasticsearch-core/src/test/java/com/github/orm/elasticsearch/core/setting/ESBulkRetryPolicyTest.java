@@ -0,0 +1,57 @@
+package com.github.orm.elasticsearch.core.setting;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class ESBulkRetryPolicyTest {
+
+    private final ESBulkRetryPolicy policy = new ESBulkRetryPolicy();
+
+    @Test
+    public void retriesRejectedItems() {
+        assertTrue(policy.isRetryable(RestStatus.TOO_MANY_REQUESTS));
+        assertTrue(policy.isRetryable(RestStatus.SERVICE_UNAVAILABLE));
+        assertFalse(policy.isRetryable(RestStatus.BAD_REQUEST));
+        assertFalse(policy.isRetryable(RestStatus.CONFLICT));
+    }
+
+    @Test
+    public void retriesRequestsThatNeverReachedTheServer() {
+        assertTrue(policy.isRetryable(new ConnectException("Connection refused")));
+        assertTrue(policy.isRetryable(new ConnectTimeoutException("connect timed out")));
+        assertTrue(policy.isRetryable(new IOException("wrapped", new ConnectException("Connection refused"))));
+    }
+
+    @Test
+    public void doesNotRetryFailuresAfterTheRequestWasSent() {
+        assertFalse(policy.isRetryable(new SocketTimeoutException("Read timed out")));
+        assertFalse(policy.isRetryable(new IOException("Connection reset by peer")));
+        assertFalse(policy.isRetryable(new ElasticsearchStatusException("gateway timeout", RestStatus.GATEWAY_TIMEOUT)));
+    }
+
+    @Test
+    public void retriesWholeRequestRejections() {
+        assertTrue(policy.isRetryable(new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS)));
+        assertFalse(policy.isRetryable(new ElasticsearchStatusException("bad", RestStatus.BAD_REQUEST)));
+    }
+
+    @Test
+    public void backoffStaysWithinBounds() {
+        ESBulkRetryPolicy fixed = new ESBulkRetryPolicy().setJitter(0).setInitialBackoffMillis(100).setMaxBackoffMillis(350);
+        assertEquals(100, fixed.backoffMillis(1));
+        assertEquals(200, fixed.backoffMillis(2));
+        assertEquals(350, fixed.backoffMillis(3));
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.backoffMillis(2);
+            assertTrue(delay >= 100 && delay <= 200);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @ClassName ESStubBulk
+ * @Description 解析桩服务收到的 _bulk 请求体并生成逐项响应
+ * @Author liyongbing
+ * @Date 2026/10/19 10:20
+ * @Version 1.0
+ **/
+public final class ESStubBulk {
+
+    private ESStubBulk() {
+    }
+
+    /**
+     * 请求体中每个文档的 action 行，依次为 opType、_index、_id(可能为空)
+     */
+    public static List<String[]> actions(String body) {
+        List<String[]> actions = new ArrayList<>();
+        String[] lines = body.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isEmpty()) {
+                continue;
+            }
+            JSONObject line = JSON.parseObject(lines[i]);
+            String opType = line.keySet().iterator().next();
+            JSONObject meta = line.getJSONObject(opType);
+            actions.add(new String[]{opType, meta.getString("_index"), meta.getString("_id")});
+            if (!"delete".equals(opType)) {
+                i++;
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * @param status 文档在本次请求中的位置到状态码的映射，2xx 之外的视为失败
+     */
+    public static String response(String body, Function<Integer, Integer> status) {
+        List<String[]> actions = actions(body);
+        StringBuilder sb = new StringBuilder("{\"took\":1,\"errors\":");
+        boolean errors = false;
+        for (int i = 0; i < actions.size(); i++) {
+            errors |= status.apply(i) >= 300;
+        }
+        sb.append(errors).append(",\"items\":[");
+        for (int i = 0; i < actions.size(); i++) {
+            String[] action = actions.get(i);
+            String id = action[2] != null ? action[2] : "auto-" + i;
+            int code = status.apply(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"").append(action[0]).append("\":{\"_index\":\"").append(action[1])
+                    .append("\",\"_type\":\"_doc\",\"_id\":\"").append(id).append("\",");
+            if (code >= 300) {
+                sb.append("\"status\":").append(code).append(",\"error\":{\"type\":\"stub_exception\",\"reason\":\"status ")
+                        .append(code).append("\"}}}");
+            } else {
+                sb.append("\"_version\":1,\"result\":\"").append("delete".equals(action[0]) ? "deleted" : "created")
+                        .append("\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":0,\"_primary_term\":1,\"status\":")
+                        .append(code).append("}}");
+            }
+        }
+        return sb.append("]}").toString();
+    }
+
+    public static String success(String body) {
+        return response(body, i -> 201);
+    }
+}
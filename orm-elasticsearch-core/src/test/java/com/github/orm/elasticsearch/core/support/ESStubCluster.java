@@ -0,0 +1,391 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName ESStubCluster
+ * @Description 内存中的单分片集群，支持索引/别名/settings、count、scroll 查询、_seq_no 排序及范围查询、_bulk 及单文档写入，
+ * 字段mapping查询均返回未映射，用于验证迁移、导入等多步骤流程。设置了 index.blocks.write 的索引拒绝写入
+ * @Author liyongbing
+ * @Date 2026/10/19 16:10
+ * @Version 1.0
+ **/
+public class ESStubCluster {
+
+    private static final String BLOCK = "index.blocks.write";
+
+    private final Map<String, StubIndex> indices = new LinkedHashMap<>();
+    private final Map<String, Set<String>> aliases = new HashMap<>();
+    private final Map<String, List<JSONObject>> scrolls = new HashMap<>();
+    private final ESStubRoutes routes = new ESStubRoutes();
+    private volatile Consumer<JSONObject> searchListener;
+    private long seqNo;
+    private int scrollIds;
+
+    public ESStubCluster() {
+        routes.on("HEAD", "/([^/_][^/]*)", request -> exists(name(request, 1)) ? StubResponse.ok("") : StubResponse.json(404, ""))
+                .on("PUT", "/([^/_][^/]*)", this::createIndex)
+                .on("DELETE", "/([^/_][^/]*)", request -> {
+                    deleteIndex(name(request, 1));
+                    return StubResponse.ok("{\"acknowledged\":true}");
+                })
+                .on("GET", "/_alias/([^/]+)", this::getAlias)
+                .on("POST", "/_aliases", this::updateAliases)
+                .on("GET", "/([^/_][^/]*)/_settings/([^/]+)", this::getSettings)
+                .on("PUT", "/([^/_][^/]*)/_settings", this::putSettings)
+                .on("POST", "/([^/_][^/]*)/_count", request -> StubResponse.ok("{\"count\":" + docs(name(request, 1)).size()
+                        + ",\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0}}"))
+                .on("POST", "/([^/_][^/]*)/_refresh", request -> StubResponse.ok("{\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}}"))
+                .on("POST", "/([^/_][^/]*)/_search", this::search)
+                .on("POST", "/_search/scroll", this::scroll)
+                .on("DELETE", "/_search/scroll", request -> StubResponse.ok("{\"succeeded\":true,\"num_freed\":1}"))
+                .on("POST", "(/[^/_][^/]*)?/_bulk", this::bulk)
+                .on("PUT", "/([^/_][^/]*)/_doc/([^/]+)", this::indexDoc)
+                // 字段均未映射
+                .on("GET", "/([^/_][^/]*)/_mapping/field/([^/]+)", request -> StubResponse.ok("{}"));
+    }
+
+    public ESStubRoutes routes() {
+        return routes;
+    }
+
+    /**
+     * 每次 _search 请求(含scroll首页)生成响应后以请求体回调，回调中的修改相当于查询快照之后的并发写入
+     */
+    public void setSearchListener(Consumer<JSONObject> searchListener) {
+        this.searchListener = searchListener;
+    }
+
+    public synchronized void createIndex(String index) {
+        indices.putIfAbsent(index, new StubIndex());
+    }
+
+    /**
+     * 写入文档，索引被加写锁时返回 false
+     */
+    public synchronized boolean put(String index, String id, String source) {
+        StubIndex stub = index(index);
+        if (stub.blocked()) {
+            return false;
+        }
+        stub.docs.put(id, new StubDoc(id, source, ++seqNo));
+        return true;
+    }
+
+    public synchronized boolean delete(String index, String id) {
+        StubIndex stub = index(index);
+        if (stub.blocked()) {
+            return false;
+        }
+        stub.docs.remove(id);
+        return true;
+    }
+
+    public synchronized Map<String, String> docs(String indexOrAlias) {
+        Map<String, String> docs = new TreeMap<>();
+        for (String index : resolve(indexOrAlias)) {
+            indices.get(index).docs.values().forEach(doc -> docs.put(doc.id, doc.source));
+        }
+        return docs;
+    }
+
+    public synchronized Set<String> indices() {
+        return new TreeSet<>(indices.keySet());
+    }
+
+    public synchronized Set<String> aliasIndices(String alias) {
+        return new TreeSet<>(aliases.getOrDefault(alias, Collections.emptySet()));
+    }
+
+    public synchronized boolean isBlocked(String index) {
+        return index(index).blocked();
+    }
+
+    private synchronized boolean exists(String name) {
+        return indices.containsKey(name) || aliases.containsKey(name);
+    }
+
+    private synchronized void deleteIndex(String index) {
+        indices.remove(index);
+        aliases.values().forEach(set -> set.remove(index));
+        aliases.values().removeIf(Set::isEmpty);
+    }
+
+    private StubIndex index(String index) {
+        StubIndex stub = indices.get(index);
+        if (stub == null) {
+            throw new IllegalStateException("no such index " + index);
+        }
+        return stub;
+    }
+
+    private synchronized List<String> resolve(String names) {
+        List<String> resolved = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (aliases.containsKey(name)) {
+                resolved.addAll(aliases.get(name));
+            } else if (indices.containsKey(name)) {
+                resolved.add(name);
+            }
+        }
+        return resolved;
+    }
+
+    private synchronized StubResponse createIndex(StubRequest request) {
+        String index = name(request, 1);
+        if (indices.containsKey(index)) {
+            return StubResponse.json(400, "{\"error\":{\"type\":\"resource_already_exists_exception\",\"reason\":\"" + index + "\"},\"status\":400}");
+        }
+        indices.put(index, new StubIndex());
+        JSONObject body = request.body.isEmpty() ? new JSONObject() : JSON.parseObject(request.body);
+        JSONObject aliasBody = body.getJSONObject("aliases");
+        if (aliasBody != null) {
+            aliasBody.keySet().forEach(alias -> aliases.computeIfAbsent(alias, k -> new TreeSet<>()).add(index));
+        }
+        return StubResponse.ok("{\"acknowledged\":true,\"shards_acknowledged\":true,\"index\":\"" + index + "\"}");
+    }
+
+    private synchronized StubResponse getAlias(StubRequest request) {
+        String alias = name(request, 1);
+        Set<String> targets = aliases.get(alias);
+        if (targets == null) {
+            return StubResponse.json(404, "{\"error\":\"alias [" + alias + "] missing\",\"status\":404}");
+        }
+        JSONObject body = new JSONObject(true);
+        targets.forEach(index -> body.put(index, JSON.parseObject("{\"aliases\":{\"" + alias + "\":{}}}")));
+        return StubResponse.ok(body.toJSONString());
+    }
+
+    private synchronized StubResponse updateAliases(StubRequest request) {
+        for (Object item : JSON.parseObject(request.body).getJSONArray("actions")) {
+            JSONObject action = (JSONObject) item;
+            String type = action.keySet().iterator().next();
+            JSONObject spec = action.getJSONObject(type);
+            String index = first(spec, "index", "indices");
+            if ("remove_index".equals(type)) {
+                deleteIndex(index);
+            } else if ("add".equals(type)) {
+                aliases.computeIfAbsent(first(spec, "alias", "aliases"), k -> new TreeSet<>()).add(index);
+            } else {
+                Set<String> targets = aliases.get(first(spec, "alias", "aliases"));
+                if (targets != null) {
+                    targets.remove(index);
+                }
+                aliases.values().removeIf(Set::isEmpty);
+            }
+        }
+        return StubResponse.ok("{\"acknowledged\":true}");
+    }
+
+    private synchronized StubResponse getSettings(StubRequest request) {
+        String index = name(request, 1);
+        String key = name(request, 3);
+        String value = index(index).settings.get(key);
+        JSONObject settings = new JSONObject();
+        if (value != null) {
+            settings.put(key, value);
+        }
+        return StubResponse.ok("{\"" + index + "\":{\"settings\":" + settings.toJSONString() + "}}");
+    }
+
+    private synchronized StubResponse putSettings(StubRequest request) {
+        StubIndex stub = index(name(request, 1));
+        flatten("", JSON.parseObject(request.body), (key, value) -> {
+            if (value == null) {
+                stub.settings.remove(key);
+            } else {
+                stub.settings.put(key, value.toString());
+            }
+        });
+        return StubResponse.ok("{\"acknowledged\":true}");
+    }
+
+    private StubResponse search(StubRequest request) {
+        JSONObject body = request.body.isEmpty() ? new JSONObject() : JSON.parseObject(request.body);
+        String response = snapshot(request, body);
+        Consumer<JSONObject> listener = searchListener;
+        if (listener != null) {
+            listener.accept(body);
+        }
+        return StubResponse.ok(response);
+    }
+
+    private synchronized String snapshot(StubRequest request, JSONObject body) {
+        List<JSONObject> hits = new ArrayList<>();
+        long after = rangeGt(body);
+        boolean seqNoSort = String.valueOf(body.get("sort")).contains("_seq_no");
+        for (String index : resolve(name(request, 1))) {
+            for (StubDoc doc : indices.get(index).docs.values()) {
+                if (doc.seqNo > after) {
+                    hits.add(hit(index, doc, seqNoSort));
+                }
+            }
+        }
+        if (seqNoSort) {
+            hits.sort((a, b) -> Long.compare(b.getJSONArray("sort").getLongValue(0), a.getJSONArray("sort").getLongValue(0)));
+            hits = hits.subList(0, Math.min(hits.size(), body.getIntValue("size")));
+        }
+        String scrollId = null;
+        if (request.query != null && request.query.contains("scroll=")) {
+            scrollId = "scroll-" + (++scrollIds);
+            scrolls.put(scrollId, Collections.emptyList());
+        }
+        return searchResponse(scrollId, hits);
+    }
+
+    private synchronized StubResponse scroll(StubRequest request) {
+        String scrollId = JSON.parseObject(request.body).getString("scroll_id");
+        return StubResponse.ok(searchResponse(scrollId, scrolls.getOrDefault(scrollId, Collections.emptyList())));
+    }
+
+    private synchronized StubResponse bulk(StubRequest request) {
+        String defaultIndex = request.path.startsWith("/_bulk") ? null : request.path.substring(1, request.path.indexOf("/_bulk"));
+        String[] lines = request.body.split("\n");
+        JSONArray items = new JSONArray();
+        boolean errors = false;
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isEmpty()) {
+                continue;
+            }
+            JSONObject line = JSON.parseObject(lines[i]);
+            String opType = line.keySet().iterator().next();
+            JSONObject meta = line.getJSONObject(opType);
+            String index = meta.getString("_index") != null ? meta.getString("_index") : defaultIndex;
+            String id = meta.getString("_id");
+            String source = "delete".equals(opType) ? null : lines[++i];
+            boolean accepted = "delete".equals(opType) ? delete(index, id) : put(index, id, source);
+            JSONObject item = new JSONObject(true);
+            item.put("_index", index);
+            item.put("_type", "_doc");
+            item.put("_id", id);
+            item.put("_version", 1);
+            if (accepted) {
+                item.put("result", "delete".equals(opType) ? "deleted" : "created");
+                item.put("status", "delete".equals(opType) ? 200 : 201);
+            } else {
+                errors = true;
+                item.put("status", 403);
+                item.put("error", JSON.parseObject("{\"type\":\"cluster_block_exception\",\"reason\":\"index [" + index + "] blocked\"}"));
+            }
+            JSONObject wrapper = new JSONObject();
+            wrapper.put(opType, item);
+            items.add(wrapper);
+        }
+        return StubResponse.ok("{\"took\":1,\"errors\":" + errors + ",\"items\":" + items.toJSONString() + "}");
+    }
+
+    private synchronized StubResponse indexDoc(StubRequest request) {
+        String index = resolve(name(request, 1)).get(0);
+        String id = name(request, 3);
+        if (!put(index, id, request.body)) {
+            return StubResponse.json(403, "{\"error\":{\"type\":\"cluster_block_exception\",\"reason\":\"index [" + index
+                    + "] blocked by: [FORBIDDEN/8/index write (api)];\"},\"status\":403}");
+        }
+        return StubResponse.json(201, "{\"_index\":\"" + index + "\",\"_type\":\"_doc\",\"_id\":\"" + id
+                + "\",\"_version\":1,\"result\":\"created\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":" + seqNo + ",\"_primary_term\":1}");
+    }
+
+    private static long rangeGt(JSONObject body) {
+        JSONObject query = body.getJSONObject("query");
+        if (query == null || !query.containsKey("range")) {
+            return Long.MIN_VALUE;
+        }
+        JSONObject range = query.getJSONObject("range").getJSONObject("_seq_no");
+        Object from = range.get("from");
+        if (from == null) {
+            return Long.MIN_VALUE;
+        }
+        long value = Long.parseLong(from.toString());
+        return Boolean.FALSE.equals(range.getBoolean("include_lower")) ? value : value - 1;
+    }
+
+    private static JSONObject hit(String index, StubDoc doc, boolean seqNoSort) {
+        JSONObject hit = new JSONObject(true);
+        hit.put("_index", index);
+        hit.put("_type", "_doc");
+        hit.put("_id", doc.id);
+        hit.put("_score", null);
+        if (seqNoSort) {
+            hit.put("sort", new JSONArray(Collections.singletonList(doc.seqNo)));
+        } else {
+            hit.put("_source", JSON.parseObject(doc.source));
+        }
+        return hit;
+    }
+
+    private static String searchResponse(String scrollId, List<JSONObject> hits) {
+        JSONObject body = new JSONObject(true);
+        if (scrollId != null) {
+            body.put("_scroll_id", scrollId);
+        }
+        body.put("took", 1);
+        body.put("timed_out", false);
+        body.put("_shards", JSON.parseObject("{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0}"));
+        JSONObject hitsBody = new JSONObject(true);
+        hitsBody.put("total", JSON.parseObject("{\"value\":" + hits.size() + ",\"relation\":\"eq\"}"));
+        hitsBody.put("max_score", null);
+        hitsBody.put("hits", hits);
+        body.put("hits", hitsBody);
+        return JSON.toJSONString(body, SerializerFeature.WriteMapNullValue);
+    }
+
+    private static String first(JSONObject spec, String single, String multiple) {
+        if (spec.containsKey(single)) {
+            return spec.getString(single);
+        }
+        return spec.getJSONArray(multiple).getString(0);
+    }
+
+    private static void flatten(String prefix, JSONObject object, BiConsumer<String, Object> consumer) {
+        for (Map.Entry<String, Object> entry : object.entrySet()) {
+            String key = prefix.isEmpty() ? entry.getKey() : prefix + "." + entry.getKey();
+            if (entry.getValue() instanceof JSONObject) {
+                flatten(key, (JSONObject) entry.getValue(), consumer);
+            } else {
+                consumer.accept(key, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 路径中的第 segment 段，从1开始
+     */
+    private static String name(StubRequest request, int segment) {
+        return request.path.split("/")[segment];
+    }
+
+    private static final class StubIndex {
+        private final Map<String, StubDoc> docs = new LinkedHashMap<>();
+        private final Map<String, String> settings = new HashMap<>();
+
+        private StubIndex() {
+            settings.put("index.number_of_shards", "1");
+            settings.put("index.number_of_replicas", "1");
+        }
+
+        private boolean blocked() {
+            return "true".equals(settings.get(BLOCK));
+        }
+    }
+
+    private static final class StubDoc {
+        private final String id;
+        private final String source;
+        private final long seqNo;
+
+        private StubDoc(String id, String source, long seqNo) {
+            this.id = id;
+            this.source = source;
+            this.seqNo = seqNo;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.github.orm.elasticsearch.core.annotation.ESDocument;
+import com.github.orm.elasticsearch.core.annotation.ESId;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * @ClassName ESStubDocument
+ * @Description DAO测试使用的实体，索引名为 stub_document_test
+ * @Author liyongbing
+ * @Date 2026/10/19 15:10
+ * @Version 1.0
+ **/
+@Data
+@Accessors(chain = true)
+@ESDocument(indexName = "stub_document")
+public class ESStubDocument {
+
+    @ESId
+    private String id;
+    private String name;
+    private long version;
+}
@@ -0,0 +1,79 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.github.orm.elasticsearch.core.base.BaseElasticsearchDao;
+import com.github.orm.elasticsearch.core.base.ElasticsearchUtils;
+import com.github.orm.elasticsearch.core.enums.ESDecodeMode;
+import com.github.orm.elasticsearch.core.setting.ESCacheSetting;
+import com.github.orm.elasticsearch.core.setting.ESCoalesceSetting;
+import org.elasticsearch.client.RestHighLevelClient;
+
+/**
+ * @ClassName ESStubDocumentDao
+ * @Description 连接桩服务的DAO，可按测试设置近端缓存、请求合并及解码方式
+ * @Author liyongbing
+ * @Date 2026/10/19 15:12
+ * @Version 1.0
+ **/
+public class ESStubDocumentDao extends BaseElasticsearchDao<ESStubDocument> {
+
+    public static final String INDEX = "stub_document_test";
+
+    private ESCacheSetting cacheSetting;
+    private ESCoalesceSetting coalesceSetting;
+    private ESDecodeMode decodeMode = ESDecodeMode.FASTJSON;
+
+    public ESStubDocumentDao(RestHighLevelClient client) {
+        super(utils(client), "test");
+    }
+
+    private static ElasticsearchUtils utils(RestHighLevelClient client) {
+        ElasticsearchUtils utils = new ElasticsearchUtils();
+        utils.setClient(client);
+        return utils;
+    }
+
+    /**
+     * 索引已存在，@ESId 字段的mapping类型为 idType
+     */
+    public static ESStubRoutes routes(String index, String idType) {
+        return new ESStubRoutes()
+                .on("HEAD", "/" + index, request -> ESStubServer.StubResponse.ok(""))
+                .on("GET", "/" + index + "/_mapping/field/id", request -> ESStubServer.StubResponse.ok(
+                        "{\"" + index + "\":{\"mappings\":{\"id\":{\"full_name\":\"id\",\"mapping\":{\"id\":{\"type\":\"" + idType + "\"}}}}}}"));
+    }
+
+    public ESStubDocumentDao setCacheSetting(ESCacheSetting cacheSetting) {
+        this.cacheSetting = cacheSetting;
+        return this;
+    }
+
+    public ESStubDocumentDao setCoalesceSetting(ESCoalesceSetting coalesceSetting) {
+        this.coalesceSetting = coalesceSetting;
+        return this;
+    }
+
+    public ESStubDocumentDao setDecodeMode(ESDecodeMode decodeMode) {
+        this.decodeMode = decodeMode;
+        return this;
+    }
+
+    public ESStubDocumentDao start() throws Exception {
+        afterPropertiesSet();
+        return this;
+    }
+
+    @Override
+    public ESCacheSetting cacheSetting() {
+        return cacheSetting;
+    }
+
+    @Override
+    public ESCoalesceSetting coalesceSetting() {
+        return coalesceSetting;
+    }
+
+    @Override
+    public ESDecodeMode decodeMode() {
+        return decodeMode;
+    }
+}
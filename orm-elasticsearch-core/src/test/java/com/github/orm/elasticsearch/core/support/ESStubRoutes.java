@@ -0,0 +1,52 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.github.orm.elasticsearch.core.support.ESStubServer.Handler;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubRequest;
+import com.github.orm.elasticsearch.core.support.ESStubServer.StubResponse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * @ClassName ESStubRoutes
+ * @Description 按请求方法及路径分发的桩服务处理器，后注册的路由优先，未匹配时返回404
+ * @Author liyongbing
+ * @Date 2026/10/19 15:05
+ * @Version 1.0
+ **/
+public class ESStubRoutes implements Handler {
+
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param method    请求方法
+     * @param pathRegex 完整匹配的路径正则
+     */
+    public ESStubRoutes on(String method, String pathRegex, Handler handler) {
+        routes.add(0, new Route(method, Pattern.compile(pathRegex), handler));
+        return this;
+    }
+
+    @Override
+    public StubResponse handle(StubRequest request) throws Exception {
+        for (Route route : routes) {
+            if (route.method.equals(request.method) && route.path.matcher(request.path).matches()) {
+                return route.handler.handle(request);
+            }
+        }
+        return StubResponse.json(404, "{\"error\":{\"type\":\"stub_no_route\",\"reason\":\"" + request.method + " " + request.path + "\"},\"status\":404}");
+    }
+
+    private static final class Route {
+        private final String method;
+        private final Pattern path;
+        private final Handler handler;
+
+        private Route(String method, Pattern path, Handler handler) {
+            this.method = method;
+            this.path = path;
+            this.handler = handler;
+        }
+    }
+}
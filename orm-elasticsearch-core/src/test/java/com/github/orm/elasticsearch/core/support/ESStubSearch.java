@@ -0,0 +1,45 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * @ClassName ESStubSearch
+ * @Description 生成桩服务返回的 _search 响应
+ * @Author liyongbing
+ * @Date 2026/10/19 15:20
+ * @Version 1.0
+ **/
+public final class ESStubSearch {
+
+    private ESStubSearch() {
+    }
+
+    /**
+     * @param index   命中所在索引
+     * @param total   hits.total，为负数时不返回
+     * @param sources 每条命中的 _source，_id 取其中的 id 属性
+     */
+    public static String hits(String index, long total, String... sources) {
+        StringBuilder sb = new StringBuilder("{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},\"hits\":{");
+        if (total >= 0) {
+            sb.append("\"total\":{\"value\":").append(total).append(",\"relation\":\"eq\"},");
+        }
+        sb.append("\"max_score\":1.0,\"hits\":[");
+        for (int i = 0; i < sources.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            String id = JSON.parseObject(sources[i]).getString("id");
+            sb.append("{\"_index\":\"").append(index).append("\",\"_type\":\"_doc\",\"_id\":\"").append(id)
+                    .append("\",\"_score\":1.0,\"_source\":").append(sources[i]).append('}');
+        }
+        return sb.append("]}}").toString();
+    }
+
+    /**
+     * 带 _scroll_id 的 scroll 批次响应
+     */
+    public static String scroll(String scrollId, String index, String... sources) {
+        return "{\"_scroll_id\":\"" + scrollId + "\"," + hits(index, -1, sources).substring(1);
+    }
+}
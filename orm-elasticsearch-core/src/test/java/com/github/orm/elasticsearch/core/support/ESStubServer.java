@@ -0,0 +1,180 @@
+package com.github.orm.elasticsearch.core.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName ESStubServer
+ * @Description 测试用的本地HTTP桩服务，按请求返回预设的响应，可注入延迟或直接断开连接
+ * @Author liyongbing
+ * @Date 2026/10/19 10:05
+ * @Version 1.0
+ **/
+public class ESStubServer implements Closeable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<StubRequest> requests = new CopyOnWriteArrayList<>();
+    private volatile Handler handler;
+
+    public ESStubServer(Handler handler) throws IOException {
+        this.handler = handler;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "es-stub-" + server.getAddress().getPort());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public HttpHost host() {
+        return new HttpHost(server.getAddress().getHostString(), server.getAddress().getPort(), "http");
+    }
+
+    public List<StubRequest> requests() {
+        return requests;
+    }
+
+    public void setHandler(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * 指向若干桩服务的客户端
+     */
+    public static RestHighLevelClient client(int socketTimeoutMillis, ESStubServer... servers) {
+        HttpHost[] hosts = new HttpHost[servers.length];
+        for (int i = 0; i < servers.length; i++) {
+            hosts[i] = servers[i].host();
+        }
+        RestClientBuilder builder = RestClient.builder(hosts)
+                .setRequestConfigCallback(config -> config.setSocketTimeout(socketTimeoutMillis));
+        return new RestHighLevelClient(builder);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        StubRequest request = new StubRequest(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                exchange.getRequestURI().getRawQuery(), read(exchange.getRequestBody()));
+        requests.add(request);
+        StubResponse response;
+        try {
+            response = handler.handle(request);
+        } catch (Exception e) {
+            response = StubResponse.json(500, "{\"error\":{\"type\":\"stub_exception\",\"reason\":\"" + e + "\"},\"status\":500}");
+        }
+        try {
+            if (response.delayMillis > 0) {
+                Thread.sleep(response.delayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (response.drop) {
+            exchange.close();
+            return;
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public interface Handler {
+        StubResponse handle(StubRequest request) throws Exception;
+    }
+
+    public static class StubRequest {
+        public final String method;
+        public final String path;
+        public final String query;
+        public final String body;
+
+        StubRequest(String method, String path, String query, String body) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.body = body;
+        }
+    }
+
+    public static class StubResponse {
+        private final int status;
+        private final String body;
+        private long delayMillis;
+        private boolean drop;
+
+        private StubResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public static StubResponse json(int status, String body) {
+            return new StubResponse(status, body);
+        }
+
+        public static StubResponse ok(String body) {
+            return json(200, body);
+        }
+
+        /**
+         * 读取请求后不返回任何响应直接断开
+         */
+        public static StubResponse dropConnection() {
+            StubResponse response = new StubResponse(0, "");
+            response.drop = true;
+            return response;
+        }
+
+        public StubResponse delay(long millis) {
+            this.delayMillis = millis;
+            return this;
+        }
+    }
+}